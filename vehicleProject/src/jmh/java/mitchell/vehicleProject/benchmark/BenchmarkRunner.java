@@ -0,0 +1,33 @@
+package mitchell.vehicleProject.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark in this package with the GC profiler, so each result carries allocation
+ * rate and bytes/op next to throughput. Results are written to {@code target/jmh-result.json} for
+ * diffing between builds. Extra JMH command line options can be passed through {@code jmh.args},
+ * e.g. {@code mvn -P jmh test-compile exec:exec -Djmh.args="JacksonBenchmark -f 2"}.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    OptionsBuilder builder = new OptionsBuilder();
+    builder.parent(commandLineOptions);
+    if (commandLineOptions.getIncludes().isEmpty()) {
+      builder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+    }
+    Options options =
+        builder
+            .addProfiler(GCProfiler.class)
+            .result("target/jmh-result.json")
+            .resultFormat(ResultFormatType.JSON)
+            .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,66 @@
+package mitchell.vehicleProject.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Jackson JSON encode/decode of the {@code List<Vehicle>} bodies GET /vehicles returns. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JacksonBenchmark {
+
+  @Param({"10", "1000", "10000"})
+  public int vehicles;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final TypeReference<List<Vehicle>> vehicleListType =
+      new TypeReference<List<Vehicle>>() {};
+
+  private ObjectWriter writer;
+
+  private ObjectReader reader;
+
+  private List<Vehicle> vehicleList;
+
+  private byte[] json;
+
+  @Setup
+  public void setup() throws IOException {
+    writer = objectMapper.writerFor(vehicleListType);
+    reader = objectMapper.readerFor(vehicleListType);
+    vehicleList = VehicleFixtures.generate(0, vehicles);
+    json = writer.writeValueAsBytes(vehicleList);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    return writer.writeValueAsBytes(vehicleList);
+  }
+
+  @Benchmark
+  public List<Vehicle> deserialize() throws IOException {
+    return reader.readValue(json);
+  }
+}
@@ -0,0 +1,99 @@
+package mitchell.vehicleProject.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mitchell.vehicleProject.controller.VehicleController;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.exceptions.BadRequestException;
+import mitchell.vehicleProject.exceptions.ExceptionAdvice;
+import mitchell.vehicleProject.metrics.VehicleMetrics;
+import mitchell.vehicleProject.service.VehicleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * {@link VehicleService#checkVehicleRequest} on valid input, and the rejection path: building the
+ * {@link BadRequestException} (stack trace included) and turning it into a response through {@link
+ * ExceptionAdvice}, both directly and through the MVC dispatch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ValidationBenchmark {
+
+  private final VehicleService vehicleService = new VehicleService();
+
+  private final ExceptionAdvice exceptionAdvice = new ExceptionAdvice();
+
+  private Vehicle validVehicle;
+
+  private Vehicle invalidVehicle;
+
+  private byte[] invalidVehicleJson;
+
+  private MockMvc mockMvc;
+
+  @Setup
+  public void setup() throws Exception {
+    validVehicle = VehicleFixtures.generate(0, 1).get(0);
+    invalidVehicle = VehicleFixtures.generate(1, 1).get(0);
+    invalidVehicle.setYear(2051);
+    invalidVehicleJson = new ObjectMapper().writeValueAsBytes(invalidVehicle);
+
+    ReflectionTestUtils.setField(
+        vehicleService, "vehicleMetrics", new VehicleMetrics(new SimpleMeterRegistry()));
+    VehicleController vehicleController = new VehicleController();
+    ReflectionTestUtils.setField(vehicleController, "vehicleService", vehicleService);
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(vehicleController)
+            .setControllerAdvice(exceptionAdvice)
+            .build();
+  }
+
+  @Benchmark
+  public Vehicle acceptValidVehicle() {
+    vehicleService.checkVehicleRequest(validVehicle);
+    return validVehicle;
+  }
+
+  @Benchmark
+  public String rejectInvalidVehicle() {
+    try {
+      vehicleService.checkVehicleRequest(invalidVehicle);
+      return null;
+    } catch (BadRequestException e) {
+      return exceptionAdvice.handleBadRequestException(e);
+    }
+  }
+
+  @Benchmark
+  public int rejectInvalidVehicleThroughMvc() throws Exception {
+    return mockMvc
+        .perform(
+            post("/vehicles")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(invalidVehicleJson))
+        .andReturn()
+        .getResponse()
+        .getStatus();
+  }
+}
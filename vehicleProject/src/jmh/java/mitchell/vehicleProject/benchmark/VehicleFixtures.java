@@ -0,0 +1,36 @@
+package mitchell.vehicleProject.benchmark;
+
+import mitchell.vehicleProject.entity.Vehicle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Deterministic synthetic vehicles shared by the benchmarks. */
+public final class VehicleFixtures {
+
+  private static final String[][] MODELS = {
+    {"honda", "civic", "accord", "cr-v", "pilot"},
+    {"toyota", "corolla", "camry", "rav4", "prius"},
+    {"ford", "f-150", "focus", "escape", "mustang"},
+    {"BMW", "i8", "x5", "330i"},
+    {"Tesla", "model S", "model 3", "model X"}
+  };
+
+  private VehicleFixtures() {}
+
+  public static List<Vehicle> generate(int offset, int count) {
+    Random random = new Random(offset);
+    List<Vehicle> vehicles = new ArrayList<>(count);
+    for (int i = offset; i < offset + count; i++) {
+      String[] make = MODELS[random.nextInt(MODELS.length)];
+      Vehicle vehicle = new Vehicle();
+      vehicle.setId(i + 1);
+      vehicle.setYear(1990 + random.nextInt(31));
+      vehicle.setMake(make[0]);
+      vehicle.setModel(make[1 + random.nextInt(make.length - 1)]);
+      vehicles.add(vehicle);
+    }
+    return vehicles;
+  }
+}
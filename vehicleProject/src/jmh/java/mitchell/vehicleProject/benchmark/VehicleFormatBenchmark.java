@@ -0,0 +1,130 @@
+package mitchell.vehicleProject.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.format.VehicleProtobufHttpMessageConverter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode of {@code List<Vehicle>} bodies in every negotiable format, configured as the
+ * converters are. The encoded size is reported as the {@code payloadBytes} counter of {@link
+ * #serialize}; with the GC profiler the bytes/op column shows allocation per list next to
+ * throughput. {@link JacksonBenchmark} stays the JSON baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VehicleFormatBenchmark {
+
+  @Param({"JSON", "SMILE", "CBOR", "PROTOBUF"})
+  public String format;
+
+  @Param({"1000", "10000"})
+  public int vehicles;
+
+  private final TypeReference<List<Vehicle>> vehicleListType =
+      new TypeReference<List<Vehicle>>() {};
+
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 20);
+
+  private VehicleProtobufHttpMessageConverter protobufConverter;
+
+  private ObjectWriter writer;
+
+  private ObjectReader reader;
+
+  private List<Vehicle> vehicleList;
+
+  private byte[] payload;
+
+  @Setup
+  public void setup() throws IOException {
+    vehicleList = VehicleFixtures.generate(0, vehicles);
+    if ("PROTOBUF".equals(format)) {
+      protobufConverter = new VehicleProtobufHttpMessageConverter();
+    } else {
+      ObjectMapper objectMapper = new ObjectMapper(factory(format));
+      writer = objectMapper.writerFor(vehicleListType);
+      reader = objectMapper.readerFor(vehicleListType);
+    }
+    encode();
+    payload = buffer.toByteArray();
+  }
+
+  private static JsonFactory factory(String format) {
+    switch (format) {
+      case "SMILE":
+        return new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+      case "CBOR":
+        return new CBORFactory();
+      default:
+        return new JsonFactory();
+    }
+  }
+
+  private int encode() throws IOException {
+    buffer.reset();
+    if (protobufConverter != null) {
+      protobufConverter.writeVehicles(vehicleList, buffer);
+    } else {
+      writer.writeValue(buffer, vehicleList);
+    }
+    return buffer.size();
+  }
+
+  @Benchmark
+  public int serialize(PayloadSize payloadSize) throws IOException {
+    int size = encode();
+    payloadSize.payloadBytes = size;
+    return size;
+  }
+
+  @Benchmark
+  public List<Vehicle> deserialize() throws IOException {
+    if (protobufConverter != null) {
+      return protobufConverter.readVehicles(new ByteArrayInputStream(payload));
+    }
+    return reader.readValue(payload);
+  }
+
+  /** Size of the last encoded list, reported next to the throughput. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class PayloadSize {
+
+    public long payloadBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      payloadBytes = 0;
+    }
+  }
+}
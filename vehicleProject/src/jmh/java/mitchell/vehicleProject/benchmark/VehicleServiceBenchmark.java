@@ -0,0 +1,91 @@
+package mitchell.vehicleProject.benchmark;
+
+import mitchell.vehicleProject.VehicleProjectApplication;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.service.VehicleService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** {@link VehicleService#getVehicles} against a seeded in-memory H2, SQL vs bitmap index. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VehicleServiceBenchmark {
+
+  private static final int SEED_BATCH = 10_000;
+
+  @Param({"1000", "100000"})
+  public int vehicles;
+
+  @Param({"none", "year", "make", "makeModel", "yearMakeModel"})
+  public String filter;
+
+  @Param({"false", "true"})
+  public boolean bitmapIndex;
+
+  private ConfigurableApplicationContext context;
+
+  private VehicleService vehicleService;
+
+  private Optional<Integer> year = Optional.empty();
+
+  private Optional<String> make = Optional.empty();
+
+  private Optional<String> model = Optional.empty();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context =
+        new SpringApplicationBuilder(VehicleProjectApplication.class)
+            .web(WebApplicationType.NONE)
+            .logStartupInfo(false)
+            .properties("vehicle.index.enabled=" + bitmapIndex)
+            .run();
+    vehicleService = context.getBean(VehicleService.class);
+    for (int offset = 0; offset < vehicles; offset += SEED_BATCH) {
+      vehicleService.createVehicles(
+          VehicleFixtures.generate(offset, Math.min(SEED_BATCH, vehicles - offset)));
+    }
+
+    if (filter.startsWith("year")) {
+      year = Optional.of(2005);
+    }
+    if (filter.toLowerCase().contains("make")) {
+      make = Optional.of("honda");
+    }
+    if (filter.contains("Model")) {
+      model = Optional.of("civic");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<Vehicle> getVehicles() {
+    return vehicleService.getVehicles(year, make, model);
+  }
+}
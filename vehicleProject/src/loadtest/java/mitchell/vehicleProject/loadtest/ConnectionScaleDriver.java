@@ -0,0 +1,202 @@
+package mitchell.vehicleProject.loadtest;
+
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop driver for connection scaling: {@code connections} virtual clients, each owning one
+ * keep-alive connection and sending its next request as soon as the previous one completes. The
+ * question is not the latency at a given rate (see {@link LoadDriver}) but how many requests a
+ * server keeps in flight, and at what latency, when that many clients are waiting on it at once.
+ *
+ * <p>Clients start staggered over the warmup so the listen backlog is not flooded; measurement
+ * begins once all of them are connected. The client runs on its own event loops so it does not
+ * compete with an in-process reactive server for the default ones.
+ */
+@Log4j2
+public class ConnectionScaleDriver {
+
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+  private final LoadTestConfig config;
+
+  private final FleetGenerator fleetGenerator;
+
+  private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+
+  private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private final AtomicInteger peakInFlight = new AtomicInteger();
+
+  private final AtomicInteger connectionsOpened = new AtomicInteger();
+
+  private final WebClient webClient;
+
+  private final ConnectionProvider connectionProvider;
+
+  private final LoopResources loopResources;
+
+  public ConnectionScaleDriver(LoadTestConfig config, String baseUrl) {
+    this.config = config;
+    this.fleetGenerator = new FleetGenerator(config.getSeed() + 1);
+    for (Operation operation : Operation.values()) {
+      recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+      errors.put(operation, new AtomicLong());
+    }
+    this.connectionProvider =
+        ConnectionProvider.builder("loadtest")
+            .maxConnections(config.getConnections())
+            .pendingAcquireMaxCount(-1)
+            .pendingAcquireTimeout(Duration.ofSeconds(60))
+            .build();
+    this.loopResources = LoopResources.create("loadtest-client");
+    HttpClient httpClient =
+        HttpClient.create(connectionProvider)
+            .tcpConfiguration(
+                tcp ->
+                    tcp.runOn(loopResources)
+                        .doOnConnected(connection -> connectionsOpened.incrementAndGet()));
+    this.webClient =
+        WebClient.builder()
+            .baseUrl(baseUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+  }
+
+  /** Ramps up during the warmup, measures for the duration, and returns one histogram each. */
+  public Map<Operation, Histogram> run() {
+    long warmupNanos = TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+    long start = System.nanoTime();
+    long end = start + warmupNanos + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+    int connections = config.getConnections();
+    log.info(
+        "Opening {} connections over {} s, then measuring for {} s",
+        connections,
+        config.getWarmupSeconds(),
+        config.getDurationSeconds());
+
+    Mono<Void> resetAfterWarmup =
+        Mono.delay(Duration.ofNanos(warmupNanos))
+            .doOnNext(
+                tick -> {
+                  for (Operation operation : Operation.values()) {
+                    recorders.get(operation).reset();
+                    errors.get(operation).set(0);
+                  }
+                  peakInFlight.set(inFlight.get());
+                  log.info("{} connections open, measuring", connectionsOpened.get());
+                })
+            .then();
+    Flux<Void> clients =
+        Flux.range(0, connections)
+            .flatMap(
+                client ->
+                    Mono.delay(Duration.ofNanos(warmupNanos / connections * client))
+                        .then(clientLoop(end)),
+                connections);
+    Flux.merge(resetAfterWarmup, clients).blockLast();
+
+    Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      histograms.put(operation, recorders.get(operation).getIntervalHistogram());
+    }
+    connectionProvider.disposeLater().block();
+    loopResources.disposeLater().block();
+    return histograms;
+  }
+
+  public long errors(Operation operation) {
+    return errors.get(operation).get();
+  }
+
+  public int getPeakInFlight() {
+    return peakInFlight.get();
+  }
+
+  public int getConnectionsOpened() {
+    return connectionsOpened.get();
+  }
+
+  private Mono<Void> clientLoop(long end) {
+    return Mono.defer(() -> execute(Operation.pick(config.getReadRatio())))
+        .repeat(() -> System.nanoTime() < end)
+        .then();
+  }
+
+  private Mono<Void> execute(Operation operation) {
+    long start = System.nanoTime();
+    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    return send(operation)
+        .onErrorReturn(-1)
+        .doOnNext(
+            status -> {
+              inFlight.decrementAndGet();
+              recorders
+                  .get(operation)
+                  .recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+              if (status < 200 || status >= 400) {
+                errors.get(operation).incrementAndGet();
+              }
+            })
+        .then();
+  }
+
+  private Mono<Integer> send(Operation operation) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int id = 1 + random.nextInt(Math.max(1, config.getFleet()));
+    switch (operation) {
+      case GET_BY_ID:
+        return request(HttpMethod.GET, "/vehicles/" + id, null);
+      case LIST_FILTERED:
+        return request(
+            HttpMethod.GET,
+            String.format(
+                "/vehicles?make=%s&year=%d&limit=100",
+                fleetGenerator.randomMake(), fleetGenerator.nextYear()),
+            null);
+      case FACETS:
+        return request(
+            HttpMethod.GET, "/vehicles/facets?make=" + fleetGenerator.randomMake(), null);
+      case CREATE:
+        return request(HttpMethod.POST, "/vehicles", fleetGenerator.next());
+      case UPDATE:
+        Vehicle vehicle = fleetGenerator.next();
+        vehicle.setId(id);
+        return request(HttpMethod.PUT, "/vehicles", vehicle);
+      default:
+        return Mono.error(new IllegalArgumentException(operation.name()));
+    }
+  }
+
+  private Mono<Integer> request(HttpMethod method, String uri, Vehicle body) {
+    WebClient.RequestBodySpec request = webClient.method(method).uri(uri);
+    WebClient.RequestHeadersSpec<?> spec =
+        body == null
+            ? request
+            : request.contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+    // release the body so the connection goes back to the pool for this client's next request
+    return spec.exchange()
+        .flatMap(response -> response.releaseBody().thenReturn(response.rawStatusCode()));
+  }
+}
@@ -0,0 +1,129 @@
+package mitchell.vehicleProject.loadtest;
+
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.dictionary.VehicleDictionary.Kind;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic fleet with a skewed make distribution, a few popular models per make and model years
+ * clustered around the last decade, roughly what a dealer inventory looks like.
+ */
+@Log4j2
+public class FleetGenerator {
+
+  private static final String[] MAKES = {
+    "toyota", "ford", "honda", "chevrolet", "nissan", "jeep", "hyundai", "kia", "subaru", "BMW",
+    "mercedes-benz", "volkswagen", "mazda", "tesla", "audi", "lexus", "volvo", "porsche"
+  };
+
+  private static final String[][] MODELS = {
+    {"camry", "corolla", "rav4", "tacoma", "highlander", "prius", "4runner", "sienna"},
+    {"f-150", "escape", "explorer", "mustang", "focus", "edge", "ranger"},
+    {"civic", "accord", "cr-v", "pilot", "odyssey", "hr-v", "fit"},
+    {"silverado", "equinox", "malibu", "tahoe", "traverse", "camaro"},
+    {"altima", "rogue", "sentra", "pathfinder", "leaf"},
+    {"wrangler", "grand cherokee", "cherokee", "compass"},
+    {"elantra", "tucson", "santa fe", "sonata", "kona"},
+    {"sorento", "sportage", "soul", "telluride", "forte"},
+    {"outback", "forester", "crosstrek", "impreza"},
+    {"3 series", "5 series", "x3", "x5", "i8"},
+    {"c-class", "e-class", "glc", "gle"},
+    {"jetta", "golf", "tiguan", "atlas", "passat"},
+    {"cx-5", "mazda3", "cx-9", "mx-5"},
+    {"model 3", "model Y", "model S", "model X"},
+    {"a4", "q5", "q7", "a6"},
+    {"rx", "es", "nx", "is"},
+    {"xc90", "xc60", "s60"},
+    {"911", "cayenne", "macan", "taycan"}
+  };
+
+  private static final int SEED_BATCH = 10_000;
+
+  private final Random random;
+
+  private final double[] makeWeights = new double[MAKES.length];
+
+  public FleetGenerator(long seed) {
+    this.random = new Random(seed);
+    // Zipf-like popularity: the most common make is ~1/rank more frequent than the rank-th one
+    double total = 0;
+    for (int rank = 0; rank < MAKES.length; rank++) {
+      total += 1d / (rank + 1);
+      makeWeights[rank] = total;
+    }
+    for (int rank = 0; rank < MAKES.length; rank++) {
+      makeWeights[rank] /= total;
+    }
+  }
+
+  public Vehicle next() {
+    int make = pickMake();
+    String[] models = MODELS[make];
+    // popular models first: squaring the uniform sample skews picks toward index 0
+    double skew = random.nextDouble();
+    Vehicle vehicle = new Vehicle();
+    vehicle.setMake(MAKES[make]);
+    vehicle.setModel(models[(int) (skew * skew * models.length)]);
+    vehicle.setYear(nextYear());
+    return vehicle;
+  }
+
+  public String randomMake() {
+    return MAKES[pickMake()];
+  }
+
+  public int nextYear() {
+    int year = (int) Math.round(2014 + random.nextGaussian() * 6);
+    return Math.max(1950, Math.min(2025, year));
+  }
+
+  private int pickMake() {
+    double sample = random.nextDouble();
+    for (int rank = 0; rank < makeWeights.length; rank++) {
+      if (sample <= makeWeights[rank]) {
+        return rank;
+      }
+    }
+    return makeWeights.length - 1;
+  }
+
+  /**
+   * Inserts {@code vehicles} rows with ids 1..vehicles through JDBC batches, then moves the id
+   * sequence past them so vehicles created during the run do not collide. Make and model go in as
+   * their dictionary keys, which {@code vehicleDictionary} adds as it meets them.
+   */
+  public void seed(JdbcTemplate jdbcTemplate, VehicleDictionary vehicleDictionary, int vehicles) {
+    long start = System.nanoTime();
+    List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+    for (int id = 1; id <= vehicles; id++) {
+      Vehicle vehicle = next();
+      batch.add(
+          new Object[] {
+            id,
+            vehicle.getYear(),
+            vehicleDictionary.idOf(Kind.MAKE, vehicle.getMake()),
+            vehicleDictionary.idOf(Kind.MODEL, vehicle.getModel())
+          });
+      if (batch.size() == SEED_BATCH || id == vehicles) {
+        jdbcTemplate.batchUpdate(
+            "insert into vehicle (id, year, make_id, model_id, version) values (?, ?, ?, ?, 0)",
+            batch);
+        batch.clear();
+      }
+      if (id % 1_000_000 == 0) {
+        log.info("Seeded {} of {} vehicles", id, vehicles);
+      }
+    }
+    // the id generator hands out a block of 50 below the value it reads, so skip a full block
+    jdbcTemplate.execute(
+        String.format("alter sequence vehicle_seq restart with %d", vehicles + 51));
+    log.info(
+        "Seeded {} vehicles in {} s", vehicles, (System.nanoTime() - start) / 1_000_000_000);
+  }
+}
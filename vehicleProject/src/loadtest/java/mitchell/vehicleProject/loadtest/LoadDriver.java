@@ -0,0 +1,172 @@
+package mitchell.vehicleProject.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop driver: requests are scheduled at a fixed rate regardless of how fast responses come
+ * back, and latency is measured from each request's intended start time rather than from when a
+ * worker got around to sending it. A stalled server therefore shows up as queueing delay in the
+ * histograms instead of silently lowering the offered load (coordinated omission).
+ */
+@Log4j2
+public class LoadDriver {
+
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+  private final LoadTestConfig config;
+
+  private final String baseUrl;
+
+  private final FleetGenerator fleetGenerator;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+
+  private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+  public LoadDriver(LoadTestConfig config, String baseUrl) {
+    this.config = config;
+    this.baseUrl = baseUrl;
+    this.fleetGenerator = new FleetGenerator(config.getSeed() + 1);
+    for (Operation operation : Operation.values()) {
+      recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+      errors.put(operation, new AtomicLong());
+    }
+  }
+
+  /** Runs the warmup, then the measured phase, and returns one histogram per operation. */
+  public Map<Operation, Histogram> run() throws InterruptedException {
+    log.info("Warming up for {} s at {} req/s", config.getWarmupSeconds(), config.getRate());
+    drive(config.getWarmupSeconds());
+    for (Operation operation : Operation.values()) {
+      recorders.get(operation).reset();
+      errors.get(operation).set(0);
+    }
+    log.info("Measuring for {} s at {} req/s", config.getDurationSeconds(), config.getRate());
+    drive(config.getDurationSeconds());
+
+    Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      histograms.put(operation, recorders.get(operation).getIntervalHistogram());
+    }
+    return histograms;
+  }
+
+  public long errors(Operation operation) {
+    return errors.get(operation).get();
+  }
+
+  private void drive(int seconds) throws InterruptedException {
+    ExecutorService workers = Executors.newFixedThreadPool(config.getConcurrency());
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+    long start = System.nanoTime();
+    long end = start + TimeUnit.SECONDS.toNanos(seconds);
+    for (long request = 0; ; request++) {
+      long intendedStart = start + request * intervalNanos;
+      if (intendedStart >= end) {
+        break;
+      }
+      long wait;
+      while ((wait = intendedStart - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      Operation operation = Operation.pick(config.getReadRatio());
+      workers.execute(() -> execute(operation, intendedStart));
+    }
+    workers.shutdown();
+    workers.awaitTermination(HIGHEST_TRACKABLE_NANOS, TimeUnit.NANOSECONDS);
+  }
+
+  private void execute(Operation operation, long intendedStart) {
+    int status;
+    try {
+      status = send(operation);
+    } catch (IOException | RuntimeException e) {
+      status = -1;
+    }
+    recorders
+        .get(operation)
+        .recordValue(Math.min(System.nanoTime() - intendedStart, HIGHEST_TRACKABLE_NANOS));
+    if (status < 200 || status >= 400) {
+      errors.get(operation).incrementAndGet();
+    }
+  }
+
+  private int send(Operation operation) throws IOException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int id = 1 + random.nextInt(Math.max(1, config.getFleet()));
+    switch (operation) {
+      case GET_BY_ID:
+        return request("GET", "/vehicles/" + id, null);
+      case LIST_FILTERED:
+        return request(
+            "GET",
+            String.format(
+                "/vehicles?make=%s&year=%d&limit=100",
+                encode(fleetGenerator.randomMake()), fleetGenerator.nextYear()),
+            null);
+      case FACETS:
+        return request("GET", "/vehicles/facets?make=" + encode(fleetGenerator.randomMake()), null);
+      case CREATE:
+        return request("POST", "/vehicles", objectMapper.writeValueAsBytes(fleetGenerator.next()));
+      case UPDATE:
+        Vehicle vehicle = fleetGenerator.next();
+        vehicle.setId(id);
+        return request("PUT", "/vehicles", objectMapper.writeValueAsBytes(vehicle));
+      default:
+        throw new IllegalArgumentException(operation.name());
+    }
+  }
+
+  private static String encode(String value) throws IOException {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+  }
+
+  private int request(String method, String path, byte[] body) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    connection.setRequestMethod(method);
+    connection.setConnectTimeout(5_000);
+    connection.setReadTimeout(60_000);
+    if (body != null) {
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Content-Type", "application/json");
+      try (OutputStream outputStream = connection.getOutputStream()) {
+        outputStream.write(body);
+      }
+    }
+    int status = connection.getResponseCode();
+    // drain the body so the JDK can put the connection back into its keep-alive pool
+    InputStream inputStream =
+        status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+    if (inputStream != null) {
+      try (InputStream in = inputStream) {
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) != -1) {
+          // discard
+        }
+      }
+    }
+    return status;
+  }
+}
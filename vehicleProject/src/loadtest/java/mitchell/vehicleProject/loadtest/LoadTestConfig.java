@@ -0,0 +1,73 @@
+package mitchell.vehicleProject.loadtest;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Load test settings, parsed from {@code --name=value} arguments. */
+@Data
+public class LoadTestConfig {
+
+  /** Free-form build label copied into the report, e.g. a git sha. */
+  private String label = "local";
+
+  /** Base URL of a running service; when unset the service is started in-process and seeded. */
+  private String target;
+
+  private int fleet = 100_000;
+
+  /** Serving stack of the in-process service: {@code mvc} or {@code reactive}. */
+  private String mode = "mvc";
+
+  private boolean bitmapIndex;
+
+  private int rate = 500;
+
+  private int durationSeconds = 60;
+
+  private int warmupSeconds = 10;
+
+  private double readRatio = 0.9;
+
+  private int concurrency = 64;
+
+  /** Open connections held by {@link ModeComparisonMain}, each a closed request loop. */
+  private int connections = 10_000;
+
+  private long seed = 42;
+
+  private String report = "target/loadtest/report.json";
+
+  public static LoadTestConfig parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value but got " + arg);
+      }
+      int separator = arg.indexOf('=');
+      values.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    LoadTestConfig config = new LoadTestConfig();
+    config.setLabel(values.getOrDefault("label", config.getLabel()));
+    config.setTarget(values.getOrDefault("target", config.getTarget()));
+    config.setFleet(Integer.parseInt(values.getOrDefault("fleet", "" + config.getFleet())));
+    config.setMode(values.getOrDefault("mode", config.getMode()));
+    config.setBitmapIndex(
+        Boolean.parseBoolean(values.getOrDefault("bitmap-index", "" + config.isBitmapIndex())));
+    config.setRate(Integer.parseInt(values.getOrDefault("rate", "" + config.getRate())));
+    config.setDurationSeconds(
+        Integer.parseInt(values.getOrDefault("duration", "" + config.getDurationSeconds())));
+    config.setWarmupSeconds(
+        Integer.parseInt(values.getOrDefault("warmup", "" + config.getWarmupSeconds())));
+    config.setReadRatio(
+        Double.parseDouble(values.getOrDefault("read-ratio", "" + config.getReadRatio())));
+    config.setConcurrency(
+        Integer.parseInt(values.getOrDefault("concurrency", "" + config.getConcurrency())));
+    config.setConnections(
+        Integer.parseInt(values.getOrDefault("connections", "" + config.getConnections())));
+    config.setSeed(Long.parseLong(values.getOrDefault("seed", "" + config.getSeed())));
+    config.setReport(values.getOrDefault("report", config.getReport()));
+    return config;
+  }
+}
@@ -0,0 +1,105 @@
+package mitchell.vehicleProject.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.VehicleProjectApplication;
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Seeds a synthetic fleet, drives the REST API at a fixed request rate and writes a JSON report
+ * that can be diffed between builds. Without {@code --target} the service is started in-process
+ * and the fleet is inserted before the in-memory indexes build at startup.
+ */
+@Log4j2
+public class LoadTestMain {
+
+  public static void main(String[] args) throws Exception {
+    LoadTestConfig config = LoadTestConfig.parse(args);
+    ConfigurableApplicationContext context = null;
+    String target = config.getTarget();
+    if (target == null) {
+      context = start(config, config.getMode());
+      target = baseUrl(context);
+    }
+
+    try {
+      LoadDriver driver = new LoadDriver(config, target);
+      Map<Operation, Histogram> histograms = driver.run();
+      LoadTestReport report = LoadTestReport.of(config, target, histograms, driver::errors);
+
+      File reportFile = new File(config.getReport());
+      reportFile.getAbsoluteFile().getParentFile().mkdirs();
+      new ObjectMapper()
+          .enable(SerializationFeature.INDENT_OUTPUT)
+          .writeValue(reportFile, report);
+      log.info(
+          "{} requests, {} errors, {} req/s, p99 {} us, p99.99 {} us; report written to {}",
+          report.getRequests(),
+          report.getErrors(),
+          report.getThroughput(),
+          report.getOverall().getPercentileMicros().get("p99.0"),
+          report.getOverall().getPercentileMicros().get("p99.99"),
+          reportFile.getAbsolutePath());
+    } finally {
+      if (context != null) {
+        context.close();
+      }
+    }
+  }
+
+  /**
+   * Starts the service in-process on a random port with the given serving stack and seeds the
+   * fleet. Tomcat may accept as many connections as the run will open, so the servlet mode is
+   * limited by its worker threads rather than by the acceptor.
+   */
+  static ConfigurableApplicationContext start(LoadTestConfig config, String mode) {
+    SpringApplicationBuilder builder =
+        new SpringApplicationBuilder(VehicleProjectApplication.class)
+            .listeners(new FleetSeeder(config))
+            .properties(
+                "server.port=0",
+                "server.tomcat.max-connections=" + Math.max(8192, config.getConnections()),
+                "vehicle.index.enabled=" + config.isBitmapIndex());
+    if ("reactive".equals(mode)) {
+      builder.profiles("reactive");
+    } else if (!"mvc".equals(mode)) {
+      throw new IllegalArgumentException("Expected mode mvc or reactive but got " + mode);
+    }
+    return builder.run();
+  }
+
+  static String baseUrl(ConfigurableApplicationContext context) {
+    return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+  }
+
+  /** Inserts the fleet after the schema exists but before ApplicationReadyEvent rebuilds. */
+  private static class FleetSeeder implements ApplicationListener<ApplicationStartedEvent> {
+
+    private final LoadTestConfig config;
+
+    FleetSeeder(LoadTestConfig config) {
+      this.config = config;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+      ApplicationContext context = event.getApplicationContext();
+      new FleetGenerator(config.getSeed())
+          .seed(
+              context.getBean(JdbcTemplate.class),
+              context.getBean(VehicleDictionary.class),
+              config.getFleet());
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package mitchell.vehicleProject.loadtest;
+
+import lombok.Data;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/** Machine-readable run summary; latencies in microseconds, measured from intended start. */
+@Data
+public class LoadTestReport {
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+  private LoadTestConfig config;
+
+  private String target;
+
+  private double offeredRate;
+
+  private double throughput;
+
+  private long requests;
+
+  private long errors;
+
+  private Map<String, OperationResult> operations = new LinkedHashMap<>();
+
+  private OperationResult overall;
+
+  @Data
+  public static class OperationResult {
+
+    private long count;
+
+    private long errors;
+
+    private double throughput;
+
+    private double meanMicros;
+
+    private double maxMicros;
+
+    private Map<String, Double> percentileMicros = new LinkedHashMap<>();
+
+    static OperationResult of(Histogram histogram, long errors, int durationSeconds) {
+      OperationResult result = new OperationResult();
+      result.setCount(histogram.getTotalCount());
+      result.setErrors(errors);
+      result.setThroughput((double) histogram.getTotalCount() / durationSeconds);
+      result.setMeanMicros(histogram.getMean() / 1_000);
+      result.setMaxMicros(histogram.getMaxValue() / 1_000d);
+      for (double percentile : PERCENTILES) {
+        result
+            .getPercentileMicros()
+            .put("p" + percentile, histogram.getValueAtPercentile(percentile) / 1_000d);
+      }
+      return result;
+    }
+  }
+
+  public static LoadTestReport of(
+      LoadTestConfig config,
+      String target,
+      Map<Operation, Histogram> histograms,
+      ToLongFunction<Operation> errorCounts) {
+    LoadTestReport report = new LoadTestReport();
+    report.setConfig(config);
+    report.setTarget(target);
+    report.setOfferedRate(config.getRate());
+    Histogram overall = new Histogram(3);
+    long errors = 0;
+    for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+      long operationErrors = errorCounts.applyAsLong(entry.getKey());
+      report
+          .getOperations()
+          .put(
+              entry.getKey().name(),
+              OperationResult.of(entry.getValue(), operationErrors, config.getDurationSeconds()));
+      overall.add(entry.getValue());
+      errors += operationErrors;
+    }
+    report.setOverall(OperationResult.of(overall, errors, config.getDurationSeconds()));
+    report.setRequests(overall.getTotalCount());
+    report.setErrors(errors);
+    report.setThroughput((double) overall.getTotalCount() / config.getDurationSeconds());
+    return report;
+  }
+}
@@ -0,0 +1,62 @@
+package mitchell.vehicleProject.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.loadtest.ModeComparisonReport.ModeResult;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Runs the same closed-loop connection test against the servlet ({@code mvc}) and the reactive
+ * serving mode, each in a freshly started and seeded service, and writes both results into one
+ * report. Defaults to 10k connections; client and server share the process, so the open file
+ * limit must allow two sockets per connection ({@code ulimit -n 65536}).
+ */
+@Log4j2
+public class ModeComparisonMain {
+
+  private static final String[] MODES = {"mvc", "reactive"};
+
+  public static void main(String[] args) throws Exception {
+    LoadTestConfig config = LoadTestConfig.parse(args);
+    if (config.getReport().equals(new LoadTestConfig().getReport())) {
+      config.setReport("target/loadtest/mode-comparison.json");
+    }
+    ModeComparisonReport comparison = new ModeComparisonReport();
+    comparison.setConfig(config);
+
+    for (String mode : MODES) {
+      ConfigurableApplicationContext context = LoadTestMain.start(config, mode);
+      try {
+        String target = LoadTestMain.baseUrl(context);
+        ConnectionScaleDriver driver = new ConnectionScaleDriver(config, target);
+        Map<Operation, Histogram> histograms = driver.run();
+        LoadTestReport report = LoadTestReport.of(config, target, histograms, driver::errors);
+        ModeResult result = ModeResult.of(report, driver);
+        comparison.getModes().put(mode, result);
+        log.info(
+            "{}: {} connections, peak {} in flight, {} req/s, {} errors, p50 {} us, p99 {} us",
+            mode,
+            result.getConnectionsOpened(),
+            result.getPeakInFlight(),
+            result.getThroughput(),
+            result.getErrors(),
+            result.getOverall().getPercentileMicros().get("p50.0"),
+            result.getOverall().getPercentileMicros().get("p99.0"));
+      } finally {
+        context.close();
+      }
+    }
+
+    File reportFile = new File(config.getReport());
+    reportFile.getAbsoluteFile().getParentFile().mkdirs();
+    new ObjectMapper()
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .writeValue(reportFile, comparison);
+    log.info("Mode comparison written to {}", reportFile.getAbsolutePath());
+  }
+}
@@ -0,0 +1,51 @@
+package mitchell.vehicleProject.loadtest;
+
+import lombok.Data;
+import mitchell.vehicleProject.loadtest.LoadTestReport.OperationResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Side-by-side result of {@link ModeComparisonMain}: one entry per serving mode, all driven by the
+ * same number of closed-loop connections. Latencies in microseconds from send to last byte.
+ */
+@Data
+public class ModeComparisonReport {
+
+  private LoadTestConfig config;
+
+  private Map<String, ModeResult> modes = new LinkedHashMap<>();
+
+  @Data
+  public static class ModeResult {
+
+    /** Connections the client managed to open; short of the target means the server refused. */
+    private int connectionsOpened;
+
+    /** Most requests outstanding at once during the measured phase. */
+    private int peakInFlight;
+
+    private long requests;
+
+    private long errors;
+
+    private double throughput;
+
+    private Map<String, OperationResult> operations = new LinkedHashMap<>();
+
+    private OperationResult overall;
+
+    static ModeResult of(LoadTestReport report, ConnectionScaleDriver driver) {
+      ModeResult result = new ModeResult();
+      result.setConnectionsOpened(driver.getConnectionsOpened());
+      result.setPeakInFlight(driver.getPeakInFlight());
+      result.setRequests(report.getRequests());
+      result.setErrors(report.getErrors());
+      result.setThroughput(report.getThroughput());
+      result.setOperations(report.getOperations());
+      result.setOverall(report.getOverall());
+      return result;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package mitchell.vehicleProject.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public enum Operation {
+  GET_BY_ID,
+  LIST_FILTERED,
+  FACETS,
+  CREATE,
+  UPDATE;
+
+  /** Draws the next operation of the mix: reads by id, filtered pages and facets, then writes. */
+  static Operation pick(double readRatio) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (random.nextDouble() < readRatio) {
+      double read = random.nextDouble();
+      if (read < 0.7) {
+        return GET_BY_ID;
+      }
+      return read < 0.95 ? LIST_FILTERED : FACETS;
+    }
+    return random.nextDouble() < 0.8 ? CREATE : UPDATE;
+  }
+}
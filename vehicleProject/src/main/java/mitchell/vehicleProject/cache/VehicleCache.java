@@ -0,0 +1,129 @@
+package mitchell.vehicleProject.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Read-through cache in front of {@code findById}. Size-bounded with W-TinyLFU eviction; present
+ * vehicles live for {@code ttl}, misses are cached as empty for the shorter {@code negative-ttl}.
+ * Concurrent loads of the same id wait for a single query.
+ *
+ * <p>Every invalidation bumps a generation for its id's stripe first. A load that sees the
+ * generation move while it ran may have read the row from before the change, so it takes its own
+ * entry back out; it can only drop a fresh entry, never keep a stale one.
+ */
+@Component
+public class VehicleCache implements MeterBinder {
+
+  private static final int GENERATION_STRIPES = 64;
+
+  private final Cache<Integer, Optional<Vehicle>> cache;
+
+  private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+  public VehicleCache(
+      @Value("${vehicle.cache.maximum-size}") long maximumSize,
+      @Value("${vehicle.cache.ttl}") Duration ttl,
+      @Value("${vehicle.cache.negative-ttl}") Duration negativeTtl) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new PresenceExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+            .recordStats()
+            .build();
+  }
+
+  public Optional<Vehicle> get(Integer id, Function<Integer, Optional<Vehicle>> loader) {
+    int stripe = stripe(id);
+    long generation = generations.get(stripe);
+    Optional<Vehicle> vehicle = cache.get(id, loader);
+    if (generations.get(stripe) != generation) {
+      cache.asMap().remove(id, vehicle);
+    }
+    return vehicle;
+  }
+
+  /** The cached vehicle without loading on a miss; empty also when the id is cached as absent. */
+  public Optional<Vehicle> getIfPresent(Integer id) {
+    Optional<Vehicle> vehicle = cache.getIfPresent(id);
+    return vehicle == null ? Optional.empty() : vehicle;
+  }
+
+  public void invalidate(Integer id) {
+    generations.incrementAndGet(stripe(id));
+    cache.invalidate(id);
+  }
+
+  private static int stripe(Integer id) {
+    return Math.floorMod(id.hashCode(), GENERATION_STRIPES);
+  }
+
+  @EventListener
+  public void onVehicleChange(VehicleChangeEvent event) {
+    invalidate(event.getId());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, cache, "vehicles");
+  }
+
+  public Map<String, Object> statistics() {
+    CacheStats stats = cache.stats();
+    Map<String, Object> statistics = new LinkedHashMap<>();
+    statistics.put("size", cache.estimatedSize());
+    statistics.put("hitCount", stats.hitCount());
+    statistics.put("missCount", stats.missCount());
+    statistics.put("hitRate", stats.hitRate());
+    statistics.put("loadCount", stats.loadCount());
+    statistics.put("evictionCount", stats.evictionCount());
+    statistics.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+    return statistics;
+  }
+
+  private static class PresenceExpiry implements Expiry<Integer, Optional<Vehicle>> {
+
+    private final long ttlNanos;
+
+    private final long negativeTtlNanos;
+
+    PresenceExpiry(long ttlNanos, long negativeTtlNanos) {
+      this.ttlNanos = ttlNanos;
+      this.negativeTtlNanos = negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterCreate(Integer id, Optional<Vehicle> vehicle, long currentTime) {
+      return vehicle.isPresent() ? ttlNanos : negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        Integer id, Optional<Vehicle> vehicle, long currentTime, long currentDuration) {
+      return expireAfterCreate(id, vehicle, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        Integer id, Optional<Vehicle> vehicle, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package mitchell.vehicleProject.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.format.VehicleFormat;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Serialized bodies of filtered {@code GET /vehicles} responses, keyed on the case-folded
+ * (year, make, model) filter and the negotiated format, bounded by total bytes. Identical
+ * concurrent misses share one query and one serialization.
+ *
+ * <p>A change only drops the entries it can affect: those whose filter the new row matches and
+ * those whose body already holds the id, which each entry keeps as a bitmap. A load still running
+ * when a change arrives cannot be checked against its ids yet, so it is not stored unless the
+ * change was a create it cannot match; its waiters still get the body. Invalidation runs before
+ * {@link mitchell.vehicleProject.event.VehicleChangeCounter} bumps the list ETag, so a request
+ * that sees the new tag never gets an old body.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "vehicle.list-cache.enabled", havingValue = "true")
+public class VehicleListCache implements MeterBinder {
+
+  private static final Type VEHICLE_LIST_TYPE =
+      new ParameterizedTypeReference<List<Vehicle>>() {}.getType();
+
+  private final Cache<Key, Entry> cache;
+
+  private final Map<Key, Flight> inFlight = new ConcurrentHashMap<>();
+
+  private final Map<VehicleFormat, GenericHttpMessageConverter<Object>> converters =
+      new EnumMap<>(VehicleFormat.class);
+
+  public VehicleListCache(
+      HttpMessageConverters httpMessageConverters,
+      @Value("${vehicle.list-cache.maximum-size}") DataSize maximumSize,
+      @Value("${vehicle.list-cache.ttl}") Duration ttl) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maximumSize.toBytes())
+            .weigher(
+                (Key key, Entry entry) -> entry.getBody().length + entry.getIds().getSizeInBytes())
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+    for (VehicleFormat format : VehicleFormat.values()) {
+      converters.put(format, converterFor(httpMessageConverters, format));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static GenericHttpMessageConverter<Object> converterFor(
+      HttpMessageConverters httpMessageConverters, VehicleFormat format) {
+    for (HttpMessageConverter<?> converter : httpMessageConverters.getConverters()) {
+      if (converter instanceof GenericHttpMessageConverter
+          && ((GenericHttpMessageConverter<?>) converter)
+              .canWrite(VEHICLE_LIST_TYPE, List.class, format.getMediaType())) {
+        return (GenericHttpMessageConverter<Object>) converter;
+      }
+    }
+    throw new IllegalStateException("No converter writes vehicle lists as " + format);
+  }
+
+  /** Whether the filter's lists are cached: unfiltered ones are the whole table and never are. */
+  public static boolean caches(Integer year, String make, String model) {
+    return Objects.nonNull(year) || Objects.nonNull(make) || Objects.nonNull(model);
+  }
+
+  /**
+   * The {@code format} body for the filter, from the cache or from {@code loader}. Only for
+   * filters it {@link #caches}; unfiltered lists go straight to the converter, which streams them.
+   */
+  public byte[] get(
+      Integer year,
+      String make,
+      String model,
+      VehicleFormat format,
+      Supplier<List<Vehicle>> loader) {
+    if (!caches(year, make, model)) {
+      throw new IllegalArgumentException("Unfiltered vehicle lists are not cached");
+    }
+    Key key = Key.of(year, make, model, format);
+    Entry entry = cache.getIfPresent(key);
+    if (Objects.nonNull(entry)) {
+      return entry.getBody();
+    }
+    Flight flight = new Flight();
+    Flight running = inFlight.putIfAbsent(key, flight);
+    if (Objects.nonNull(running)) {
+      return running.await();
+    }
+    try {
+      List<Vehicle> vehicles = loader.get();
+      byte[] body = serialize(vehicles, format);
+      RoaringBitmap ids = new RoaringBitmap();
+      for (Vehicle vehicle : vehicles) {
+        ids.add(vehicle.getId());
+      }
+      ids.runOptimize();
+      flight.land(key, new Entry(body, ids));
+      return body;
+    } catch (Throwable e) {
+      // an Error too: whoever joined this load must not wait on it forever
+      flight.result.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onVehicleChange(VehicleChangeEvent event) {
+    Vehicle vehicle = event.getVehicle();
+    boolean created = event.getType() == VehicleChangeEvent.Type.CREATED;
+    // in-flight loads first: one that lands after this is either tainted or already visible below
+    for (Map.Entry<Key, Flight> flight : inFlight.entrySet()) {
+      // after an update or delete the rows the vehicle used to match are unknown here
+      if (!created || flight.getKey().matches(vehicle)) {
+        flight.getValue().taint();
+        inFlight.remove(flight.getKey(), flight.getValue());
+      }
+    }
+    Integer id = event.getId();
+    cache
+        .asMap()
+        .entrySet()
+        .removeIf(
+            entry -> entry.getKey().matches(vehicle) || entry.getValue().getIds().contains(id));
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, cache, "vehicleLists");
+  }
+
+  private byte[] serialize(List<Vehicle> vehicles, VehicleFormat format) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+    HttpHeaders headers = new HttpHeaders();
+    HttpOutputMessage message =
+        new HttpOutputMessage() {
+          @Override
+          public OutputStream getBody() {
+            return buffer;
+          }
+
+          @Override
+          public HttpHeaders getHeaders() {
+            return headers;
+          }
+        };
+    try {
+      converters.get(format).write(vehicles, VEHICLE_LIST_TYPE, format.getMediaType(), message);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return buffer.toByteArray();
+  }
+
+  @lombok.Value
+  private static class Key {
+
+    Integer year;
+
+    String make;
+
+    String model;
+
+    VehicleFormat format;
+
+    static Key of(Integer year, String make, String model, VehicleFormat format) {
+      return new Key(
+          year,
+          Objects.isNull(make) ? null : VehicleDictionary.normalize(make),
+          Objects.isNull(model) ? null : VehicleDictionary.normalize(model),
+          format);
+    }
+
+    boolean matches(Vehicle vehicle) {
+      return Objects.nonNull(vehicle)
+          && (Objects.isNull(year) || year.equals(vehicle.getYear()))
+          && (Objects.isNull(make) || make.equalsIgnoreCase(vehicle.getMake()))
+          && (Objects.isNull(model) || model.equalsIgnoreCase(vehicle.getModel()));
+    }
+  }
+
+  @lombok.Value
+  private static class Entry {
+
+    byte[] body;
+
+    RoaringBitmap ids;
+  }
+
+  /** One running load; {@code landed} and {@code tainted} are guarded by its monitor. */
+  private class Flight {
+
+    private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+    private boolean landed;
+
+    private boolean tainted;
+
+    synchronized void taint() {
+      if (!landed) {
+        tainted = true;
+      }
+    }
+
+    void land(Key key, Entry entry) {
+      synchronized (this) {
+        if (!tainted) {
+          cache.put(key, entry);
+        }
+        landed = true;
+      }
+      result.complete(entry.getBody());
+    }
+
+    byte[] await() {
+      try {
+        return result.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw e;
+      }
+    }
+  }
+}
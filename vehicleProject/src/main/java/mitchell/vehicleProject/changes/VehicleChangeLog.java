@@ -0,0 +1,96 @@
+package mitchell.vehicleProject.changes;
+
+import mitchell.vehicleProject.dto.VehicleChange;
+import mitchell.vehicleProject.dto.VehicleChangeBatch;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.exceptions.GoneException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Append-only, sequence-numbered log of every create, update and delete made through {@link
+ * mitchell.vehicleProject.service.VehicleService}, so mirrors can ask for "everything after N"
+ * instead of re-reading the table. Entries live in a fixed ring of {@code retention} slots: memory
+ * is bounded and the oldest entries are overwritten. A reader whose position has been overwritten,
+ * or who comes from an earlier {@code epoch} (the log starts empty on every restart), gets a
+ * {@link GoneException} and has to resynchronize from a full export.
+ */
+@Component
+public class VehicleChangeLog {
+
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+  private final VehicleChange[] ring;
+
+  /** Guarded by {@code this}. */
+  private long lastSequence;
+
+  public VehicleChangeLog(@Value("${vehicle.changes.retention}") int retention) {
+    this.ring = new VehicleChange[retention];
+  }
+
+  @EventListener
+  public void onVehicleChange(VehicleChangeEvent event) {
+    // a copy, so the ring never pins entities or sees them change after the event
+    VehicleChange change = new VehicleChange();
+    change.setType(event.getType());
+    change.setId(event.getId());
+    Vehicle vehicle = event.getVehicle();
+    if (Objects.nonNull(vehicle)) {
+      change.setVersion(vehicle.getVersion());
+      change.setYear(vehicle.getYear());
+      change.setMake(vehicle.getMake());
+      change.setModel(vehicle.getModel());
+    }
+    synchronized (this) {
+      long sequence = ++lastSequence;
+      change.setSequence(sequence);
+      ring[(int) (sequence % ring.length)] = change;
+      notifyAll();
+    }
+  }
+
+  public String getEpoch() {
+    return epoch;
+  }
+
+  public synchronized long getLastSequence() {
+    return lastSequence;
+  }
+
+  /** Up to {@code limit} changes after {@code since}, oldest first. */
+  public synchronized VehicleChangeBatch read(long since, int limit) {
+    long oldestRetained = Math.max(1, lastSequence - ring.length + 1);
+    if (since > lastSequence || since + 1 < oldestRetained) {
+      throw new GoneException(
+          String.format(
+              "Changes after %d are no longer available (retained: %d to %d, epoch %s);"
+                  + " resynchronize from /vehicles/export",
+              since, oldestRetained, lastSequence, epoch));
+    }
+    long last = Math.min(lastSequence, since + limit);
+    List<VehicleChange> changes = new ArrayList<>((int) (last - since));
+    for (long sequence = since + 1; sequence <= last; sequence++) {
+      changes.add(ring[(int) (sequence % ring.length)]);
+    }
+    return new VehicleChangeBatch(epoch, changes, last, last < lastSequence);
+  }
+
+  /** Waits up to {@code timeoutMillis} for a change after {@code since}; true if one exists. */
+  public synchronized boolean awaitAfter(long since, long timeoutMillis)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    long remaining = timeoutMillis;
+    while (lastSequence <= since && remaining > 0) {
+      wait(remaining);
+      remaining = deadline - System.currentTimeMillis();
+    }
+    return lastSequence > since;
+  }
+}
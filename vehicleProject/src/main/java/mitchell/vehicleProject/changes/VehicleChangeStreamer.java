@@ -0,0 +1,155 @@
+package mitchell.vehicleProject.changes;
+
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.dto.VehicleChange;
+import mitchell.vehicleProject.dto.VehicleChangeBatch;
+import mitchell.vehicleProject.exceptions.GoneException;
+import mitchell.vehicleProject.exceptions.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events view of the {@link VehicleChangeLog}. Every subscriber is a reader with its
+ * own position in the log rather than a queue the writers push into: a slow consumer only falls
+ * behind and never blocks a write or buffers anything. If it falls further behind than the log's
+ * retention it receives a {@code reset} event and the stream ends. Event ids are {@code
+ * epoch:sequence}, so a reconnecting {@code EventSource} resumes from {@code Last-Event-ID}.
+ */
+@Component
+@Log4j2
+public class VehicleChangeStreamer {
+
+  @Autowired private VehicleChangeLog vehicleChangeLog;
+
+  @Value("${vehicle.changes.max-subscribers}")
+  private int maxSubscribers;
+
+  @Value("${vehicle.changes.heartbeat}")
+  private Duration heartbeat;
+
+  @Value("${vehicle.changes.page-size}")
+  private int pageSize;
+
+  private ThreadPoolExecutor subscriberPool;
+
+  @PostConstruct
+  public void start() {
+    subscriberPool =
+        new ThreadPoolExecutor(
+            0,
+            maxSubscribers,
+            60,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            new CustomizableThreadFactory("vehicle-changes-sse-"));
+  }
+
+  @PreDestroy
+  public void stop() {
+    subscriberPool.shutdownNow();
+  }
+
+  /**
+   * Streams changes after the position in {@code lastEventId} (a reconnect) or {@code since}; with
+   * neither, only changes made from now on.
+   */
+  public SseEmitter subscribe(Optional<String> lastEventId, Optional<Long> since) {
+    SseEmitter emitter = new SseEmitter(0L);
+    Subscription subscription = new Subscription(emitter);
+    emitter.onCompletion(subscription::close);
+    emitter.onTimeout(subscription::close);
+    emitter.onError(e -> subscription.close());
+    long start =
+        lastEventId
+            .map(this::sequenceOf)
+            .orElseGet(() -> since.orElseGet(vehicleChangeLog::getLastSequence));
+    try {
+      subscriberPool.execute(() -> subscription.run(start));
+    } catch (RejectedExecutionException e) {
+      throw new ServiceUnavailableException("Too many change stream subscribers, retry shortly");
+    }
+    return emitter;
+  }
+
+  /** Sequence from an {@code epoch:sequence} event id; -1 (always gone) for another epoch. */
+  private long sequenceOf(String eventId) {
+    int separator = eventId.indexOf(':');
+    if (separator < 0 || !eventId.substring(0, separator).equals(vehicleChangeLog.getEpoch())) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(eventId.substring(separator + 1));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private class Subscription {
+
+    private final SseEmitter emitter;
+
+    private volatile boolean closed;
+
+    Subscription(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    void close() {
+      closed = true;
+    }
+
+    void run(long start) {
+      long position = start;
+      try {
+        while (!closed) {
+          VehicleChangeBatch batch = vehicleChangeLog.read(position, pageSize);
+          for (VehicleChange change : batch.getChanges()) {
+            emitter.send(
+                SseEmitter.event()
+                    .id(batch.getEpoch() + ":" + change.getSequence())
+                    .name(change.getType().name().toLowerCase())
+                    .data(change, MediaType.APPLICATION_JSON));
+          }
+          position = batch.getLastSequence();
+          if (!batch.isHasMore()
+              && !vehicleChangeLog.awaitAfter(position, heartbeat.toMillis())) {
+            // idle: a comment keeps proxies from timing out and detects gone clients
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+          }
+        }
+      } catch (GoneException e) {
+        sendReset(e.getMessage());
+      } catch (IOException | IllegalStateException e) {
+        // client went away, or the emitter was already completed
+        log.debug("Change stream subscriber disconnected: {}", e.getMessage());
+        emitter.completeWithError(e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        emitter.complete();
+      }
+    }
+
+    private void sendReset(String message) {
+      try {
+        emitter.send(SseEmitter.event().name("reset").data(message, MediaType.TEXT_PLAIN));
+        emitter.complete();
+      } catch (IOException | IllegalStateException e) {
+        emitter.completeWithError(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package mitchell.vehicleProject.controller;
+
+import mitchell.vehicleProject.dto.ImportRequest;
+import mitchell.vehicleProject.importer.ImportJob;
+import mitchell.vehicleProject.importer.VehicleImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+
+@RestController
+@Profile("!reactive")
+public class ImportController {
+
+  @Autowired
+  private VehicleImportService vehicleImportService;
+
+  @PostMapping(
+      value = "/imports",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<ImportJob> startImport(@RequestBody ImportRequest request)
+      throws IOException {
+    ImportJob job =
+        vehicleImportService.startImport(
+            request.getFile(), request.getFormat(), request.isResume());
+    HttpHeaders headers = new HttpHeaders();
+    headers.setLocation(URI.create("/imports/" + job.getId()));
+    return new ResponseEntity<>(job, headers, HttpStatus.ACCEPTED);
+  }
+
+  @GetMapping(value = "/imports/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<ImportJob> getImport(@PathVariable String id) {
+    return new ResponseEntity<>(vehicleImportService.getImport(id), HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/imports/{id}/rejects", produces = "application/x-ndjson")
+  public ResponseEntity<Resource> getRejects(@PathVariable String id) {
+    Optional<Path> rejects = vehicleImportService.getRejects(id);
+    if (!rejects.isPresent()) {
+      return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+    return new ResponseEntity<>(new FileSystemResource(rejects.get()), HttpStatus.OK);
+  }
+}
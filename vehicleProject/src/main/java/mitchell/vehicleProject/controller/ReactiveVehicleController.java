@@ -0,0 +1,194 @@
+package mitchell.vehicleProject.controller;
+
+import mitchell.vehicleProject.dto.VehicleFacetCounts;
+import mitchell.vehicleProject.dto.VehiclePage;
+import mitchell.vehicleProject.dto.VehicleSuggestion;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeCounter;
+import mitchell.vehicleProject.facet.VehicleFacets;
+import mitchell.vehicleProject.format.VehicleFormat;
+import mitchell.vehicleProject.reactive.ReactiveVehicleService;
+import mitchell.vehicleProject.service.VehicleService;
+import mitchell.vehicleProject.suggest.VehicleSuggestions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link VehicleController} on WebFlux for the {@code reactive} profile: the same paths, status
+ * codes, ETags and preconditions, with every database call non-blocking so a request holds no
+ * thread while it waits. Bulk create, lookup, export, import, the change feed and the binary
+ * formats are served by the servlet stack only.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveVehicleController {
+
+  private static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+  /** The only representation this mode serves. */
+  private static final VehicleFormat FORMAT = VehicleFormat.JSON;
+
+  @Autowired
+  private ReactiveVehicleService reactiveVehicleService;
+
+  @Autowired
+  private VehicleFacets vehicleFacets;
+
+  @Autowired
+  private VehicleSuggestions vehicleSuggestions;
+
+  @Autowired
+  private VehicleService vehicleService;
+
+  @Autowired
+  private VehicleChangeCounter vehicleChangeCounter;
+
+  @PostMapping(value = "/vehicles", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<String>> createVehicle(@RequestBody Vehicle vehicle) {
+    return reactiveVehicleService
+        .createVehicle(vehicle)
+        .map(created -> new ResponseEntity<>("vehicle created", HttpStatus.CREATED));
+  }
+
+  // no multi-get in this mode: reject ?id= rather than silently answer with every vehicle
+  @GetMapping(value = "/vehicles", params = "!id", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<List<Vehicle>>> getVehicles(
+      @RequestParam Optional<Integer> year,
+      @RequestParam Optional<String> make,
+      @RequestParam Optional<String> model,
+      ServerWebExchange exchange) {
+    // read before the query: a write racing with it leaves an older tag, never a newer one
+    String eTag = VehicleETags.list(vehicleChangeCounter.current(), FORMAT);
+    if (exchange.checkNotModified(eTag)) {
+      return Mono.just(VehicleETags.notModified(eTag));
+    }
+    return reactiveVehicleService
+        .getVehicles(year, make, model)
+        .map(vehicles -> new ResponseEntity<>(vehicles, VehicleETags.header(eTag), HttpStatus.OK));
+  }
+
+  @GetMapping(
+      value = "/vehicles",
+      params = {"limit", "!id"},
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<VehiclePage>> getVehiclePage(
+      @RequestParam Optional<Integer> year,
+      @RequestParam Optional<String> make,
+      @RequestParam Optional<String> model,
+      @RequestParam Optional<String> after,
+      @RequestParam int limit,
+      ServerWebExchange exchange) {
+    String eTag = VehicleETags.list(vehicleChangeCounter.current(), FORMAT);
+    if (exchange.checkNotModified(eTag)) {
+      return Mono.just(VehicleETags.notModified(eTag));
+    }
+    return reactiveVehicleService
+        .getVehiclePage(year, make, model, after, limit)
+        .map(page -> new ResponseEntity<>(page, VehicleETags.header(eTag), HttpStatus.OK));
+  }
+
+  @GetMapping(value = "/vehicles/facets", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<VehicleFacetCounts> getFacets(
+      @RequestParam Optional<Integer> year,
+      @RequestParam Optional<String> make,
+      @RequestParam Optional<String> model) {
+    // in-memory counters: cheap enough to answer on the event loop
+    VehicleFacetCounts facetCounts =
+        vehicleFacets.count(year.orElse(null), make.orElse(null), model.orElse(null));
+    return new ResponseEntity<>(facetCounts, HttpStatus.OK);
+  }
+
+  // in-memory like the facets
+  @GetMapping(value = "/vehicles/suggestions/makes", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<VehicleSuggestion>> suggestMakes(
+      @RequestParam(defaultValue = "") String prefix,
+      @RequestParam(defaultValue = "10") int limit) {
+    vehicleService.checkSuggestRequest(limit);
+    return new ResponseEntity<>(vehicleSuggestions.suggestMakes(prefix, limit), HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/vehicles/suggestions/models", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<VehicleSuggestion>> suggestModels(
+      @RequestParam(defaultValue = "") String prefix,
+      @RequestParam Optional<String> make,
+      @RequestParam(defaultValue = "10") int limit) {
+    vehicleService.checkSuggestRequest(limit);
+    List<VehicleSuggestion> suggestions =
+        vehicleSuggestions.suggestModels(prefix, make.orElse(null), limit);
+    return new ResponseEntity<>(suggestions, HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/vehicles/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<Vehicle>> getVehicle(
+      @PathVariable Integer id, ServerWebExchange exchange) {
+    Mono<ResponseEntity<Vehicle>> read =
+        Mono.defer(
+            () ->
+                reactiveVehicleService
+                    .getVehicle(id)
+                    .map(
+                        vehicle -> {
+                          String eTag = VehicleETags.vehicle(id, vehicle.getVersion(), FORMAT);
+                          return new ResponseEntity<>(
+                              vehicle, VehicleETags.header(eTag), HttpStatus.OK);
+                        }));
+    // the version lookup only pays off when there is a tag to compare it with
+    if (!exchange.getRequest().getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH)) {
+      return read;
+    }
+    return reactiveVehicleService
+        .getVehicleVersion(id)
+        .map(version -> VehicleETags.vehicle(id, version, FORMAT))
+        .filter(exchange::checkNotModified)
+        .map(VehicleETags::<Vehicle>notModified)
+        .switchIfEmpty(read);
+  }
+
+  @PutMapping(value = "/vehicles", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<String>> updateVehicle(
+      @RequestBody Vehicle vehicle,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return Mono.fromCallable(() -> VehicleETags.expectedVersion(vehicle.getId(), ifMatch))
+        .flatMap(expectedVersion -> reactiveVehicleService.updateVehicle(vehicle, expectedVersion))
+        .map(
+            updated -> {
+              String eTag = VehicleETags.vehicle(updated.getId(), updated.getVersion(), FORMAT);
+              return new ResponseEntity<>(
+                  "vehicle updated", VehicleETags.header(eTag), HttpStatus.OK);
+            });
+  }
+
+  @PatchMapping(
+      value = "/vehicles/{id}",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_MERGE_PATCH_JSON_VALUE},
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ResponseEntity<Vehicle>> patchVehicle(
+      @PathVariable Integer id,
+      @RequestBody Vehicle patch,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    return Mono.fromCallable(() -> VehicleETags.expectedVersion(id, ifMatch))
+        .flatMap(expectedVersion -> reactiveVehicleService.patchVehicle(id, patch, expectedVersion))
+        .map(
+            updated -> {
+              String eTag = VehicleETags.vehicle(id, updated.getVersion(), FORMAT);
+              return new ResponseEntity<>(updated, VehicleETags.header(eTag), HttpStatus.OK);
+            });
+  }
+
+  @DeleteMapping(value = "/vehicles/{id}")
+  public Mono<ResponseEntity<String>> deleteVehicle(@PathVariable Integer id) {
+    return reactiveVehicleService
+        .deleteVehicle(id)
+        .thenReturn(new ResponseEntity<>("vehicle deleted", HttpStatus.NO_CONTENT));
+  }
+}
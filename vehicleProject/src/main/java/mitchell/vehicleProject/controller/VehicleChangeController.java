@@ -0,0 +1,58 @@
+package mitchell.vehicleProject.controller;
+
+import mitchell.vehicleProject.changes.VehicleChangeLog;
+import mitchell.vehicleProject.changes.VehicleChangeStreamer;
+import mitchell.vehicleProject.dto.VehicleChangeBatch;
+import mitchell.vehicleProject.exceptions.BadRequestException;
+import mitchell.vehicleProject.exceptions.GoneException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+
+@RestController
+@Profile("!reactive")
+public class VehicleChangeController {
+
+  @Autowired
+  private VehicleChangeLog vehicleChangeLog;
+
+  @Autowired
+  private VehicleChangeStreamer vehicleChangeStreamer;
+
+  @Value("${vehicle.changes.page-size}")
+  private int maxLimit;
+
+  /** Changes after sequence {@code since}; 410 when they are no longer retained. */
+  @GetMapping(value = "/vehicles/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<VehicleChangeBatch> getChanges(
+      @RequestParam long since,
+      @RequestParam Optional<String> epoch,
+      @RequestParam Optional<Integer> limit) {
+    int batchLimit = limit.orElse(maxLimit);
+    if (batchLimit < 1 || batchLimit > maxLimit) {
+      throw new BadRequestException(String.format("Limit must be between 1 and %d", maxLimit));
+    }
+    if (epoch.isPresent() && !epoch.get().equals(vehicleChangeLog.getEpoch())) {
+      throw new GoneException(
+          String.format(
+              "Epoch %s has ended, the change log restarted as epoch %s;"
+                  + " resynchronize from /vehicles/export",
+              epoch.get(), vehicleChangeLog.getEpoch()));
+    }
+    return new ResponseEntity<>(vehicleChangeLog.read(since, batchLimit), HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/vehicles/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamChanges(
+      @RequestHeader(value = "Last-Event-ID", required = false) Optional<String> lastEventId,
+      @RequestParam Optional<Long> since) {
+    return vehicleChangeStreamer.subscribe(lastEventId, since);
+  }
+}
@@ -1,48 +1,313 @@
 package mitchell.vehicleProject.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import mitchell.vehicleProject.cache.VehicleCache;
+import mitchell.vehicleProject.cache.VehicleListCache;
+import mitchell.vehicleProject.dto.VehicleBulkResult;
+import mitchell.vehicleProject.dto.VehicleFacetCounts;
+import mitchell.vehicleProject.dto.VehicleLookupResult;
+import mitchell.vehicleProject.dto.VehiclePage;
+import mitchell.vehicleProject.dto.VehicleSuggestion;
 import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeCounter;
+import mitchell.vehicleProject.facet.VehicleFacets;
+import mitchell.vehicleProject.format.VehicleFormat;
 import mitchell.vehicleProject.service.VehicleService;
+import mitchell.vehicleProject.suggest.VehicleSuggestions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
+import static mitchell.vehicleProject.format.VehicleMediaTypes.APPLICATION_CBOR_VALUE;
+import static mitchell.vehicleProject.format.VehicleMediaTypes.APPLICATION_PROTOBUF_VALUE;
+import static mitchell.vehicleProject.format.VehicleMediaTypes.APPLICATION_SMILE_VALUE;
+
 @RestController
+@Profile("!reactive")
 public class VehicleController {
 
+  private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+  private static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
   @Autowired
   private VehicleService vehicleService;
 
-  @PostMapping(value = "/vehicles", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @Autowired
+  private VehicleCache vehicleCache;
+
+  @Autowired(required = false)
+  private VehicleListCache vehicleListCache;
+
+  @Autowired
+  private VehicleFacets vehicleFacets;
+
+  @Autowired
+  private VehicleSuggestions vehicleSuggestions;
+
+  @Autowired
+  private VehicleChangeCounter vehicleChangeCounter;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @PostMapping(
+      value = "/vehicles",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE,
+        APPLICATION_PROTOBUF_VALUE
+      })
   public ResponseEntity<String> createVehicle(@RequestBody Vehicle vehicle) {
     vehicleService.createVehicle(vehicle);
     return new ResponseEntity<>("vehicle created", HttpStatus.CREATED);
   }
 
-  @GetMapping(value = "/vehicles", produces = MediaType.APPLICATION_JSON_VALUE)
-  public ResponseEntity<List<Vehicle>> getVehicles(
-      @RequestParam Optional<Integer> id,
+  @PostMapping(
+      value = "/vehicles/bulk",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE,
+        APPLICATION_PROTOBUF_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE
+      })
+  public ResponseEntity<VehicleBulkResult> createVehicles(@RequestBody List<Vehicle> vehicles) {
+    VehicleBulkResult result = vehicleService.createVehicles(vehicles);
+    HttpStatus status = result.getErrors().isEmpty() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+    return new ResponseEntity<>(result, status);
+  }
+
+  @GetMapping(
+      value = "/vehicles",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE,
+        APPLICATION_PROTOBUF_VALUE
+      })
+  public ResponseEntity<?> getVehicles(
       @RequestParam Optional<Integer> year,
       @RequestParam Optional<String> make,
-      @RequestParam Optional<String> model) {
+      @RequestParam Optional<String> model,
+      WebRequest webRequest) {
+    VehicleFormat format = format(webRequest);
+    // read before the query: a write racing with it leaves an older tag, never a newer one
+    String eTag = VehicleETags.list(vehicleChangeCounter.current(), format);
+    if (webRequest.checkNotModified(eTag)) {
+      return VehicleETags.notModified(eTag);
+    }
+    if (Objects.nonNull(vehicleListCache)
+        && VehicleListCache.caches(year.orElse(null), make.orElse(null), model.orElse(null))) {
+      byte[] body =
+          vehicleListCache.get(
+              year.orElse(null),
+              make.orElse(null),
+              model.orElse(null),
+              format,
+              () -> vehicleService.getVehicles(year, make, model));
+      HttpHeaders headers = VehicleETags.header(eTag);
+      headers.setContentType(format.getMediaType());
+      return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
     List<Vehicle> vehicles = vehicleService.getVehicles(year, make, model);
-    return new ResponseEntity<>(vehicles, HttpStatus.OK);
+    return new ResponseEntity<>(vehicles, VehicleETags.header(eTag), HttpStatus.OK);
+  }
+
+  /** {@code ?id=1,2,3}: many vehicles in one request, in request order, missing ids listed. */
+  @GetMapping(
+      value = "/vehicles",
+      params = "id",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE
+      })
+  public ResponseEntity<VehicleLookupResult> getVehiclesById(
+      @RequestParam List<Integer> id, WebRequest webRequest) {
+    String eTag = VehicleETags.list(vehicleChangeCounter.current(), format(webRequest));
+    if (webRequest.checkNotModified(eTag)) {
+      return VehicleETags.notModified(eTag);
+    }
+    VehicleLookupResult result = vehicleService.getVehiclesById(id);
+    return new ResponseEntity<>(result, VehicleETags.header(eTag), HttpStatus.OK);
+  }
+
+  /** The same lookup with the ids in a JSON array body, for lists too long for a URL. */
+  @PostMapping(
+      value = "/vehicles/lookup",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE
+      })
+  public ResponseEntity<VehicleLookupResult> lookupVehicles(@RequestBody List<Integer> ids) {
+    return new ResponseEntity<>(vehicleService.getVehiclesById(ids), HttpStatus.OK);
+  }
+
+  @GetMapping(
+      value = "/vehicles",
+      params = {"limit", "!id"},
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE
+      })
+  public ResponseEntity<VehiclePage> getVehiclePage(
+      @RequestParam Optional<Integer> year,
+      @RequestParam Optional<String> make,
+      @RequestParam Optional<String> model,
+      @RequestParam Optional<String> after,
+      @RequestParam int limit,
+      WebRequest webRequest) {
+    String eTag = VehicleETags.list(vehicleChangeCounter.current(), format(webRequest));
+    if (webRequest.checkNotModified(eTag)) {
+      return VehicleETags.notModified(eTag);
+    }
+    VehiclePage page = vehicleService.getVehiclePage(year, make, model, after, limit);
+    return new ResponseEntity<>(page, VehicleETags.header(eTag), HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/vehicles/export", produces = APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportVehicles(
+      @RequestParam Optional<Integer> year,
+      @RequestParam Optional<String> make,
+      @RequestParam Optional<String> model) {
+    ObjectWriter writer =
+        objectMapper.writerFor(Vehicle.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    StreamingResponseBody body =
+        outputStream -> {
+          try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+            vehicleService.streamVehicles(
+                year,
+                make,
+                model,
+                vehicle -> {
+                  try {
+                    writer.writeValue(generator, vehicle);
+                    generator.writeRaw('\n');
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                });
+          }
+        };
+    return new ResponseEntity<>(body, HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/vehicles/facets", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<VehicleFacetCounts> getFacets(
+      @RequestParam Optional<Integer> year,
+      @RequestParam Optional<String> make,
+      @RequestParam Optional<String> model) {
+    VehicleFacetCounts facetCounts =
+        vehicleFacets.count(year.orElse(null), make.orElse(null), model.orElse(null));
+    return new ResponseEntity<>(facetCounts, HttpStatus.OK);
   }
 
-  @GetMapping(value = "/vehicles/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-  public ResponseEntity<Vehicle> getVehicle(@PathVariable Integer id) {
+  @GetMapping(value = "/vehicles/suggestions/makes", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<VehicleSuggestion>> suggestMakes(
+      @RequestParam(defaultValue = "") String prefix,
+      @RequestParam(defaultValue = "10") int limit) {
+    vehicleService.checkSuggestRequest(limit);
+    return new ResponseEntity<>(vehicleSuggestions.suggestMakes(prefix, limit), HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/vehicles/suggestions/models", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<VehicleSuggestion>> suggestModels(
+      @RequestParam(defaultValue = "") String prefix,
+      @RequestParam Optional<String> make,
+      @RequestParam(defaultValue = "10") int limit) {
+    vehicleService.checkSuggestRequest(limit);
+    List<VehicleSuggestion> suggestions =
+        vehicleSuggestions.suggestModels(prefix, make.orElse(null), limit);
+    return new ResponseEntity<>(suggestions, HttpStatus.OK);
+  }
+
+  @GetMapping(value = "/vehicles/cache-stats", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Map<String, Object>> getCacheStats() {
+    return new ResponseEntity<>(vehicleCache.statistics(), HttpStatus.OK);
+  }
+
+  @GetMapping(
+      value = "/vehicles/{id}",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE,
+        APPLICATION_PROTOBUF_VALUE
+      })
+  public ResponseEntity<Vehicle> getVehicle(@PathVariable Integer id, WebRequest webRequest) {
+    VehicleFormat format = format(webRequest);
+    // the version lookup only pays off when there is a tag to compare it with
+    Optional<Long> version =
+        Objects.isNull(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH))
+            ? Optional.empty()
+            : vehicleService.getVehicleVersion(id);
+    if (version.isPresent()) {
+      String eTag = VehicleETags.vehicle(id, version.get(), format);
+      if (webRequest.checkNotModified(eTag)) {
+        return VehicleETags.notModified(eTag);
+      }
+    }
     Vehicle vehicle = vehicleService.getVehicle(id);
-    return new ResponseEntity<>(vehicle, HttpStatus.OK);
+    String eTag = VehicleETags.vehicle(id, vehicle.getVersion(), format);
+    return new ResponseEntity<>(vehicle, VehicleETags.header(eTag), HttpStatus.OK);
+  }
+
+  @PutMapping(
+      value = "/vehicles",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE,
+        APPLICATION_PROTOBUF_VALUE
+      })
+  public ResponseEntity<String> updateVehicle(
+      @RequestBody Vehicle vehicle,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    Optional<Long> expectedVersion = VehicleETags.expectedVersion(vehicle.getId(), ifMatch);
+    Vehicle updated = vehicleService.updateVehicle(vehicle, expectedVersion);
+    // the response body is text; the tag is the JSON representation's, as a GET would return
+    String eTag = VehicleETags.vehicle(updated.getId(), updated.getVersion(), VehicleFormat.JSON);
+    return new ResponseEntity<>("vehicle updated", VehicleETags.header(eTag), HttpStatus.OK);
   }
 
-  @PutMapping(value = "/vehicles", consumes = MediaType.APPLICATION_JSON_VALUE)
-  public ResponseEntity<String> updateVehicle(@RequestBody Vehicle vehicle) {
-    vehicleService.updateVehicle(vehicle);
-    return new ResponseEntity<>("vehicle updated", HttpStatus.OK);
+  @PatchMapping(
+      value = "/vehicles/{id}",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_MERGE_PATCH_JSON_VALUE},
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE,
+        APPLICATION_PROTOBUF_VALUE
+      })
+  public ResponseEntity<Vehicle> patchVehicle(
+      @PathVariable Integer id,
+      @RequestBody Vehicle patch,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      WebRequest webRequest) {
+    Optional<Long> expectedVersion = VehicleETags.expectedVersion(id, ifMatch);
+    Vehicle updated = vehicleService.patchVehicle(id, patch, expectedVersion);
+    String eTag = VehicleETags.vehicle(id, updated.getVersion(), format(webRequest));
+    return new ResponseEntity<>(updated, VehicleETags.header(eTag), HttpStatus.OK);
   }
 
   @DeleteMapping(value = "/vehicles/{id}")
@@ -50,4 +315,8 @@ public class VehicleController {
     vehicleService.deleteVehicle(id);
     return new ResponseEntity<>("vehicle deleted", HttpStatus.NO_CONTENT);
   }
+
+  private static VehicleFormat format(WebRequest webRequest) {
+    return VehicleFormat.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT));
+  }
 }
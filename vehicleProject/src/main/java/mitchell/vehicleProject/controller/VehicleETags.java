@@ -0,0 +1,67 @@
+package mitchell.vehicleProject.controller;
+
+import mitchell.vehicleProject.exceptions.PreconditionFailedException;
+import mitchell.vehicleProject.format.VehicleFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Strong entity tags shared by the servlet and reactive controllers: {@code "<id>.<version>"} for
+ * one vehicle, the table change counter for lists. Binary representations of the same state get
+ * the format as a suffix ({@code "<id>.<version>+cbor"}), and every tagged response carries
+ * {@code Vary: Accept}, so a validator is never reused across encodings.
+ */
+final class VehicleETags {
+
+  private VehicleETags() {}
+
+  static String list(String changeCounter, VehicleFormat format) {
+    return "\"" + changeCounter + format.getTagSuffix() + "\"";
+  }
+
+  static String vehicle(Integer id, long version, VehicleFormat format) {
+    return "\"" + id + "." + version + format.getTagSuffix() + "\"";
+  }
+
+  static HttpHeaders header(String eTag) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(eTag);
+    headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT));
+    return headers;
+  }
+
+  static <T> ResponseEntity<T> notModified(String eTag) {
+    return new ResponseEntity<>(header(eTag), HttpStatus.NOT_MODIFIED);
+  }
+
+  /**
+   * The version named by an {@code If-Match} header carrying one of our vehicle ETags; empty when
+   * there is no precondition. A tag that cannot belong to this vehicle can never match; the tag of
+   * any representation names the same version.
+   */
+  static Optional<Long> expectedVersion(Integer id, String ifMatch) {
+    if (Objects.isNull(ifMatch) || ifMatch.trim().equals("*")) {
+      return Optional.empty();
+    }
+    String prefix = "\"" + id + ".";
+    for (String eTag : ifMatch.split(",")) {
+      String tag = eTag.trim();
+      if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+        String version = tag.substring(prefix.length(), tag.length() - 1);
+        int suffix = version.indexOf('+');
+        try {
+          return Optional.of(Long.valueOf(suffix < 0 ? version : version.substring(0, suffix)));
+        } catch (NumberFormatException e) {
+          // not one of ours; try the next one
+        }
+      }
+    }
+    throw new PreconditionFailedException(
+        String.format("If-Match %s does not name a version of vehicle %d", ifMatch, id));
+  }
+}
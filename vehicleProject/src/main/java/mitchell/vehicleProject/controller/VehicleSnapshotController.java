@@ -0,0 +1,38 @@
+package mitchell.vehicleProject.controller;
+
+import mitchell.vehicleProject.format.VehicleMediaTypes;
+import mitchell.vehicleProject.snapshot.VehicleSnapshots;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+@RestController
+@ConditionalOnProperty(name = "vehicle.snapshot.enabled", havingValue = "true")
+public class VehicleSnapshotController {
+
+  @Autowired
+  private VehicleSnapshots vehicleSnapshots;
+
+  /**
+   * The latest snapshot file byte for byte, for analytics jobs to map as is; a {@code Range}
+   * header fetches single columns using the offsets in its header. 204 until one is written.
+   */
+  @GetMapping(
+      value = "/vehicles/snapshot",
+      produces = VehicleMediaTypes.APPLICATION_VEHICLE_SNAPSHOT_VALUE)
+  public ResponseEntity<Resource> getSnapshot() {
+    Optional<Path> snapshot = vehicleSnapshots.getPath();
+    if (!snapshot.isPresent()) {
+      return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+    return new ResponseEntity<>(new FileSystemResource(snapshot.get()), HttpStatus.OK);
+  }
+}
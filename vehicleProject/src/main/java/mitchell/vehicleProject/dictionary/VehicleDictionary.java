@@ -0,0 +1,272 @@
+package mitchell.vehicleProject.dictionary;
+
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.shard.ShardContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the {@code vehicle_make} and {@code vehicle_model} tables: every distinct
+ * spelling and its int key, in both directions. Vehicle rows store only the keys, and every entity
+ * hydrated from them gets the one interned {@link String} held here, so a million vehicles of the
+ * same make share a single instance.
+ *
+ * <p>Reads are lock-free. A spelling seen for the first time is inserted in auto-commit, outside
+ * whatever transaction is writing the vehicle: a key handed out must stay valid even if that
+ * transaction rolls back. Each miss borrows a pool connection for just that statement and hands
+ * it straight back. Misses are rare, once per spelling per instance; one that finds the pool
+ * exhausted by flushing transactions fails after the pool's connection timeout instead of waiting
+ * for good.
+ */
+@Component
+@Log4j2
+public class VehicleDictionary {
+
+  public enum Kind {
+    MAKE("vehicle_make"),
+    MODEL("vehicle_model");
+
+    private final String table;
+
+    Kind(String table) {
+      this.table = table;
+    }
+  }
+
+  @Autowired private DataSource dataSource;
+
+  private final Map<Kind, Terms> terms = new EnumMap<>(Kind.class);
+
+  private volatile boolean loaded;
+
+  public VehicleDictionary() {
+    for (Kind kind : Kind.values()) {
+      terms.put(kind, new Terms());
+    }
+  }
+
+  /** Case folding used for matching, so {@code Honda} and {@code honda} find each other. */
+  public static String normalize(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+
+  /** Loads the tables once the schema is up, so the first request does not pay for it. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (loaded) {
+      return;
+    }
+    synchronized (this) {
+      if (loaded) {
+        return;
+      }
+      for (Kind kind : Kind.values()) {
+        String sql = "select id, name from " + kind.table;
+        Map<Integer, String> rows =
+            withConnection(
+                sql,
+                connection -> {
+                  Map<Integer, String> names = new LinkedHashMap<>();
+                  try (PreparedStatement select = connection.prepareStatement(sql);
+                      ResultSet result = select.executeQuery()) {
+                    while (result.next()) {
+                      names.put(result.getInt(1), result.getString(2));
+                    }
+                  }
+                  return names;
+                });
+        Terms kindTerms = terms.get(kind);
+        synchronized (kindTerms) {
+          rows.forEach(kindTerms::put);
+        }
+      }
+      loaded = true;
+      log.info(
+          "Vehicle dictionary loaded: {} makes, {} models",
+          terms.get(Kind.MAKE).ids.size(),
+          terms.get(Kind.MODEL).ids.size());
+    }
+  }
+
+  /** Key of {@code name}, adding it to the dictionary table first when it is new. */
+  public int idOf(Kind kind, String name) {
+    Optional<Integer> id = find(kind, name);
+    if (id.isPresent()) {
+      return id.get();
+    }
+    Terms kindTerms = terms.get(kind);
+    synchronized (kindTerms) {
+      Integer existing = kindTerms.ids.get(name);
+      if (Objects.nonNull(existing)) {
+        return existing;
+      }
+      int added = insert(kind, name);
+      kindTerms.put(added, name);
+      return added;
+    }
+  }
+
+  /** Key of {@code name} when it is already in the dictionary; never adds it. */
+  public Optional<Integer> find(Kind kind, String name) {
+    load();
+    return Optional.ofNullable(terms.get(kind).ids.get(name));
+  }
+
+  /** The interned spelling for {@code id}. */
+  public String nameOf(Kind kind, int id) {
+    load();
+    Terms kindTerms = terms.get(kind);
+    String name = kindTerms.nameOf(id);
+    if (Objects.nonNull(name)) {
+      return name;
+    }
+    // added by another instance sharing the database since this one loaded
+    synchronized (kindTerms) {
+      name = select(kind, id);
+      kindTerms.put(id, name);
+      return name;
+    }
+  }
+
+  /** Keys of every spelling equal to {@code name} ignoring case; empty when there is none. */
+  public List<Integer> idsMatching(Kind kind, String name) {
+    load();
+    return terms.get(kind).idsByNormalized.getOrDefault(normalize(name), Collections.emptyList());
+  }
+
+  /** Every known spelling equal to {@code name} ignoring case; empty when there is none. */
+  public List<String> spellingsOf(Kind kind, String name) {
+    List<Integer> ids = idsMatching(kind, name);
+    List<String> spellings = new ArrayList<>(ids.size());
+    for (Integer id : ids) {
+      spellings.add(nameOf(kind, id));
+    }
+    return spellings;
+  }
+
+  private int insert(Kind kind, String name) {
+    String sql = "insert into " + kind.table + " (name) values (?)";
+    return withConnection(
+        sql,
+        connection -> {
+          try (PreparedStatement insert =
+              connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, name);
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+              keys.next();
+              return keys.getInt(1);
+            }
+          } catch (SQLException e) {
+            // lost the race to another instance: its row is as good as ours
+            try (PreparedStatement select =
+                connection.prepareStatement("select id from " + kind.table + " where name = ?")) {
+              select.setString(1, name);
+              try (ResultSet rows = select.executeQuery()) {
+                if (rows.next()) {
+                  return rows.getInt(1);
+                }
+              }
+            }
+            throw e;
+          }
+        });
+  }
+
+  private String select(Kind kind, int id) {
+    String sql = "select name from " + kind.table + " where id = ?";
+    return withConnection(
+        sql,
+        connection -> {
+          try (PreparedStatement select = connection.prepareStatement(sql)) {
+            select.setInt(1, id);
+            try (ResultSet rows = select.executeQuery()) {
+              if (!rows.next()) {
+                throw new IllegalStateException("No vehicle " + kind + " with id " + id);
+              }
+              return rows.getString(1);
+            }
+          }
+        });
+  }
+
+  private <T> T withConnection(String sql, SqlWork<T> work) {
+    try (Connection connection = openConnection()) {
+      if (!connection.getAutoCommit()) {
+        connection.setAutoCommit(true);
+      }
+      return work.run(connection);
+    } catch (SQLException e) {
+      throw new UncategorizedSQLException("vehicle dictionary", sql, e);
+    }
+  }
+
+  // the tables live on the home shard, whichever shard the calling thread is writing to
+  private Connection openConnection() throws SQLException {
+    Integer previous = ShardContext.swap(ShardContext.HOME);
+    try {
+      return dataSource.getConnection();
+    } finally {
+      ShardContext.swap(previous);
+    }
+  }
+
+  private interface SqlWork<T> {
+
+    T run(Connection connection) throws SQLException;
+  }
+
+  /** One kind's terms. Written under its monitor, read without it. */
+  private static class Terms {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Integer>> idsByNormalized = new ConcurrentHashMap<>();
+
+    private volatile String[] names = new String[64];
+
+    String nameOf(int id) {
+      String[] current = names;
+      return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    void put(int id, String name) {
+      if (Objects.nonNull(nameOf(id))) {
+        return;
+      }
+      String[] current = names;
+      if (id >= current.length) {
+        current = Arrays.copyOf(current, Math.max(id + 1, current.length * 2));
+      }
+      current[id] = name;
+      names = current;
+      ids.put(name, id);
+      String normalized = normalize(name);
+      List<Integer> matching =
+          new ArrayList<>(idsByNormalized.getOrDefault(normalized, Collections.emptyList()));
+      matching.add(id);
+      idsByNormalized.put(normalized, Collections.unmodifiableList(matching));
+    }
+  }
+}
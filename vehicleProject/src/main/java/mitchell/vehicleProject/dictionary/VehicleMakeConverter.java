@@ -0,0 +1,25 @@
+package mitchell.vehicleProject.dictionary;
+
+import mitchell.vehicleProject.dictionary.VehicleDictionary.Kind;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.Objects;
+
+/** Stores {@code Vehicle.make} as its {@link VehicleDictionary} key. */
+@Converter
+public class VehicleMakeConverter implements AttributeConverter<String, Integer> {
+
+  @Autowired private VehicleDictionary vehicleDictionary;
+
+  @Override
+  public Integer convertToDatabaseColumn(String make) {
+    return Objects.isNull(make) ? null : vehicleDictionary.idOf(Kind.MAKE, make);
+  }
+
+  @Override
+  public String convertToEntityAttribute(Integer id) {
+    return Objects.isNull(id) ? null : vehicleDictionary.nameOf(Kind.MAKE, id);
+  }
+}
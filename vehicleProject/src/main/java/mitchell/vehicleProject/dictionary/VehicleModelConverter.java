@@ -0,0 +1,25 @@
+package mitchell.vehicleProject.dictionary;
+
+import mitchell.vehicleProject.dictionary.VehicleDictionary.Kind;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.Objects;
+
+/** Stores {@code Vehicle.model} as its {@link VehicleDictionary} key. */
+@Converter
+public class VehicleModelConverter implements AttributeConverter<String, Integer> {
+
+  @Autowired private VehicleDictionary vehicleDictionary;
+
+  @Override
+  public Integer convertToDatabaseColumn(String model) {
+    return Objects.isNull(model) ? null : vehicleDictionary.idOf(Kind.MODEL, model);
+  }
+
+  @Override
+  public String convertToEntityAttribute(Integer id) {
+    return Objects.isNull(id) ? null : vehicleDictionary.nameOf(Kind.MODEL, id);
+  }
+}
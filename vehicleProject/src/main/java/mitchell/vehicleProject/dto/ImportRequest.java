@@ -0,0 +1,18 @@
+package mitchell.vehicleProject.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import mitchell.vehicleProject.importer.ImportFormat;
+
+@Data
+@NoArgsConstructor
+public class ImportRequest {
+
+    /** File name relative to {@code vehicle.import.directory}. */
+    private String file;
+
+    private ImportFormat format = ImportFormat.CSV;
+
+    /** Continue from the last committed batch of a previous run of the same file. */
+    private boolean resume = true;
+}
@@ -0,0 +1,16 @@
+package mitchell.vehicleProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleBulkError {
+
+    /** Position of the rejected vehicle in the request array. */
+    private int index;
+
+    private String message;
+}
@@ -0,0 +1,22 @@
+package mitchell.vehicleProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleBulkResult {
+
+    private int received;
+
+    private int created;
+
+    /** Generated ids of the created vehicles, in request order. */
+    private List<Integer> ids;
+
+    private List<VehicleBulkError> errors;
+}
@@ -0,0 +1,29 @@
+package mitchell.vehicleProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleChange {
+
+    /** Position in the change log; strictly increasing within one {@code epoch}. */
+    private long sequence;
+
+    private VehicleChangeEvent.Type type;
+
+    private Integer id;
+
+    /** Row version after the change, {@code null} for deletes. */
+    private Long version;
+
+    /** State after the change, copied out of the entity; {@code null} for deletes. */
+    private Integer year;
+
+    private String make;
+
+    private String model;
+}
@@ -0,0 +1,24 @@
+package mitchell.vehicleProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleChangeBatch {
+
+    /** Identifies the log; sequences from another epoch are meaningless here. */
+    private String epoch;
+
+    private List<VehicleChange> changes;
+
+    /** Pass as {@code since} to get the next batch. */
+    private long lastSequence;
+
+    /** More changes are already available past {@code lastSequence}. */
+    private boolean hasMore;
+}
@@ -0,0 +1,27 @@
+package mitchell.vehicleProject.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Data
+@NoArgsConstructor
+public class VehicleFacetCounts {
+
+    private long total;
+
+    private Map<String, Long> byMake = new TreeMap<>();
+
+    private Map<String, Map<String, Long>> byMakeModel = new TreeMap<>();
+
+    private Map<Integer, Long> byYear = new TreeMap<>();
+
+    public void add(Integer year, String make, String model, long count) {
+        total += count;
+        byMake.merge(make, count, Long::sum);
+        byMakeModel.computeIfAbsent(make, m -> new TreeMap<>()).merge(model, count, Long::sum);
+        byYear.merge(year, count, Long::sum);
+    }
+}
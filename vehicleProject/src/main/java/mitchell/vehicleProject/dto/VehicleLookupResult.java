@@ -0,0 +1,20 @@
+package mitchell.vehicleProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import mitchell.vehicleProject.entity.Vehicle;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleLookupResult {
+
+    /** Found vehicles in the order their ids were requested, each id at most once. */
+    private List<Vehicle> vehicles;
+
+    /** Requested ids with no vehicle, in request order. */
+    private List<Integer> missing;
+}
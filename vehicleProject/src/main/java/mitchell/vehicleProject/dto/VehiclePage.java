@@ -0,0 +1,21 @@
+package mitchell.vehicleProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import mitchell.vehicleProject.entity.Vehicle;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehiclePage {
+
+    private List<Vehicle> vehicles;
+
+    /** Opaque cursor for the next page, or {@code null} when this is the last page. */
+    private String nextCursor;
+
+    private int limit;
+}
@@ -0,0 +1,17 @@
+package mitchell.vehicleProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleSuggestion {
+
+    /** A make or model, in its most common spelling. */
+    private String value;
+
+    /** Vehicles with that make or model, in any spelling. */
+    private long count;
+}
@@ -0,0 +1,50 @@
+package mitchell.vehicleProject.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Progress of an import as of its last committed batch; it resumes from {@link #offset}. Saved in
+ * the same transaction as the batch's vehicles, so a crash can never leave the two apart.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "import_checkpoint")
+public class ImportCheckpoint {
+
+    /** Absolute path of the imported file. */
+    @Id
+    @Column(length = 1024)
+    private String file;
+
+    @Column(name = "end_offset")
+    private long offset;
+
+    private long lines;
+
+    private long imported;
+
+    private long rejected;
+
+    private long batches;
+
+    private boolean completed;
+
+    public ImportCheckpoint(String file) {
+        this.file = file;
+    }
+
+    public void advance(long endOffset, long lines, int imported, int rejected) {
+        this.offset = endOffset;
+        this.lines += lines;
+        this.imported += imported;
+        this.rejected += rejected;
+        this.batches++;
+    }
+}
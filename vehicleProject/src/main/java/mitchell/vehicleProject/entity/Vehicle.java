@@ -1,28 +1,68 @@
 package mitchell.vehicleProject.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import mitchell.vehicleProject.dictionary.VehicleMakeConverter;
+import mitchell.vehicleProject.dictionary.VehicleModelConverter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Data
 @Entity
 @NoArgsConstructor
+@Table(
+    indexes = {
+      @Index(name = "idx_vehicle_make_model_year", columnList = "make_id, model_id, year"),
+      @Index(name = "idx_vehicle_model_year", columnList = "model_id, year"),
+      // make + year without a model would otherwise only seek on the make prefix above; the
+      // trailing ids let keyset pages seek past "id > after" and read in id order without a sort
+      @Index(name = "idx_vehicle_make_year", columnList = "make_id, year, id"),
+      @Index(name = "idx_vehicle_model_id", columnList = "model_id, id"),
+      @Index(name = "idx_vehicle_year", columnList = "year, id")
+    })
 public class Vehicle {
 
     @Id
-    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    // pooled sequence ids let Hibernate batch inserts, which IDENTITY rules out; when sharded,
+    // the id also names its shard. pooled-lo: each sequence value owns the ids from it up to
+    // the next, so anything else that takes a value from vehicle_seq can use it as an id safely
+    @GeneratedValue(generator = "vehicle_seq")
+    @GenericGenerator(
+        name = "vehicle_seq",
+        strategy = "mitchell.vehicleProject.shard.ShardedSequenceGenerator",
+        parameters = {
+            @Parameter(name = "sequence_name", value = "vehicle_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        })
     private Integer id;
 
     private Integer year;
 
+    // dictionary-encoded: rows and indexes hold int keys, entities the shared spelling
+    @Column(name = "make_id")
+    @Convert(converter = VehicleMakeConverter.class)
     private String make;
 
+    @Column(name = "model_id")
+    @Convert(converter = VehicleModelConverter.class)
     private String model;
 
+    // bumped by Hibernate on every update; exposed to clients only through the ETag header
+    @Version
+    @JsonIgnore
+    private long version;
+
     public Vehicle(int id, int year, String make, String model) {
     }
 
@@ -59,4 +99,12 @@ public class Vehicle {
         this.model = model;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
 }
@@ -0,0 +1,29 @@
+package mitchell.vehicleProject.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * One distinct vehicle model spelling; {@link Vehicle} rows store its id. Rows are only ever added,
+ * by {@link mitchell.vehicleProject.dictionary.VehicleDictionary}.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "vehicle_model")
+public class VehicleModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+}
@@ -0,0 +1,29 @@
+package mitchell.vehicleProject.event;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Table-level version: bumped on every {@link VehicleChangeEvent}, so any list response can be
+ * tagged, and revalidated, without looking at the rows. The generation changes on every restart
+ * because the counter starts from zero again, and writes made before the restart must not match.
+ */
+@Component
+public class VehicleChangeCounter {
+
+  private final String generation = Long.toString(System.currentTimeMillis(), 36);
+
+  private final AtomicLong changes = new AtomicLong();
+
+  @EventListener
+  public void onVehicleChange(VehicleChangeEvent event) {
+    changes.incrementAndGet();
+  }
+
+  /** Opaque token that differs whenever any vehicle may have changed. */
+  public String current() {
+    return generation + "." + changes.get();
+  }
+}
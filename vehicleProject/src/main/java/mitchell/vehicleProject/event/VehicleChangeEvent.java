@@ -0,0 +1,29 @@
+package mitchell.vehicleProject.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import mitchell.vehicleProject.entity.Vehicle;
+
+/**
+ * Published by {@link mitchell.vehicleProject.service.VehicleService} after every committed write,
+ * so derived in-memory structures can keep themselves consistent with the table.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class VehicleChangeEvent {
+
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  private final Type type;
+
+  private final Integer id;
+
+  /** State after the change, {@code null} for deletes. */
+  private final Vehicle vehicle;
+}
@@ -1,6 +1,9 @@
 package mitchell.vehicleProject.exceptions;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -14,4 +17,40 @@ public class ExceptionAdvice {
   public String handleBadRequestException(Exception e) {
     return e.getLocalizedMessage().toString();
   }
+
+  @ResponseBody
+  @ExceptionHandler({PreconditionFailedException.class})
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public String handlePreconditionFailedException(Exception e) {
+    return e.getLocalizedMessage();
+  }
+
+  @ResponseBody
+  @ExceptionHandler({GoneException.class})
+  @ResponseStatus(HttpStatus.GONE)
+  public String handleGoneException(Exception e) {
+    return e.getLocalizedMessage();
+  }
+
+  @ResponseBody
+  @ExceptionHandler({OptimisticLockingFailureException.class})
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public String handleOptimisticLockingFailureException(Exception e) {
+    return "Vehicle was modified concurrently, reload and retry";
+  }
+
+  @ExceptionHandler({ServiceUnavailableException.class})
+  public ResponseEntity<String> handleServiceUnavailableException(
+      ServiceUnavailableException e) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+    return new ResponseEntity<>(e.getLocalizedMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  @ExceptionHandler({TooManyRequestsException.class})
+  public ResponseEntity<String> handleTooManyRequestsException(TooManyRequestsException e) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+    return new ResponseEntity<>(e.getLocalizedMessage(), headers, HttpStatus.TOO_MANY_REQUESTS);
+  }
 }
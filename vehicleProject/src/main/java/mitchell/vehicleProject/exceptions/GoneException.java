@@ -0,0 +1,8 @@
+package mitchell.vehicleProject.exceptions;
+
+/** The requested resource existed once but is no longer retained. */
+public class GoneException extends RuntimeException {
+    public GoneException(String message) {
+        super(message);
+    }
+}
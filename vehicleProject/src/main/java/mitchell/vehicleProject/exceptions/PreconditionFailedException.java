@@ -0,0 +1,8 @@
+package mitchell.vehicleProject.exceptions;
+
+/** An {@code If-Match} precondition did not hold: the row changed since the client read it. */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package mitchell.vehicleProject.exceptions;
+
+/** More requests are waiting for an endpoint than it queues; retry after the given delay. */
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
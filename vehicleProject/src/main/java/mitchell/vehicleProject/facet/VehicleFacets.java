@@ -0,0 +1,208 @@
+package mitchell.vehicleProject.facet;
+
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.dto.VehicleFacetCounts;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.exceptions.ServiceUnavailableException;
+import mitchell.vehicleProject.index.IdIntMap;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.shard.VehicleShards;
+import mitchell.vehicleProject.snapshot.VehicleSnapshots;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Vehicle counts per distinct (year, make, model), kept current from {@link VehicleChangeEvent}s.
+ * The number of distinct combinations is tiny next to the number of vehicles, so any facet with
+ * any filter is a walk over these counters rather than a table scan.
+ *
+ * <p>Until the startup rebuild has finished, counts are answered 503 rather than by a GROUP BY
+ * per request. A failed rebuild is retried every {@code retry-delay} until one succeeds.
+ */
+@Component
+@Log4j2
+public class VehicleFacets {
+
+  @Autowired private VehicleRepository vehicleRepository;
+
+  @Autowired(required = false)
+  private VehicleShards vehicleShards;
+
+  @Autowired(required = false)
+  private VehicleSnapshots vehicleSnapshots;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Value("${vehicle.facets.retry-delay}")
+  private Duration retryDelay;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<FacetKey, Integer> ordinals = new HashMap<>();
+
+  private final List<FacetKey> keys = new ArrayList<>();
+
+  private long[] counts = new long[64];
+
+  // ordinal + 1 of each id's combination, the one a change decrements
+  private final IdIntMap keyOf = new IdIntMap();
+
+  private volatile boolean ready;
+
+  private ScheduledExecutorService retries;
+
+  @PostConstruct
+  public void start() {
+    retries =
+        Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("vehicle-facets-"));
+  }
+
+  @PreDestroy
+  public void stop() {
+    retries.shutdownNow();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildOrRetry() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+    try {
+      transaction.executeWithoutResult(status -> rebuild());
+    } catch (RuntimeException e) {
+      log.warn("Rebuilding vehicle facets failed, retrying in {}", retryDelay, e);
+      retries.schedule(this::rebuildOrRetry, retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Transactional(readOnly = true)
+  public void rebuild() {
+    long start = System.nanoTime();
+    lock.writeLock().lock();
+    try {
+      ready = false;
+      Arrays.fill(counts, 0);
+      keyOf.clear();
+      Consumer<Object[]> addKey =
+          key -> add((Integer) key[0], (Integer) key[1], (String) key[2], (String) key[3]);
+      if (Objects.isNull(vehicleSnapshots) || !vehicleSnapshots.forEachKey(addKey)) {
+        VehicleShards.forEachKey(vehicleShards, vehicleRepository, addKey);
+      }
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info(
+        "Vehicle facets rebuilt in {} ms: {} combinations",
+        (System.nanoTime() - start) / 1_000_000,
+        keys.size());
+  }
+
+  @EventListener
+  public void onVehicleChange(VehicleChangeEvent event) {
+    lock.writeLock().lock();
+    try {
+      remove(event.getId());
+      Vehicle vehicle = event.getVehicle();
+      if (Objects.nonNull(vehicle)) {
+        add(vehicle.getId(), vehicle.getYear(), vehicle.getMake(), vehicle.getModel());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Counts by make, make+model and year over the vehicles matching the non-null filters, make and
+   * model ignoring case. Each spelling is still counted under its own name.
+   */
+  public VehicleFacetCounts count(Integer year, String make, String model) {
+    VehicleFacetCounts facetCounts = new VehicleFacetCounts();
+    if (!ready) {
+      throw new ServiceUnavailableException("Vehicle facets are still being built, retry shortly");
+    }
+    lock.readLock().lock();
+    try {
+      for (int ordinal = 0; ordinal < keys.size(); ordinal++) {
+        FacetKey key = keys.get(ordinal);
+        if (counts[ordinal] > 0 && key.matches(year, make, model)) {
+          facetCounts.add(key.getYear(), key.getMake(), key.getModel(), counts[ordinal]);
+        }
+      }
+      return facetCounts;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void add(Integer id, Integer year, String make, String model) {
+    if (Objects.isNull(id)
+        || Objects.isNull(year)
+        || Objects.isNull(make)
+        || Objects.isNull(model)) {
+      return;
+    }
+    FacetKey key = new FacetKey(year, make, model);
+    Integer ordinal = ordinals.get(key);
+    if (Objects.isNull(ordinal)) {
+      ordinal = keys.size();
+      keys.add(key);
+      ordinals.put(key, ordinal);
+      if (ordinal == counts.length) {
+        counts = Arrays.copyOf(counts, counts.length * 2);
+      }
+    }
+    keyOf.put(id, ordinal + 1);
+    counts[ordinal]++;
+  }
+
+  private void remove(Integer id) {
+    if (Objects.isNull(id)) {
+      return;
+    }
+    int ordinal = keyOf.remove(id);
+    if (ordinal != IdIntMap.ABSENT) {
+      counts[ordinal - 1]--;
+    }
+  }
+
+  @lombok.Value
+  private static class FacetKey {
+
+    Integer year;
+
+    String make;
+
+    String model;
+
+    boolean matches(Integer year, String make, String model) {
+      return (Objects.isNull(year) || year.equals(this.year))
+          && (Objects.isNull(make) || make.equalsIgnoreCase(this.make))
+          && (Objects.isNull(model) || model.equalsIgnoreCase(this.model));
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package mitchell.vehicleProject.format;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * The representations a vehicle payload can be served in. Each one needs its own strong ETag, so
+ * the controllers resolve the format from {@code Accept} the same way content negotiation will
+ * before they compare validators.
+ */
+public enum VehicleFormat {
+  JSON(MediaType.APPLICATION_JSON),
+  CBOR(MediaType.valueOf(VehicleMediaTypes.APPLICATION_CBOR_VALUE)),
+  SMILE(MediaType.valueOf(VehicleMediaTypes.APPLICATION_SMILE_VALUE)),
+  PROTOBUF(MediaType.valueOf(VehicleMediaTypes.APPLICATION_PROTOBUF_VALUE));
+
+  private final MediaType mediaType;
+
+  VehicleFormat(MediaType mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  public MediaType getMediaType() {
+    return mediaType;
+  }
+
+  /** Appended to ETags of this representation; empty for JSON so existing tags stay valid. */
+  public String getTagSuffix() {
+    return this == JSON ? "" : "+" + name().toLowerCase();
+  }
+
+  /**
+   * The format the most preferred acceptable media type selects, in declaration order among equally
+   * preferred ones, as Spring does with the {@code produces} list. JSON when nothing matches.
+   */
+  public static VehicleFormat negotiate(String accept) {
+    if (!StringUtils.hasText(accept)) {
+      return JSON;
+    }
+    List<MediaType> acceptable;
+    try {
+      acceptable = MediaType.parseMediaTypes(accept);
+    } catch (InvalidMediaTypeException e) {
+      return JSON;
+    }
+    MediaType.sortBySpecificityAndQuality(acceptable);
+    for (MediaType mediaType : acceptable) {
+      for (VehicleFormat format : values()) {
+        if (mediaType.includes(format.mediaType)) {
+          return format;
+        }
+      }
+    }
+    return JSON;
+  }
+}
@@ -0,0 +1,39 @@
+package mitchell.vehicleProject.format;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary converters next to Spring Boot's JSON one. CBOR and Smile mappers come from Boot's
+ * {@link Jackson2ObjectMapperBuilder}, so they serialize exactly what the JSON mapper does; Boot
+ * picks up converter beans and puts them in place of the MVC defaults of the same type.
+ */
+@Configuration
+public class VehicleFormatConfiguration {
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    // a list repeats a handful of makes and models; back-references send each one once
+    SmileFactory smileFactory =
+        new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+    return new MappingJackson2SmileHttpMessageConverter(builder.factory(smileFactory).build());
+  }
+
+  @Bean
+  public VehicleProtobufHttpMessageConverter protobufHttpMessageConverter() {
+    return new VehicleProtobufHttpMessageConverter();
+  }
+}
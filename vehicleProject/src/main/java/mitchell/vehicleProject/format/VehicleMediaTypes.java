@@ -0,0 +1,16 @@
+package mitchell.vehicleProject.format;
+
+/** Binary media types the vehicle endpoints negotiate besides {@code application/json}. */
+public final class VehicleMediaTypes {
+
+  public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+  public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+
+  /** The columnar file described on {@link mitchell.vehicleProject.snapshot.VehicleSnapshot}. */
+  public static final String APPLICATION_VEHICLE_SNAPSHOT_VALUE = "application/x-vehicle-snapshot";
+
+  private VehicleMediaTypes() {}
+}
@@ -0,0 +1,166 @@
+package mitchell.vehicleProject.format;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads and writes {@link Vehicle} and {@code List<Vehicle>} as {@code application/x-protobuf},
+ * following {@code static/schema/vehicle.proto}; lists are a {@code VehicleList} message. Lists are
+ * written one element at a time: each vehicle is encoded into a reused buffer and copied out as one
+ * length-delimited {@code vehicles} field, so a large list never exists in encoded form at once.
+ */
+public class VehicleProtobufHttpMessageConverter
+    extends AbstractGenericHttpMessageConverter<Object> {
+
+  private static final String SCHEMA = "static/schema/vehicle.proto";
+
+  /** Key of {@code VehicleList.vehicles}: field 1, wire type 2 (length-delimited). */
+  private static final int VEHICLES_KEY = (1 << 3) | 2;
+
+  private final ObjectWriter vehicleWriter;
+
+  private final ObjectReader vehicleReader;
+
+  private final ObjectReader vehicleListReader;
+
+  public VehicleProtobufHttpMessageConverter() {
+    super(MediaType.valueOf(VehicleMediaTypes.APPLICATION_PROTOBUF_VALUE));
+    ProtobufSchema schema;
+    try {
+      schema = ProtobufSchemaLoader.std.load(new ClassPathResource(SCHEMA).getURL());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot load " + SCHEMA, e);
+    }
+    ProtobufMapper mapper = new ProtobufMapper();
+    ProtobufSchema vehicleSchema = schema.withRootType("Vehicle");
+    this.vehicleWriter = mapper.writerFor(Vehicle.class).with(vehicleSchema);
+    this.vehicleReader = mapper.readerFor(Vehicle.class).with(vehicleSchema);
+    this.vehicleListReader =
+        mapper.readerFor(VehicleListMessage.class).with(schema.withRootType("VehicleList"));
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return Vehicle.class == clazz || Collection.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    return isVehicleOrVehicleList(type) && canRead(mediaType);
+  }
+
+  @Override
+  public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+    Type valueType = Objects.isNull(type) ? clazz : type;
+    return isVehicleOrVehicleList(valueType) && canWrite(mediaType);
+  }
+
+  private static boolean isVehicleOrVehicleList(Type type) {
+    if (type == Vehicle.class) {
+      return true;
+    }
+    if (!(type instanceof ParameterizedType)) {
+      return false;
+    }
+    ParameterizedType parameterizedType = (ParameterizedType) type;
+    return parameterizedType.getRawType() instanceof Class
+        && Collection.class.isAssignableFrom((Class<?>) parameterizedType.getRawType())
+        && parameterizedType.getActualTypeArguments()[0] == Vehicle.class;
+  }
+
+  @Override
+  public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+      throws IOException {
+    try {
+      return type == Vehicle.class
+          ? vehicleReader.readValue(inputMessage.getBody())
+          : readVehicles(inputMessage.getBody());
+    } catch (JsonProcessingException e) {
+      throw new HttpMessageNotReadableException(
+          "Invalid protobuf vehicle payload: " + e.getOriginalMessage(), e, inputMessage);
+    }
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+      throws IOException {
+    return read(clazz, null, inputMessage);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+      throws IOException {
+    OutputStream body = StreamUtils.nonClosing(outputMessage.getBody());
+    if (object instanceof Vehicle) {
+      vehicleWriter.writeValue(body, object);
+    } else {
+      writeVehicles((Collection<Vehicle>) object, body);
+    }
+  }
+
+  public List<Vehicle> readVehicles(InputStream input) throws IOException {
+    // an empty list is an empty message, which is zero bytes on the wire
+    PushbackInputStream body = new PushbackInputStream(input);
+    int first = body.read();
+    if (first == -1) {
+      return new ArrayList<>();
+    }
+    body.unread(first);
+    VehicleListMessage message = vehicleListReader.readValue(body);
+    return Objects.isNull(message.vehicles) ? new ArrayList<>() : message.vehicles;
+  }
+
+  public void writeVehicles(Collection<Vehicle> vehicles, OutputStream output) throws IOException {
+    BufferedOutputStream buffered = new BufferedOutputStream(output, 8192);
+    ByteArrayOutputStream message = new ByteArrayOutputStream(64);
+    for (Vehicle vehicle : vehicles) {
+      message.reset();
+      vehicleWriter.writeValue(message, vehicle);
+      writeVarint(buffered, VEHICLES_KEY);
+      writeVarint(buffered, message.size());
+      message.writeTo(buffered);
+    }
+    buffered.flush();
+  }
+
+  private static void writeVarint(OutputStream output, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      output.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    output.write(value);
+  }
+
+  /** Binding target for {@code VehicleList} on reads. */
+  static class VehicleListMessage {
+
+    public List<Vehicle> vehicles;
+  }
+}
@@ -0,0 +1,8 @@
+package mitchell.vehicleProject.importer;
+
+public enum ImportFormat {
+  /** {@code year,make,model} per line, optional header, RFC 4180 quoting. */
+  CSV,
+  /** One JSON vehicle object per line. */
+  NDJSON
+}
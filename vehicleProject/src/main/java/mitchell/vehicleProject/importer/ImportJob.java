@@ -0,0 +1,125 @@
+package mitchell.vehicleProject.importer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import mitchell.vehicleProject.entity.ImportCheckpoint;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+public class ImportJob {
+
+  public enum Status {
+    RUNNING,
+    COMPLETED,
+    FAILED
+  }
+
+  private final String id;
+
+  private final Path file;
+
+  private final ImportFormat format;
+
+  private final long fileSize;
+
+  private final Instant startedAt = Instant.now();
+
+  private volatile ImportCheckpoint checkpoint;
+
+  private volatile Status status = Status.RUNNING;
+
+  private volatile Instant finishedAt;
+
+  private volatile String error;
+
+  public ImportJob(
+      String id, Path file, ImportFormat format, long fileSize, ImportCheckpoint checkpoint) {
+    this.id = id;
+    this.file = file;
+    this.format = format;
+    this.fileSize = fileSize;
+    this.checkpoint = checkpoint;
+  }
+
+  void committed(ImportCheckpoint checkpoint) {
+    this.checkpoint = checkpoint;
+  }
+
+  void completed() {
+    finishedAt = Instant.now();
+    status = Status.COMPLETED;
+  }
+
+  /** Whether the job has stopped, either way, before {@code cutoff}. */
+  boolean finishedBefore(Instant cutoff) {
+    Instant finished = finishedAt;
+    return finished != null && finished.isBefore(cutoff);
+  }
+
+  void failed(String error) {
+    this.error = error;
+    finishedAt = Instant.now();
+    status = Status.FAILED;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  @JsonIgnore
+  public Path getFile() {
+    return file;
+  }
+
+  public String getFileName() {
+    return file.getFileName().toString();
+  }
+
+  public ImportFormat getFormat() {
+    return format;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public long getFileSize() {
+    return fileSize;
+  }
+
+  public long getBytesCommitted() {
+    return checkpoint.getOffset();
+  }
+
+  public double getProgress() {
+    return fileSize == 0 ? 1d : (double) checkpoint.getOffset() / fileSize;
+  }
+
+  public long getLines() {
+    return checkpoint.getLines();
+  }
+
+  public long getImported() {
+    return checkpoint.getImported();
+  }
+
+  public long getRejected() {
+    return checkpoint.getRejected();
+  }
+
+  public long getBatchesCommitted() {
+    return checkpoint.getBatches();
+  }
+}
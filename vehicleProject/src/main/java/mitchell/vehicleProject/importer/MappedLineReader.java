@@ -0,0 +1,82 @@
+package mitchell.vehicleProject.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a file line by line through memory-mapped windows, so multi-gigabyte dumps are scanned
+ * without copying them through a heap buffer. Tracks the absolute byte offset of the next line,
+ * which is what import checkpoints record.
+ */
+public class MappedLineReader implements Closeable {
+
+  private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+  private final FileChannel channel;
+
+  private final long size;
+
+  private MappedByteBuffer window;
+
+  private long windowStart;
+
+  private long position;
+
+  private byte[] line = new byte[256];
+
+  public MappedLineReader(Path path, long startOffset) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.size = channel.size();
+    this.position = startOffset;
+  }
+
+  /** Returns the next line without its terminator, or {@code null} at the end of the file. */
+  public String readLine() throws IOException {
+    if (position >= size) {
+      return null;
+    }
+    int length = 0;
+    while (position < size) {
+      if (window == null || position >= windowStart + window.limit()) {
+        windowStart = position;
+        window =
+            channel.map(
+                FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - position));
+      }
+      byte b = window.get((int) (position - windowStart));
+      position++;
+      if (b == '\n') {
+        break;
+      }
+      if (length == line.length) {
+        line = Arrays.copyOf(line, length * 2);
+      }
+      line[length++] = b;
+    }
+    if (length > 0 && line[length - 1] == '\r') {
+      length--;
+    }
+    return new String(line, 0, length, StandardCharsets.UTF_8);
+  }
+
+  /** Byte offset of the line the next {@link #readLine()} call returns. */
+  public long position() {
+    return position;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+}
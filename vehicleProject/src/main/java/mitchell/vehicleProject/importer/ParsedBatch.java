@@ -0,0 +1,25 @@
+package mitchell.vehicleProject.importer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import mitchell.vehicleProject.entity.Vehicle;
+
+import java.util.Collections;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ParsedBatch {
+
+  /** Marks the end of the file for the writer. */
+  public static final ParsedBatch END =
+      new ParsedBatch(Collections.emptyList(), Collections.emptyList(), -1, 0);
+
+  private final List<Vehicle> vehicles;
+
+  private final List<RejectedRecord> rejected;
+
+  private final long endOffset;
+
+  private final long lines;
+}
@@ -0,0 +1,18 @@
+package mitchell.vehicleProject.importer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class RawBatch {
+
+  private final long firstLineNumber;
+
+  private final List<String> lines;
+
+  /** Byte offset just past the last line of this batch. */
+  private final long endOffset;
+}
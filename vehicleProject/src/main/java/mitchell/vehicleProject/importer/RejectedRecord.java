@@ -0,0 +1,17 @@
+package mitchell.vehicleProject.importer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RejectedRecord {
+
+  private long line;
+
+  private String record;
+
+  private String message;
+}
@@ -0,0 +1,272 @@
+package mitchell.vehicleProject.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.dto.VehicleBulkResult;
+import mitchell.vehicleProject.entity.ImportCheckpoint;
+import mitchell.vehicleProject.exceptions.BadRequestException;
+import mitchell.vehicleProject.repository.ImportCheckpointRepository;
+import mitchell.vehicleProject.service.VehicleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports dealer inventory dumps in three stages: a reader thread scans the file through {@link
+ * MappedLineReader}, a bounded worker pool parses and validates batches in parallel, and a single
+ * writer thread commits them in file order through {@link VehicleService#createVehicles}. At most
+ * {@code max-pending-batches} batches are in flight, so a slow database stalls the reader instead
+ * of filling the heap. Each batch commits in one transaction together with the import's {@link
+ * ImportCheckpoint}, so starting the same file again resumes exactly after the last committed
+ * batch. Sharded, the vehicles commit on their shards first and the checkpoint after them, so a
+ * crash between the two repeats that one batch.
+ */
+@Service
+@Log4j2
+public class VehicleImportService {
+
+  private static final String REJECTS_SUFFIX = ".rejected.ndjson";
+
+  @Autowired private VehicleService vehicleService;
+
+  @Autowired private VehicleRecordParser vehicleRecordParser;
+
+  @Autowired private ImportCheckpointRepository importCheckpointRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Value("${vehicle.import.directory}")
+  private String importDirectory;
+
+  @Value("${vehicle.import.workers}")
+  private int workers;
+
+  @Value("${vehicle.import.batch-size}")
+  private int batchSize;
+
+  @Value("${vehicle.import.max-pending-batches}")
+  private int maxPendingBatches;
+
+  @Value("${vehicle.import.retention}")
+  private Duration retention;
+
+  @Value("${vehicle.bulk.max-size}")
+  private int maxBulkSize;
+
+  private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+  private ExecutorService parserPool;
+
+  private ExecutorService jobPool;
+
+  @PostConstruct
+  public void start() {
+    // every batch goes through createVehicles, which refuses more than the bulk limit
+    if (batchSize > maxBulkSize) {
+      log.warn(
+          "vehicle.import.batch-size {} exceeds the bulk limit; using {}", batchSize, maxBulkSize);
+      batchSize = maxBulkSize;
+    }
+    parserPool =
+        Executors.newFixedThreadPool(
+            workers, new CustomizableThreadFactory("vehicle-import-parser-"));
+    jobPool = Executors.newCachedThreadPool(new CustomizableThreadFactory("vehicle-import-"));
+  }
+
+  @PreDestroy
+  public void stop() {
+    jobPool.shutdownNow();
+    parserPool.shutdownNow();
+  }
+
+  public ImportJob startImport(String fileName, ImportFormat format, boolean resume)
+      throws IOException {
+    Path file = resolve(fileName);
+    evictFinishedJobs();
+    boolean running =
+        jobs.values().stream()
+            .anyMatch(
+                job -> job.getFile().equals(file) && job.getStatus() == ImportJob.Status.RUNNING);
+    if (running) {
+      throw new BadRequestException(String.format("Import of %s is already running", fileName));
+    }
+
+    String key = file.toString();
+    Path rejectsFile = sibling(file, REJECTS_SUFFIX);
+    if (!resume) {
+      importCheckpointRepository.findById(key).ifPresent(importCheckpointRepository::delete);
+      Files.deleteIfExists(rejectsFile);
+    }
+    ImportCheckpoint checkpoint =
+        importCheckpointRepository.findById(key).orElseGet(() -> new ImportCheckpoint(key));
+
+    ImportJob job =
+        new ImportJob(UUID.randomUUID().toString(), file, format, Files.size(file), checkpoint);
+    jobs.put(job.getId(), job);
+    jobPool.execute(() -> run(job, checkpoint, rejectsFile));
+    return job;
+  }
+
+  /** Forgets jobs that finished more than {@code vehicle.import.retention} ago. */
+  private void evictFinishedJobs() {
+    Instant cutoff = Instant.now().minus(retention);
+    jobs.values().removeIf(job -> job.finishedBefore(cutoff));
+  }
+
+  public ImportJob getImport(String id) {
+    evictFinishedJobs();
+    ImportJob job = jobs.get(id);
+    if (job == null) {
+      throw new BadRequestException(String.format("Import %s does not exist", id));
+    }
+    return job;
+  }
+
+  public Optional<Path> getRejects(String id) {
+    Path rejectsFile = sibling(getImport(id).getFile(), REJECTS_SUFFIX);
+    return Files.exists(rejectsFile) ? Optional.of(rejectsFile) : Optional.empty();
+  }
+
+  private Path resolve(String fileName) {
+    Path directory = Paths.get(importDirectory).toAbsolutePath().normalize();
+    Path file = directory.resolve(fileName).normalize();
+    if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+      throw new BadRequestException(
+          String.format("Import file %s does not exist in the import directory", fileName));
+    }
+    return file;
+  }
+
+  private static Path sibling(Path file, String suffix) {
+    return file.resolveSibling(file.getFileName() + suffix);
+  }
+
+  private void run(ImportJob job, ImportCheckpoint checkpoint, Path rejectsFile) {
+    BlockingQueue<Future<ParsedBatch>> pending = new ArrayBlockingQueue<>(maxPendingBatches);
+    Future<?> writer =
+        jobPool.submit(
+            () -> {
+              write(job, checkpoint, pending, rejectsFile);
+              return null;
+            });
+    try (MappedLineReader reader = new MappedLineReader(job.getFile(), checkpoint.getOffset())) {
+      long lineNumber = checkpoint.getLines();
+      long firstLineNumber = lineNumber + 1;
+      List<String> lines = new ArrayList<>(batchSize);
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        lines.add(line);
+        if (lines.size() == batchSize) {
+          RawBatch batch = new RawBatch(firstLineNumber, lines, reader.position());
+          enqueue(pending, submit(job, batch), writer);
+          lines = new ArrayList<>(batchSize);
+          firstLineNumber = lineNumber + 1;
+        }
+      }
+      if (!lines.isEmpty()) {
+        RawBatch batch = new RawBatch(firstLineNumber, lines, reader.position());
+        enqueue(pending, submit(job, batch), writer);
+      }
+      enqueue(pending, CompletableFuture.completedFuture(ParsedBatch.END), writer);
+      writer.get();
+      job.completed();
+      log.info("Import {} of {} completed", job.getId(), job.getFileName());
+    } catch (Exception e) {
+      writer.cancel(true);
+      Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+      job.failed(cause.getMessage());
+      log.error("Import {} of {} failed", job.getId(), job.getFileName(), cause);
+    }
+  }
+
+  private Future<ParsedBatch> submit(ImportJob job, RawBatch batch) {
+    return parserPool.submit(() -> vehicleRecordParser.parse(batch, job.getFormat()));
+  }
+
+  /** Blocks while the writer is behind, but gives up if the writer has died. */
+  private static void enqueue(
+      BlockingQueue<Future<ParsedBatch>> pending, Future<ParsedBatch> batch, Future<?> writer)
+      throws InterruptedException, ExecutionException {
+    while (!pending.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+      if (writer.isDone()) {
+        writer.get();
+        throw new IllegalStateException("Import writer stopped unexpectedly");
+      }
+    }
+  }
+
+  private void write(
+      ImportJob job,
+      ImportCheckpoint checkpoint,
+      BlockingQueue<Future<ParsedBatch>> pending,
+      Path rejectsFile)
+      throws Exception {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    try (BufferedWriter rejects =
+        Files.newBufferedWriter(
+            rejectsFile,
+            StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND)) {
+      ParsedBatch batch;
+      while ((batch = pending.take().get()) != ParsedBatch.END) {
+        // rejects are appended first: a crash before the commit repeats them, never loses them
+        for (RejectedRecord rejected : batch.getRejected()) {
+          rejects.write(objectMapper.writeValueAsString(rejected));
+          rejects.newLine();
+        }
+        rejects.flush();
+        ParsedBatch committing = batch;
+        transaction.execute(
+            status -> {
+              int imported = 0;
+              if (!committing.getVehicles().isEmpty()) {
+                VehicleBulkResult result = vehicleService.createVehicles(committing.getVehicles());
+                imported = result.getCreated();
+              }
+              checkpoint.advance(
+                  committing.getEndOffset(),
+                  committing.getLines(),
+                  imported,
+                  committing.getRejected().size());
+              return importCheckpointRepository.save(checkpoint);
+            });
+        job.committed(checkpoint);
+      }
+      checkpoint.setCompleted(true);
+      importCheckpointRepository.save(checkpoint);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package mitchell.vehicleProject.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.exceptions.BadRequestException;
+import mitchell.vehicleProject.service.VehicleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Component
+public class VehicleRecordParser {
+
+  private static final String CSV_HEADER = "year,make,model";
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private VehicleService vehicleService;
+
+  /** Parses and validates a batch; runs on the import worker pool, so it must stay stateless. */
+  public ParsedBatch parse(RawBatch batch, ImportFormat format) {
+    List<Vehicle> vehicles = new ArrayList<>(batch.getLines().size());
+    List<RejectedRecord> rejected = new ArrayList<>();
+    for (int i = 0; i < batch.getLines().size(); i++) {
+      long lineNumber = batch.getFirstLineNumber() + i;
+      String line = batch.getLines().get(i);
+      if (line.trim().isEmpty() || (lineNumber == 1 && isHeader(line, format))) {
+        continue;
+      }
+      try {
+        Vehicle vehicle =
+            format == ImportFormat.CSV
+                ? parseCsv(line)
+                : objectMapper.readValue(line, Vehicle.class);
+        if (Objects.isNull(vehicle)) {
+          // a literal null line
+          throw new BadRequestException("Vehicle cannot be null");
+        }
+        vehicleService.checkVehicleRequest(vehicle);
+        vehicles.add(vehicle);
+      } catch (BadRequestException | IOException e) {
+        rejected.add(new RejectedRecord(lineNumber, line, e.getMessage()));
+      }
+    }
+    return new ParsedBatch(vehicles, rejected, batch.getEndOffset(), batch.getLines().size());
+  }
+
+  private static boolean isHeader(String line, ImportFormat format) {
+    return format == ImportFormat.CSV && CSV_HEADER.equalsIgnoreCase(line.replace(" ", ""));
+  }
+
+  private static Vehicle parseCsv(String line) {
+    List<String> fields = splitCsv(line);
+    if (fields.size() != 3) {
+      throw new BadRequestException("Expected 3 columns: year,make,model");
+    }
+    Vehicle vehicle = new Vehicle();
+    try {
+      vehicle.setYear(Integer.valueOf(fields.get(0).trim()));
+    } catch (NumberFormatException e) {
+      throw new BadRequestException("Year must be a number");
+    }
+    vehicle.setMake(fields.get(1));
+    vehicle.setModel(fields.get(2));
+    return vehicle;
+  }
+
+  private static List<String> splitCsv(String line) {
+    List<String> fields = new ArrayList<>(3);
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
@@ -0,0 +1,150 @@
+package mitchell.vehicleProject.index;
+
+import java.util.Arrays;
+
+/**
+ * Vehicle id to int, sized by the number of ids held rather than by the largest id: sharded and
+ * block-allocated ids leave wide gaps that a dense array indexed by id would pay for. Open
+ * addressing with linear probing over two parallel {@code int[]}s, so there is no boxing and no
+ * entry object per vehicle. Values must not be {@link #ABSENT}, which is what {@link #get}
+ * returns for an id that is not held.
+ *
+ * <p>Not thread-safe; the owners guard it with their own lock.
+ */
+public class IdIntMap {
+
+  public static final int ABSENT = 0;
+
+  private static final int FREE = 0;
+
+  private int[] keys;
+
+  private int[] values;
+
+  private int mask;
+
+  private int size;
+
+  // id 0 cannot live in the table, where 0 marks a free slot
+  private int zeroValue = ABSENT;
+
+  public IdIntMap() {
+    this(16);
+  }
+
+  public IdIntMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 4 / 3) * 2 - 1);
+    keys = new int[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  public int get(int id) {
+    if (id == FREE) {
+      return zeroValue;
+    }
+    for (int slot = slot(id); keys[slot] != FREE; slot = (slot + 1) & mask) {
+      if (keys[slot] == id) {
+        return values[slot];
+      }
+    }
+    return ABSENT;
+  }
+
+  /** Maps {@code id} to {@code value}, returning the value it replaced or {@link #ABSENT}. */
+  public int put(int id, int value) {
+    if (value == ABSENT) {
+      throw new IllegalArgumentException("Cannot store the absent value");
+    }
+    if (id == FREE) {
+      int previous = zeroValue;
+      zeroValue = value;
+      size += previous == ABSENT ? 1 : 0;
+      return previous;
+    }
+    int slot = slot(id);
+    for (; keys[slot] != FREE; slot = (slot + 1) & mask) {
+      if (keys[slot] == id) {
+        int previous = values[slot];
+        values[slot] = value;
+        return previous;
+      }
+    }
+    keys[slot] = id;
+    values[slot] = value;
+    if (++size > (keys.length >> 2) * 3) {
+      grow();
+    }
+    return ABSENT;
+  }
+
+  /** Drops {@code id}, returning its value or {@link #ABSENT} when it was not held. */
+  public int remove(int id) {
+    if (id == FREE) {
+      int previous = zeroValue;
+      zeroValue = ABSENT;
+      size -= previous == ABSENT ? 0 : 1;
+      return previous;
+    }
+    int gap = slot(id);
+    while (keys[gap] != id) {
+      if (keys[gap] == FREE) {
+        return ABSENT;
+      }
+      gap = (gap + 1) & mask;
+    }
+    int previous = values[gap];
+    // shift later entries of the run back into the gap, so lookups never need tombstones
+    for (int next = (gap + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+      int home = slot(keys[next]);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+    }
+    keys[gap] = FREE;
+    values[gap] = ABSENT;
+    size--;
+    return previous;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, FREE);
+    Arrays.fill(values, ABSENT);
+    zeroValue = ABSENT;
+    size = 0;
+  }
+
+  /** Bytes held by the table, for statistics. */
+  public long sizeInBytes() {
+    return 2L * Integer.BYTES * keys.length;
+  }
+
+  private int slot(int id) {
+    int hash = id * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  private void grow() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new int[oldKeys.length * 2];
+    values = new int[oldValues.length * 2];
+    mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int slot = slot(oldKeys[i]);
+        while (keys[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package mitchell.vehicleProject.index;
+
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.shard.VehicleShards;
+import mitchell.vehicleProject.snapshot.VehicleSnapshots;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Secondary index answering year/make/model filter combinations from memory. Each distinct value
+ * owns a compressed {@link RoaringBitmap} of vehicle ids, and a filter combination is the
+ * intersection of those bitmaps. An {@link IdIntMap} points every id at its (year, make, model)
+ * combination, which is what a change has to take out of the postings.
+ *
+ * <p>Enabled with {@code vehicle.index.enabled=true}; until the startup rebuild finishes {@link
+ * #find} returns empty and callers fall back to SQL.
+ */
+@Component
+@ConditionalOnProperty(name = "vehicle.index.enabled", havingValue = "true")
+@Log4j2
+public class VehicleBitmapIndex {
+
+  @Autowired private VehicleRepository vehicleRepository;
+
+  @Autowired(required = false)
+  private VehicleShards vehicleShards;
+
+  @Autowired(required = false)
+  private VehicleSnapshots vehicleSnapshots;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<Integer, RoaringBitmap> byYear = new HashMap<>();
+
+  private final Dictionary makes = new Dictionary();
+
+  private final Dictionary models = new Dictionary();
+
+  private final Map<Combination, Integer> combinationOrdinals = new HashMap<>();
+
+  private final List<Combination> combinations = new ArrayList<>();
+
+  private final IdIntMap combinationOf = new IdIntMap();
+
+  private volatile boolean ready;
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void rebuild() {
+    long start = System.nanoTime();
+    lock.writeLock().lock();
+    try {
+      ready = false;
+      byYear.clear();
+      makes.clear();
+      models.clear();
+      combinationOrdinals.clear();
+      combinations.clear();
+      combinationOf.clear();
+      Consumer<Object[]> addKey =
+          key -> add((Integer) key[0], (Integer) key[1], (String) key[2], (String) key[3]);
+      if (Objects.isNull(vehicleSnapshots) || !vehicleSnapshots.forEachKey(addKey)) {
+        VehicleShards.forEachKey(vehicleShards, vehicleRepository, addKey);
+      }
+      byYear.values().forEach(RoaringBitmap::runOptimize);
+      makes.postings.forEach(RoaringBitmap::runOptimize);
+      models.postings.forEach(RoaringBitmap::runOptimize);
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info(
+        "Vehicle bitmap index rebuilt in {} ms: {}",
+        (System.nanoTime() - start) / 1_000_000,
+        statistics());
+  }
+
+  @EventListener
+  public void onVehicleChange(VehicleChangeEvent event) {
+    lock.writeLock().lock();
+    try {
+      remove(event.getId());
+      Vehicle vehicle = event.getVehicle();
+      if (Objects.nonNull(vehicle)) {
+        add(vehicle.getId(), vehicle.getYear(), vehicle.getMake(), vehicle.getModel());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Ids matching every non-null filter, ascending; empty while the index is not ready. At least
+   * one filter must be set. Make and model match ignoring case, as the SQL filters do.
+   */
+  public Optional<int[]> find(Integer year, String make, String model) {
+    if (!ready) {
+      return Optional.empty();
+    }
+    lock.readLock().lock();
+    try {
+      List<RoaringBitmap> postings = new ArrayList<>(3);
+      if (Objects.nonNull(year)) {
+        postings.add(byYear.get(year));
+      }
+      if (Objects.nonNull(make)) {
+        postings.add(makes.postingsOf(make));
+      }
+      if (Objects.nonNull(model)) {
+        postings.add(models.postingsOf(model));
+      }
+      if (postings.contains(null)) {
+        return Optional.of(new int[0]);
+      }
+      postings.sort((a, b) -> Integer.compare(a.getCardinality(), b.getCardinality()));
+      RoaringBitmap result = postings.get(0);
+      for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+        result = RoaringBitmap.and(result, postings.get(i));
+      }
+      return Optional.of(result.toArray());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public Map<String, Object> statistics() {
+    lock.readLock().lock();
+    try {
+      long bitmapBytes = 0;
+      long vehicles = 0;
+      for (RoaringBitmap bitmap : byYear.values()) {
+        bitmapBytes += bitmap.getSizeInBytes();
+        vehicles += bitmap.getCardinality();
+      }
+      for (RoaringBitmap bitmap : makes.postings) {
+        bitmapBytes += bitmap.getSizeInBytes();
+      }
+      for (RoaringBitmap bitmap : models.postings) {
+        bitmapBytes += bitmap.getSizeInBytes();
+      }
+      Map<String, Object> statistics = new HashMap<>();
+      statistics.put("ready", ready);
+      statistics.put("vehicles", vehicles);
+      statistics.put("years", byYear.size());
+      statistics.put("makes", makes.ordinals.size());
+      statistics.put("models", models.ordinals.size());
+      statistics.put("bitmapBytes", bitmapBytes);
+      statistics.put("columnBytes", combinationOf.sizeInBytes());
+      return statistics;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void add(Integer id, Integer year, String make, String model) {
+    if (Objects.isNull(id)
+        || Objects.isNull(year)
+        || Objects.isNull(make)
+        || Objects.isNull(model)) {
+      return;
+    }
+    Combination combination = new Combination(year, makes.add(make, id), models.add(model, id));
+    Integer ordinal = combinationOrdinals.get(combination);
+    if (Objects.isNull(ordinal)) {
+      combinations.add(combination);
+      ordinal = combinations.size();
+      combinationOrdinals.put(combination, ordinal);
+    }
+    combinationOf.put(id, ordinal);
+    byYear.computeIfAbsent(year, y -> new RoaringBitmap()).add(id);
+  }
+
+  private void remove(Integer id) {
+    if (Objects.isNull(id)) {
+      return;
+    }
+    int ordinal = combinationOf.remove(id);
+    if (ordinal == IdIntMap.ABSENT) {
+      return;
+    }
+    Combination combination = combinations.get(ordinal - 1);
+    RoaringBitmap years = byYear.get(combination.getYear());
+    years.remove(id);
+    if (years.isEmpty()) {
+      byYear.remove(combination.getYear());
+    }
+    makes.remove(combination.getMake(), id);
+    models.remove(combination.getModel(), id);
+  }
+
+  @Value
+  private static class Combination {
+
+    int year;
+
+    int make;
+
+    int model;
+  }
+
+  /** Interns case-folded strings to dense ordinals, each owning the bitmap of ids that have it. */
+  private static class Dictionary {
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    private final List<RoaringBitmap> postings = new ArrayList<>();
+
+    int add(String value, int id) {
+      String key = VehicleDictionary.normalize(value);
+      Integer ordinal = ordinals.get(key);
+      if (Objects.isNull(ordinal)) {
+        postings.add(new RoaringBitmap());
+        ordinal = postings.size();
+        ordinals.put(key, ordinal);
+      }
+      postings.get(ordinal - 1).add(id);
+      return ordinal;
+    }
+
+    void remove(int ordinal, int id) {
+      postings.get(ordinal - 1).remove(id);
+    }
+
+    RoaringBitmap postingsOf(String value) {
+      Integer ordinal = ordinals.get(VehicleDictionary.normalize(value));
+      return Objects.isNull(ordinal) ? null : postings.get(ordinal - 1);
+    }
+
+    void clear() {
+      ordinals.clear();
+      postings.clear();
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package mitchell.vehicleProject.limit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit of one endpoint that follows its latency, gradient style. The shortest recent
+ * response time stands for the endpoint without queueing; while the smoothed response time stays
+ * within {@code tolerance} times that, the limit grows by about its square root per sample, and
+ * as it climbs past it the limit shrinks in proportion. A failed call cuts it by {@code
+ * backoffRatio} outright. A faster call lowers the baseline at once; otherwise it creeps toward the
+ * smoothed time by 1/{@value #BASELINE_DRIFT} per sample, as Gradient2's long-term average does. A
+ * lastingly slower database is learned over thousands of calls, but a burst of queueing is not
+ * taken for the new normal before the shrinking limit has drained it.
+ *
+ * <p>Requests over the limit wait, at most {@code queueSize} of them and for at most {@code
+ * maxWait}; past that they are turned away at once rather than piling up behind the slow ones.
+ */
+final class AdaptiveLimit {
+
+  enum Admission {
+    ADMITTED,
+    QUEUE_FULL,
+    TIMED_OUT
+  }
+
+  private static final int BASELINE_DRIFT = 5000;
+
+  private static final double SMOOTHING = 0.2;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private final int queueSize;
+
+  private final long maxWaitNanos;
+
+  private final double tolerance;
+
+  private final double backoffRatio;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition released = lock.newCondition();
+
+  private final LongAdder queueFull = new LongAdder();
+
+  private final LongAdder timedOut = new LongAdder();
+
+  private volatile double limit;
+
+  private volatile int inFlight;
+
+  private volatile int waiting;
+
+  private double baselineNanos = Double.MAX_VALUE;
+
+  private volatile double smoothedNanos;
+
+  AdaptiveLimit(
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      int queueSize,
+      Duration maxWait,
+      double tolerance,
+      double backoffRatio) {
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.queueSize = queueSize;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.tolerance = tolerance;
+    this.backoffRatio = backoffRatio;
+  }
+
+  /** Takes a slot, waiting in the queue for one if there is room; every admission is released. */
+  Admission acquire() {
+    lock.lock();
+    try {
+      if (inFlight < (int) limit) {
+        inFlight++;
+        return Admission.ADMITTED;
+      }
+      if (waiting >= queueSize) {
+        queueFull.increment();
+        return Admission.QUEUE_FULL;
+      }
+      waiting++;
+      try {
+        long nanos = maxWaitNanos;
+        while (inFlight >= (int) limit) {
+          if (nanos <= 0) {
+            timedOut.increment();
+            return Admission.TIMED_OUT;
+          }
+          nanos = released.awaitNanos(nanos);
+        }
+        inFlight++;
+        return Admission.ADMITTED;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        timedOut.increment();
+        return Admission.TIMED_OUT;
+      } finally {
+        waiting--;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Frees a slot and adapts the limit to how the call went. */
+  void release(long nanos, boolean failed) {
+    lock.lock();
+    try {
+      int previous = (int) limit;
+      boolean saturated = inFlight >= limit / 2;
+      inFlight--;
+      sample(nanos);
+      double target;
+      if (failed) {
+        target = limit * backoffRatio;
+      } else if (saturated) {
+        double gradient =
+            Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / smoothedNanos));
+        target = limit * gradient + Math.sqrt(limit);
+      } else {
+        // mostly idle: a fast call says nothing about how much more load the endpoint takes
+        target = limit;
+      }
+      limit =
+          Math.max(minLimit, Math.min(maxLimit, (1 - SMOOTHING) * limit + SMOOTHING * target));
+      if ((int) limit > previous) {
+        released.signalAll();
+      } else {
+        released.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void sample(long nanos) {
+    smoothedNanos =
+        smoothedNanos == 0 ? nanos : (1 - SMOOTHING) * smoothedNanos + SMOOTHING * nanos;
+    if (nanos < baselineNanos) {
+      baselineNanos = nanos;
+    } else if (smoothedNanos > baselineNanos) {
+      baselineNanos += (smoothedNanos - baselineNanos) / BASELINE_DRIFT;
+    }
+  }
+
+  /** Whole seconds until a slot is likely free: the queue ahead drained at the current pace. */
+  long retryAfterSeconds() {
+    double perSlotNanos = smoothedNanos / Math.max(1, limit);
+    long nanos = (long) (perSlotNanos * (waiting + 1));
+    return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1));
+  }
+
+  double getLimit() {
+    return limit;
+  }
+
+  int getInFlight() {
+    return inFlight;
+  }
+
+  int getWaiting() {
+    return waiting;
+  }
+
+  long getQueueFull() {
+    return queueFull.sum();
+  }
+
+  long getTimedOut() {
+    return timedOut.sum();
+  }
+}
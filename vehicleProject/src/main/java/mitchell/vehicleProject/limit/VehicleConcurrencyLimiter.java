@@ -0,0 +1,236 @@
+package mitchell.vehicleProject.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import mitchell.vehicleProject.controller.VehicleController;
+import mitchell.vehicleProject.exceptions.ServiceUnavailableException;
+import mitchell.vehicleProject.exceptions.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control in front of {@link VehicleController}: every endpoint, one per handler method,
+ * gets its own {@link AdaptiveLimit}, so a flood of full-table list requests can only exhaust the
+ * list endpoint's slots while single-vehicle reads and writes keep theirs. An endpoint's {@code
+ * max-limit} plus {@code queue-size} must stay below {@code server.tomcat.threads.max}, since
+ * queued requests hold a worker thread as well; startup fails otherwise.
+ *
+ * <p>A request that finds the endpoint's queue full is answered 429 straight away; one that waited
+ * {@code max-wait} without getting a slot is answered 503. Both carry a {@code Retry-After}
+ * estimated from the endpoint's current pace. A streamed or deferred response keeps its slot
+ * until its async part completes, and is sampled then; an export holds a slot for as long as it
+ * writes.
+ *
+ * <p>Publishes {@code vehicle.concurrency.limit}, {@code .in_flight} and {@code .queued} gauges
+ * and a {@code vehicle.concurrency.shed} counter per endpoint. Enabled with {@code
+ * vehicle.concurrency.enabled=true}.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "vehicle.concurrency.enabled", havingValue = "true")
+public class VehicleConcurrencyLimiter
+    implements HandlerInterceptor, WebMvcConfigurer, MeterBinder {
+
+  private static final String PERMIT = VehicleConcurrencyLimiter.class.getName() + ".PERMIT";
+
+  // every endpoint is known up front, so lookups never allocate and every meter exists from start;
+  // keyed by Method so overloads of one name never share a limit
+  private final Map<Method, AdaptiveLimit> limits = new HashMap<>();
+
+  private final Map<String, AdaptiveLimit> limitsByEndpoint = new TreeMap<>();
+
+  public VehicleConcurrencyLimiter(
+      @Value("${vehicle.concurrency.initial-limit}") int initialLimit,
+      @Value("${vehicle.concurrency.min-limit}") int minLimit,
+      @Value("${vehicle.concurrency.max-limit}") int maxLimit,
+      @Value("${vehicle.concurrency.queue-size}") int queueSize,
+      @Value("${vehicle.concurrency.max-wait}") Duration maxWait,
+      @Value("${vehicle.concurrency.tolerance}") double tolerance,
+      @Value("${vehicle.concurrency.backoff-ratio}") double backoffRatio,
+      @Value("${server.tomcat.threads.max}") int workerThreads) {
+    // a waiting request parks its worker too, so one saturated endpoint may hold at most its limit
+    // plus its queue; whatever is left keeps serving the other endpoints
+    if (maxLimit + queueSize >= workerThreads) {
+      throw new IllegalArgumentException(
+          "vehicle.concurrency.max-limit plus queue-size must be below server.tomcat.threads.max");
+    }
+    List<Method> handlers = new ArrayList<>();
+    for (Method method : VehicleController.class.getDeclaredMethods()) {
+      if (AnnotatedElementUtils.hasAnnotation(method, RequestMapping.class)) {
+        handlers.add(method);
+      }
+    }
+    for (Method method : handlers) {
+      AdaptiveLimit limit =
+          new AdaptiveLimit(
+              initialLimit, minLimit, maxLimit, queueSize, maxWait, tolerance, backoffRatio);
+      limits.put(method, limit);
+      limitsByEndpoint.put(endpoint(method, handlers), limit);
+    }
+  }
+
+  /** The method name, with its parameter types when another handler shares it. */
+  private static String endpoint(Method method, List<Method> handlers) {
+    long sameName = handlers.stream().filter(m -> m.getName().equals(method.getName())).count();
+    if (sameName == 1) {
+      return method.getName();
+    }
+    StringJoiner parameters = new StringJoiner(",", method.getName() + "(", ")");
+    for (Class<?> type : method.getParameterTypes()) {
+      parameters.add(type.getSimpleName());
+    }
+    return parameters.toString();
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(this);
+  }
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    // the redispatch of an async response still holds the permit its first dispatch took
+    if (request.getDispatcherType() == DispatcherType.ASYNC) {
+      return true;
+    }
+    AdaptiveLimit limit = limitFor(handler);
+    if (Objects.isNull(limit)) {
+      return true;
+    }
+    switch (limit.acquire()) {
+      case QUEUE_FULL:
+        throw new TooManyRequestsException(
+            "Too many requests waiting for this endpoint, retry shortly",
+            limit.retryAfterSeconds());
+      case TIMED_OUT:
+        throw new ServiceUnavailableException(
+            "This endpoint is overloaded, retry shortly", limit.retryAfterSeconds());
+      default:
+        Permit permit = new Permit(limit, System.nanoTime());
+        request.setAttribute(PERMIT, permit);
+        // registered up front: the async manager only consults interceptors present at its start
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.registerCallableInterceptor(
+            PERMIT,
+            new CallableProcessingInterceptor() {
+              @Override
+              public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                permit.release(webRequest.getNativeResponse(HttpServletResponse.class), null);
+              }
+            });
+        asyncManager.registerDeferredResultInterceptor(
+            PERMIT,
+            new DeferredResultProcessingInterceptor() {
+              @Override
+              public <T> void afterCompletion(
+                  NativeWebRequest webRequest, DeferredResult<T> deferredResult) {
+                permit.release(webRequest.getNativeResponse(HttpServletResponse.class), null);
+              }
+            });
+        return true;
+    }
+  }
+
+  // not called for a dispatch that started async processing; the interceptors above cover it
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    Permit permit = (Permit) request.getAttribute(PERMIT);
+    if (Objects.nonNull(permit)) {
+      permit.release(response, ex);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    limitsByEndpoint.forEach(
+        (endpoint, limit) -> {
+          Gauge.builder("vehicle.concurrency.limit", limit, AdaptiveLimit::getLimit)
+              .description("Concurrent requests the endpoint currently admits")
+              .tag("endpoint", endpoint)
+              .register(registry);
+          Gauge.builder("vehicle.concurrency.in_flight", limit, AdaptiveLimit::getInFlight)
+              .description("Requests the endpoint is serving")
+              .tag("endpoint", endpoint)
+              .register(registry);
+          Gauge.builder("vehicle.concurrency.queued", limit, AdaptiveLimit::getWaiting)
+              .description("Requests waiting for a slot")
+              .tag("endpoint", endpoint)
+              .register(registry);
+          FunctionCounter.builder("vehicle.concurrency.shed", limit, AdaptiveLimit::getQueueFull)
+              .description("Requests turned away without being served")
+              .tags("endpoint", endpoint, "reason", "queue_full")
+              .register(registry);
+          FunctionCounter.builder("vehicle.concurrency.shed", limit, AdaptiveLimit::getTimedOut)
+              .description("Requests turned away without being served")
+              .tags("endpoint", endpoint, "reason", "timed_out")
+              .register(registry);
+        });
+  }
+
+  private AdaptiveLimit limitFor(Object handler) {
+    if (!(handler instanceof HandlerMethod)) {
+      return null;
+    }
+    HandlerMethod handlerMethod = (HandlerMethod) handler;
+    if (!VehicleController.class.isAssignableFrom(handlerMethod.getBeanType())) {
+      return null;
+    }
+    return limits.get(handlerMethod.getMethod());
+  }
+
+  /** One admission; released once, by whichever of the completion callbacks comes first. */
+  private static class Permit {
+
+    private final AdaptiveLimit limit;
+
+    private final long start;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    Permit(AdaptiveLimit limit, long start) {
+      this.limit = limit;
+      this.start = start;
+    }
+
+    void release(HttpServletResponse response, Exception ex) {
+      if (released.compareAndSet(false, true)) {
+        boolean failed =
+            Objects.nonNull(ex) || (Objects.nonNull(response) && response.getStatus() >= 500);
+        limit.release(System.nanoTime() - start, failed);
+      }
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package mitchell.vehicleProject.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mitchell.vehicleProject.controller.VehicleController;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.service.VehicleService;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the vehicle hot paths. Every meter is registered up front and held in a field, enum
+ * map or method map, so recording is a lookup plus an increment: no tag arrays, no registry
+ * lookups and no {@code Timer.Sample} per call. Timers and row summaries publish percentile
+ * histograms, which the Prometheus endpoint exposes as buckets that can be aggregated across
+ * instances.
+ */
+@Component
+public class VehicleMetrics {
+
+  public enum Layer {
+    CONTROLLER("vehicle.controller"),
+    SERVICE("vehicle.service"),
+    REPOSITORY("vehicle.repository");
+
+    private final String meterName;
+
+    Layer(String meterName) {
+      this.meterName = meterName;
+    }
+  }
+
+  public enum Query {
+    LIST,
+    PAGE,
+    LOOKUP,
+    EXPORT
+  }
+
+  public enum Rejection {
+    MAKE_OR_MODEL_NULL,
+    MAKE_OR_MODEL_EMPTY,
+    YEAR_NULL,
+    YEAR_OUT_OF_RANGE,
+    VEHICLE_NULL,
+    EMPTY_PATCH,
+    BULK_TOO_LARGE,
+    LOOKUP_TOO_LARGE,
+    PAGE_LIMIT,
+    INVALID_CURSOR,
+    SUGGEST_LIMIT
+  }
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<Layer, Map<Method, MethodTimers>> timers = new EnumMap<>(Layer.class);
+
+  private final Map<Query, DistributionSummary> rowsFetched = new EnumMap<>(Query.class);
+
+  private final Map<Rejection, Counter> rejections = new EnumMap<>(Rejection.class);
+
+  public VehicleMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    for (Layer layer : Layer.values()) {
+      timers.put(layer, new ConcurrentHashMap<>());
+    }
+    for (Query query : Query.values()) {
+      rowsFetched.put(
+          query,
+          DistributionSummary.builder("vehicle.rows.fetched")
+              .description("Vehicles returned per query")
+              .baseUnit("rows")
+              .tag("query", query.name().toLowerCase())
+              .publishPercentileHistogram()
+              .register(meterRegistry));
+    }
+    for (Rejection rejection : Rejection.values()) {
+      rejections.put(
+          rejection,
+          Counter.builder("vehicle.validation.rejections")
+              .description("Requests rejected by validation")
+              .tag("reason", rejection.name().toLowerCase())
+              .register(meterRegistry));
+    }
+  }
+
+  @PostConstruct
+  public void registerMethods() {
+    registerMethods(Layer.CONTROLLER, VehicleController.class);
+    registerMethods(Layer.SERVICE, VehicleService.class);
+    registerMethods(Layer.REPOSITORY, VehicleRepository.class);
+  }
+
+  /** Registers the timers of every public method of {@code type} before the first call. */
+  private void registerMethods(Layer layer, Class<?> type) {
+    for (Method method : type.getMethods()) {
+      if (method.getDeclaringClass() != Object.class) {
+        timersFor(layer, method);
+      }
+    }
+  }
+
+  public void recordCall(Layer layer, Method method, long nanos, boolean failed) {
+    MethodTimers methodTimers = timersFor(layer, method);
+    (failed ? methodTimers.failure : methodTimers.success).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordRowsFetched(Query query, long rows) {
+    rowsFetched.get(query).record(rows);
+  }
+
+  public void recordRejection(Rejection rejection) {
+    rejections.get(rejection).increment();
+  }
+
+  private MethodTimers timersFor(Layer layer, Method method) {
+    Map<Method, MethodTimers> layerTimers = timers.get(layer);
+    MethodTimers methodTimers = layerTimers.get(method);
+    if (methodTimers == null) {
+      methodTimers =
+          layerTimers.computeIfAbsent(
+              method,
+              m ->
+                  new MethodTimers(
+                      timer(layer, m.getName(), "success"), timer(layer, m.getName(), "error")));
+    }
+    return methodTimers;
+  }
+
+  private Timer timer(Layer layer, String method, String outcome) {
+    return Timer.builder(layer.meterName)
+        .tag("method", method)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private static class MethodTimers {
+
+    private final Timer success;
+
+    private final Timer failure;
+
+    MethodTimers(Timer success, Timer failure) {
+      this.success = success;
+      this.failure = failure;
+    }
+  }
+}
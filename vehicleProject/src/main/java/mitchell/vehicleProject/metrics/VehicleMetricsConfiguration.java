@@ -0,0 +1,94 @@
+package mitchell.vehicleProject.metrics;
+
+import mitchell.vehicleProject.controller.VehicleController;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.service.VehicleService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times every {@link VehicleController} endpoint, every public {@link VehicleService} method and
+ * every {@link VehicleRepository} call. The endpoint timers cover the handler method alone; Spring
+ * Boot's {@code http.server.requests} adds filters, request binding and serialization, so the gap
+ * between the two is the web layer's own cost and the layers below show where the rest went.
+ * Streamed exports return before their body is written, so only the HTTP timer sees their length.
+ *
+ * <p>Plain {@link MethodInterceptor}s rather than {@code @Around} advice: the interceptor gets the
+ * {@link java.lang.reflect.Method} straight from the invocation without building a join point.
+ */
+@Configuration
+public class VehicleMetricsConfiguration {
+
+  @Bean
+  public static Advisor vehicleControllerMetricsAdvisor(ObjectProvider<VehicleMetrics> metrics) {
+    return advisor(
+        "execution(public * mitchell.vehicleProject.controller.VehicleController.*(..))",
+        new TimingInterceptor(metrics, VehicleMetrics.Layer.CONTROLLER));
+  }
+
+  @Bean
+  public static Advisor vehicleServiceMetricsAdvisor(ObjectProvider<VehicleMetrics> metrics) {
+    return advisor(
+        "execution(public * mitchell.vehicleProject.service.VehicleService.*(..))",
+        new TimingInterceptor(metrics, VehicleMetrics.Layer.SERVICE));
+  }
+
+  @Bean
+  public static Advisor vehicleRepositoryMetricsAdvisor(ObjectProvider<VehicleMetrics> metrics) {
+    return advisor(
+        "execution(* mitchell.vehicleProject.repository.VehicleRepository+.*(..))",
+        new TimingInterceptor(metrics, VehicleMetrics.Layer.REPOSITORY));
+  }
+
+  private static Advisor advisor(String expression, MethodInterceptor interceptor) {
+    AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+    pointcut.setExpression(expression);
+    return new DefaultPointcutAdvisor(pointcut, interceptor);
+  }
+
+  /**
+   * Advisors are created before the other beans so that those can be proxied; the metrics, and
+   * with them the meter registry and its filters, are resolved on the first call instead.
+   */
+  private static class TimingInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<VehicleMetrics> metricsProvider;
+
+    private final VehicleMetrics.Layer layer;
+
+    private volatile VehicleMetrics vehicleMetrics;
+
+    TimingInterceptor(ObjectProvider<VehicleMetrics> metricsProvider, VehicleMetrics.Layer layer) {
+      this.metricsProvider = metricsProvider;
+      this.layer = layer;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      long start = System.nanoTime();
+      boolean failed = true;
+      try {
+        Object result = invocation.proceed();
+        failed = false;
+        return result;
+      } finally {
+        metrics().recordCall(layer, invocation.getMethod(), System.nanoTime() - start, failed);
+      }
+    }
+
+    private VehicleMetrics metrics() {
+      VehicleMetrics metrics = vehicleMetrics;
+      if (metrics == null) {
+        metrics = metricsProvider.getObject();
+        vehicleMetrics = metrics;
+      }
+      return metrics;
+    }
+  }
+}
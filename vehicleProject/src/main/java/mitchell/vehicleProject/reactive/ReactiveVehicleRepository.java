@@ -0,0 +1,213 @@
+package mitchell.vehicleProject.reactive;
+
+import io.r2dbc.spi.Row;
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.dictionary.VehicleDictionary.Kind;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The vehicle queries of {@link mitchell.vehicleProject.repository.VehicleRepository} over R2DBC,
+ * for the {@code reactive} profile. Same table, same SQL shapes: the conditional update is the
+ * same guarded {@code UPDATE} followed by a read of the row, and pages seek past an id instead of
+ * offsetting.
+ *
+ * <p>The insert takes its id from {@code vehicle_seq} inside the statement. The entity's pooled-lo
+ * optimizer only ever uses ids starting at values it fetched itself, so the two stacks never
+ * collide; each insert here spends a whole allocation of the sequence. Make and model are stored
+ * as {@link VehicleDictionary} keys like the entity mapping does; adding a new spelling is the one
+ * blocking call, and it runs off the event loop.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveVehicleRepository {
+
+  private static final String COLUMNS = "id, year, make_id, model_id, version";
+
+  @Autowired private DatabaseClient databaseClient;
+
+  @Autowired private VehicleDictionary vehicleDictionary;
+
+  public Mono<Vehicle> insert(Vehicle vehicle) {
+    return Mono.zip(keyOf(Kind.MAKE, vehicle.getMake()), keyOf(Kind.MODEL, vehicle.getModel()))
+        .flatMap(
+            keys ->
+                databaseClient
+                    .execute(
+                        "select id from final table (insert into vehicle"
+                            + " (id, year, make_id, model_id, version)"
+                            + " values (next value for vehicle_seq, :year, :makeId, :modelId, 0))")
+                    .bind("year", vehicle.getYear())
+                    .bind("makeId", keys.getT1().get())
+                    .bind("modelId", keys.getT2().get())
+                    .map(row -> row.get("id", Integer.class))
+                    .one()
+                    .map(
+                        id -> {
+                          vehicle.setId(id);
+                          vehicle.setVersion(0);
+                          return vehicle;
+                        }));
+  }
+
+  public Mono<Vehicle> findById(Integer id) {
+    return databaseClient
+        .execute("select " + COLUMNS + " from vehicle where id = :id")
+        .bind("id", id)
+        .map(this::toVehicle)
+        .one();
+  }
+
+  public Mono<Long> findVersionById(Integer id) {
+    return databaseClient
+        .execute("select version from vehicle where id = :id")
+        .bind("id", id)
+        .map(row -> row.get("version", Long.class))
+        .one();
+  }
+
+  /**
+   * Vehicles matching every non-null filter after {@code afterId} (all when {@code null}), in id
+   * order, at most {@code limit} of them when {@code limit} is positive. Make and model match
+   * ignoring case.
+   */
+  public Flux<Vehicle> findMatching(
+      Integer year, String make, String model, Integer afterId, int limit) {
+    List<String> conditions = new ArrayList<>(4);
+    Map<String, Object> bindings = new LinkedHashMap<>();
+    if (Objects.nonNull(year)) {
+      conditions.add("year = :year");
+      bindings.put("year", year);
+    }
+    if (Objects.nonNull(make)) {
+      List<Integer> makeIds = vehicleDictionary.idsMatching(Kind.MAKE, make);
+      if (makeIds.isEmpty()) {
+        return Flux.empty();
+      }
+      conditions.add("make_id in (:makeIds)");
+      bindings.put("makeIds", makeIds);
+    }
+    if (Objects.nonNull(model)) {
+      List<Integer> modelIds = vehicleDictionary.idsMatching(Kind.MODEL, model);
+      if (modelIds.isEmpty()) {
+        return Flux.empty();
+      }
+      conditions.add("model_id in (:modelIds)");
+      bindings.put("modelIds", modelIds);
+    }
+    if (Objects.nonNull(afterId)) {
+      conditions.add("id > :afterId");
+      bindings.put("afterId", afterId);
+    }
+    StringBuilder sql = new StringBuilder("select ").append(COLUMNS).append(" from vehicle");
+    if (!conditions.isEmpty()) {
+      sql.append(" where ").append(String.join(" and ", conditions));
+    }
+    sql.append(" order by id");
+    if (limit > 0) {
+      sql.append(" limit :limit");
+      bindings.put("limit", limit);
+    }
+
+    DatabaseClient.GenericExecuteSpec query = databaseClient.execute(sql.toString());
+    for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+      query = query.bind(binding.getKey(), binding.getValue());
+    }
+    return query.map(this::toVehicle).all();
+  }
+
+  /** See {@code VehicleRepositoryCustomImpl#updateIfMatch}; empty when no row matched. */
+  public Mono<Vehicle> updateIfMatch(
+      Integer id, Long expectedVersion, Integer year, String make, String model) {
+    return Mono.zip(keyOf(Kind.MAKE, make), keyOf(Kind.MODEL, model))
+        .flatMap(keys -> updateIfMatch(id, expectedVersion, year, keys.getT1(), keys.getT2()));
+  }
+
+  private Mono<Vehicle> updateIfMatch(
+      Integer id,
+      Long expectedVersion,
+      Integer year,
+      Optional<Integer> makeId,
+      Optional<Integer> modelId) {
+    StringBuilder sql = new StringBuilder("update vehicle set version = version + 1");
+    if (Objects.nonNull(year)) {
+      sql.append(", year = :year");
+    }
+    if (makeId.isPresent()) {
+      sql.append(", make_id = :makeId");
+    }
+    if (modelId.isPresent()) {
+      sql.append(", model_id = :modelId");
+    }
+    sql.append(" where id = :id");
+    if (Objects.nonNull(expectedVersion)) {
+      sql.append(" and version = :version");
+    }
+
+    DatabaseClient.GenericExecuteSpec query =
+        databaseClient.execute(sql.toString()).bind("id", id);
+    if (Objects.nonNull(expectedVersion)) {
+      query = query.bind("version", expectedVersion);
+    }
+    if (Objects.nonNull(year)) {
+      query = query.bind("year", year);
+    }
+    if (makeId.isPresent()) {
+      query = query.bind("makeId", makeId.get());
+    }
+    if (modelId.isPresent()) {
+      query = query.bind("modelId", modelId.get());
+    }
+    // outside a transaction the read may already see a later writer's row; its version and body
+    // still belong together, which is all the ETag needs
+    return query
+        .fetch()
+        .rowsUpdated()
+        .filter(updated -> updated > 0)
+        .flatMap(updated -> findById(id));
+  }
+
+  public Mono<Integer> deleteById(Integer id) {
+    return databaseClient
+        .execute("delete from vehicle where id = :id")
+        .bind("id", id)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  /** Dictionary key of {@code name}, empty for {@code null}; a new spelling is added off-loop. */
+  private Mono<Optional<Integer>> keyOf(Kind kind, String name) {
+    if (Objects.isNull(name)) {
+      return Mono.just(Optional.empty());
+    }
+    Optional<Integer> known = vehicleDictionary.find(kind, name);
+    if (known.isPresent()) {
+      return Mono.just(known);
+    }
+    return Mono.fromCallable(() -> Optional.of(vehicleDictionary.idOf(kind, name)))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  private Vehicle toVehicle(Row row) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(row.get("id", Integer.class));
+    vehicle.setYear(row.get("year", Integer.class));
+    vehicle.setMake(vehicleDictionary.nameOf(Kind.MAKE, row.get("make_id", Integer.class)));
+    vehicle.setModel(vehicleDictionary.nameOf(Kind.MODEL, row.get("model_id", Integer.class)));
+    vehicle.setVersion(row.get("version", Long.class));
+    return vehicle;
+  }
+}
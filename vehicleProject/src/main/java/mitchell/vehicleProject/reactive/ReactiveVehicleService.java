@@ -0,0 +1,147 @@
+package mitchell.vehicleProject.reactive;
+
+import mitchell.vehicleProject.cache.VehicleCache;
+import mitchell.vehicleProject.dto.VehiclePage;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.metrics.VehicleMetrics;
+import mitchell.vehicleProject.metrics.VehicleMetrics.Query;
+import mitchell.vehicleProject.service.VehicleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * {@link VehicleService} for the {@code reactive} profile. Validation is delegated to it so both
+ * modes reject the same requests with the same messages, and every write publishes the same
+ * {@link VehicleChangeEvent} so the cache, facets and change feed stay current either way.
+ *
+ * <p>Reads use the cached copy when there is one but never populate the cache: a row read here
+ * could be overwritten and invalidated before it was stored. The write-behind queue and bitmap
+ * index stay with the servlet stack.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveVehicleService {
+
+  @Autowired private ReactiveVehicleRepository reactiveVehicleRepository;
+
+  @Autowired private VehicleService vehicleService;
+
+  @Autowired private VehicleCache vehicleCache;
+
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
+  @Autowired private VehicleMetrics vehicleMetrics;
+
+  public Mono<Vehicle> createVehicle(Vehicle vehicle) {
+    return Mono.fromRunnable(() -> vehicleService.checkVehicleRequest(vehicle))
+        .then(Mono.defer(() -> reactiveVehicleRepository.insert(vehicle)))
+        .doOnNext(created -> publish(VehicleChangeEvent.Type.CREATED, created));
+  }
+
+  public Mono<List<Vehicle>> getVehicles(
+      Optional<Integer> year, Optional<String> make, Optional<String> model) {
+    return reactiveVehicleRepository
+        .findMatching(year.orElse(null), make.orElse(null), model.orElse(null), null, 0)
+        .collectList()
+        .doOnNext(vehicles -> vehicleMetrics.recordRowsFetched(Query.LIST, vehicles.size()));
+  }
+
+  public Mono<VehiclePage> getVehiclePage(
+      Optional<Integer> year,
+      Optional<String> make,
+      Optional<String> model,
+      Optional<String> after,
+      int limit) {
+    return Mono.fromCallable(
+            () -> Optional.ofNullable(vehicleService.checkPageRequest(after, limit)))
+        .flatMap(
+            afterId ->
+                reactiveVehicleRepository
+                    .findMatching(
+                        year.orElse(null),
+                        make.orElse(null),
+                        model.orElse(null),
+                        afterId.orElse(null),
+                        limit + 1)
+                    .collectList())
+        .doOnNext(vehicles -> vehicleMetrics.recordRowsFetched(Query.PAGE, vehicles.size()))
+        .map(vehicles -> vehicleService.toPage(vehicles, limit));
+  }
+
+  public Mono<Vehicle> getVehicle(Integer id) {
+    Optional<Vehicle> cachedVehicle = vehicleCache.getIfPresent(id);
+    if (cachedVehicle.isPresent()) {
+      return Mono.just(cachedVehicle.get());
+    }
+    return reactiveVehicleRepository
+        .findById(id)
+        .switchIfEmpty(notFound(id));
+  }
+
+  /** Empty when the vehicle does not exist. */
+  public Mono<Long> getVehicleVersion(Integer id) {
+    Optional<Vehicle> cachedVehicle = vehicleCache.getIfPresent(id);
+    if (cachedVehicle.isPresent()) {
+      return Mono.just(cachedVehicle.get().getVersion());
+    }
+    return reactiveVehicleRepository.findVersionById(id);
+  }
+
+  public Mono<Vehicle> updateVehicle(Vehicle vehicle, Optional<Long> expectedVersion) {
+    return Mono.fromRunnable(() -> vehicleService.checkVehicleRequest(vehicle))
+        .then(Mono.defer(() -> update(vehicle.getId(), expectedVersion, vehicle)));
+  }
+
+  public Mono<Vehicle> patchVehicle(Integer id, Vehicle patch, Optional<Long> expectedVersion) {
+    return Mono.fromRunnable(() -> vehicleService.checkVehiclePatch(patch))
+        .then(Mono.defer(() -> update(id, expectedVersion, patch)));
+  }
+
+  private Mono<Vehicle> update(Integer id, Optional<Long> expectedVersion, Vehicle values) {
+    if (Objects.isNull(id)) {
+      return Mono.error(VehicleService.vehicleNotFound(id));
+    }
+    return reactiveVehicleRepository
+        .updateIfMatch(
+            id, expectedVersion.orElse(null), values.getYear(), values.getMake(), values.getModel())
+        .switchIfEmpty(
+            // failure path only: tell a missing row from a lost race
+            reactiveVehicleRepository
+                .findVersionById(id)
+                .switchIfEmpty(notFound(id))
+                .flatMap(
+                    version ->
+                        Mono.<Vehicle>error(
+                            VehicleService.versionConflict(id, version, expectedVersion))))
+        .doOnNext(updated -> publish(VehicleChangeEvent.Type.UPDATED, updated));
+  }
+
+  public Mono<Void> deleteVehicle(Integer id) {
+    return reactiveVehicleRepository
+        .deleteById(id)
+        .flatMap(
+            deleted ->
+                deleted == 0 ? ReactiveVehicleService.<Integer>notFound(id) : Mono.just(deleted))
+        .doOnNext(
+            deleted ->
+                eventPublisher.publishEvent(
+                    new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, id, null)))
+        .then();
+  }
+
+  private static <T> Mono<T> notFound(Integer id) {
+    return Mono.defer(() -> Mono.error(VehicleService.vehicleNotFound(id)));
+  }
+
+  private void publish(VehicleChangeEvent.Type type, Vehicle vehicle) {
+    eventPublisher.publishEvent(new VehicleChangeEvent(type, vehicle.getId(), vehicle));
+  }
+}
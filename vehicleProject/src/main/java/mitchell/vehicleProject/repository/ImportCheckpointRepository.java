@@ -0,0 +1,8 @@
+package mitchell.vehicleProject.repository;
+
+import mitchell.vehicleProject.entity.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {}
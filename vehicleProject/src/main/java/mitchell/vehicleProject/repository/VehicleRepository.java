@@ -2,11 +2,47 @@ package mitchell.vehicleProject.repository;
 
 import mitchell.vehicleProject.entity.Vehicle;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface VehicleRepository extends JpaRepository<Vehicle, Integer> {
+public interface VehicleRepository
+    extends JpaRepository<Vehicle, Integer>,
+        JpaSpecificationExecutor<Vehicle>,
+        VehicleRepositoryCustom {
+
+  /** Streams {@code [id, year, make, model]} tuples without hydrating entities. */
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("select v.id, v.year, v.make, v.model from Vehicle v")
+  Stream<Object[]> streamKeys();
+
+  /** {@code [year, make, model, count]} for every distinct combination. */
+  @Query(
+      "select v.year, v.make, v.model, count(v) from Vehicle v"
+          + " group by v.year, v.make, v.model")
+  List<Object[]> countByYearMakeModel();
+
+  /** Streams {@code [id, year, make, model, version]} tuples in id order. */
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("select v.id, v.year, v.make, v.model, v.version from Vehicle v order by v.id")
+  Stream<Object[]> streamRows();
+
+  /**
+   * One {@code [count, sum of ids, sum of versions]} row. Creating, deleting or updating any
+   * vehicle changes it.
+   */
+  @Query("select count(v), coalesce(sum(v.id), 0), coalesce(sum(v.version), 0) from Vehicle v")
+  List<Object[]> fingerprint();
+
+  /** The row version alone, for revalidating a cached copy without loading the entity. */
+  @Query("select v.version from Vehicle v where v.id = :id")
+  Optional<Long> findVersionById(@Param("id") Integer id);
 }
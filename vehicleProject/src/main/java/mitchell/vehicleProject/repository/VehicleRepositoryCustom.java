@@ -0,0 +1,36 @@
+package mitchell.vehicleProject.repository;
+
+import mitchell.vehicleProject.entity.Vehicle;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface VehicleRepositoryCustom {
+
+  /**
+   * Keyset page: rows matching {@code specification} with an id strictly greater than {@code
+   * afterId}, ordered by id. Seeks on the primary key, so deep pages cost the same as the first.
+   */
+  List<Vehicle> findPageAfter(Specification<Vehicle> specification, Integer afterId, int limit);
+
+  /**
+   * Cursor over the rows matching {@code specification}, read {@code fetchSize} rows per round
+   * trip. The persistence context is cleared every {@code clearInterval} rows so the heap stays
+   * flat however large the table is. Must be consumed inside a transaction and closed afterwards.
+   */
+  Stream<Vehicle> streamMatching(
+      Specification<Vehicle> specification, int fetchSize, int clearInterval);
+
+  /**
+   * Sets whichever of {@code year}, {@code make} and {@code model} are non-null and bumps the
+   * version, returning the new row from the same round trip. With {@code expectedVersion} the
+   * update only applies while the row is still at that version. Empty when no row was updated,
+   * because the id does not exist or the version moved on.
+   */
+  @Transactional
+  Optional<Vehicle> updateIfMatch(
+      Integer id, Long expectedVersion, Integer year, String make, String model);
+}
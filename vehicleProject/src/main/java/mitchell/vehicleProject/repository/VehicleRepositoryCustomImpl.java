@@ -0,0 +1,137 @@
+package mitchell.vehicleProject.repository;
+
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.dictionary.VehicleDictionary.Kind;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class VehicleRepositoryCustomImpl implements VehicleRepositoryCustom {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Autowired private VehicleDictionary vehicleDictionary;
+
+  @Override
+  public List<Vehicle> findPageAfter(
+      Specification<Vehicle> specification, Integer afterId, int limit) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Vehicle> query = builder.createQuery(Vehicle.class);
+    Root<Vehicle> root = query.from(Vehicle.class);
+
+    Specification<Vehicle> page = Specification.where(specification);
+    if (Objects.nonNull(afterId)) {
+      page = page.and((vehicle, q, b) -> b.greaterThan(vehicle.<Integer>get("id"), afterId));
+    }
+    Predicate predicate = page.toPredicate(root, query, builder);
+    if (Objects.nonNull(predicate)) {
+      query.where(predicate);
+    }
+    query.orderBy(builder.asc(root.get("id")));
+
+    return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+  }
+
+  @Override
+  public Stream<Vehicle> streamMatching(
+      Specification<Vehicle> specification, int fetchSize, int clearInterval) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Vehicle> query = builder.createQuery(Vehicle.class);
+    Root<Vehicle> root = query.from(Vehicle.class);
+    Predicate predicate = Specification.where(specification).toPredicate(root, query, builder);
+    if (Objects.nonNull(predicate)) {
+      query.where(predicate);
+    }
+
+    AtomicLong rows = new AtomicLong();
+    return entityManager
+        .createQuery(query)
+        .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+        .setHint(QueryHints.HINT_READONLY, true)
+        .getResultStream()
+        .peek(
+            vehicle -> {
+              if (rows.incrementAndGet() % clearInterval == 0) {
+                entityManager.clear();
+              }
+            });
+  }
+
+  /**
+   * One round trip: a locking read of the row as the guarded {@code UPDATE} will leave it, followed
+   * by that {@code UPDATE}, sent as a single H2 command. The read takes the row lock first, so
+   * nothing can move the row between the two and the returned state is exactly what was written;
+   * no row read means nothing was updated. H2's {@code FINAL TABLE} would be the direct form, but
+   * 1.4.200 sometimes returns the old row from it and drops the update.
+   *
+   * <p>The row comes back as scalars rather than mapped onto the entity: Hibernate would hand back
+   * the instance already in the persistence context, with the old version, if this session had
+   * loaded the vehicle before. The result is a detached copy and never managed.
+   */
+  @Override
+  public Optional<Vehicle> updateIfMatch(
+      Integer id, Long expectedVersion, Integer year, String make, String model) {
+    String where =
+        Objects.nonNull(expectedVersion)
+            ? " where id = :id and version = :version"
+            : " where id = :id";
+    StringBuilder sql = new StringBuilder("select id");
+    sql.append(Objects.nonNull(year) ? ", :year" : ", year");
+    sql.append(Objects.nonNull(make) ? ", :makeId" : ", make_id");
+    sql.append(Objects.nonNull(model) ? ", :modelId" : ", model_id");
+    sql.append(", version + 1 from vehicle").append(where).append(" for update;");
+    sql.append(" update vehicle set version = version + 1");
+    if (Objects.nonNull(year)) {
+      sql.append(", year = :year");
+    }
+    if (Objects.nonNull(make)) {
+      sql.append(", make_id = :makeId");
+    }
+    if (Objects.nonNull(model)) {
+      sql.append(", model_id = :modelId");
+    }
+    sql.append(where);
+
+    Query query = entityManager.createNativeQuery(sql.toString());
+    query.setParameter("id", id);
+    if (Objects.nonNull(expectedVersion)) {
+      query.setParameter("version", expectedVersion);
+    }
+    if (Objects.nonNull(year)) {
+      query.setParameter("year", year);
+    }
+    if (Objects.nonNull(make)) {
+      query.setParameter("makeId", vehicleDictionary.idOf(Kind.MAKE, make));
+    }
+    if (Objects.nonNull(model)) {
+      query.setParameter("modelId", vehicleDictionary.idOf(Kind.MODEL, model));
+    }
+    @SuppressWarnings("unchecked")
+    List<Object[]> updated = query.getResultList();
+    return updated.stream().findFirst().map(this::toVehicle);
+  }
+
+  private Vehicle toVehicle(Object[] row) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(((Number) row[0]).intValue());
+    vehicle.setYear(((Number) row[1]).intValue());
+    vehicle.setMake(vehicleDictionary.nameOf(Kind.MAKE, ((Number) row[2]).intValue()));
+    vehicle.setModel(vehicleDictionary.nameOf(Kind.MODEL, ((Number) row[3]).intValue()));
+    vehicle.setVersion(((Number) row[4]).longValue());
+    return vehicle;
+  }
+}
@@ -0,0 +1,55 @@
+package mitchell.vehicleProject.repository;
+
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.dictionary.VehicleDictionary.Kind;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public final class VehicleSpecifications {
+
+  private VehicleSpecifications() {}
+
+  /**
+   * Builds a single conjunctive predicate from whichever of the filters are set, so any mix of
+   * year/make/model is answered by one indexed query instead of filtering {@code findAll()}.
+   * Make and model match ignoring case: each becomes the dictionary keys of its spellings, so the
+   * query compares int columns and a spelling nobody has used rules out every row up front.
+   */
+  public static Specification<Vehicle> matching(
+      VehicleDictionary dictionary, Integer year, String make, String model) {
+    return (root, query, builder) -> {
+      List<Predicate> predicates = new ArrayList<>(3);
+      if (Objects.nonNull(year)) {
+        predicates.add(builder.equal(root.get("year"), year));
+      }
+      if (Objects.nonNull(make)) {
+        predicates.add(
+            anyOf(builder, root.get("make"), dictionary.spellingsOf(Kind.MAKE, make)));
+      }
+      if (Objects.nonNull(model)) {
+        predicates.add(
+            anyOf(builder, root.get("model"), dictionary.spellingsOf(Kind.MODEL, model)));
+      }
+      return builder.and(predicates.toArray(new Predicate[0]));
+    };
+  }
+
+  // the attribute's converter turns each spelling into its key when the values are bound
+  private static Predicate anyOf(
+      CriteriaBuilder builder, Expression<String> attribute, List<String> spellings) {
+    if (spellings.isEmpty()) {
+      return builder.disjunction();
+    }
+    if (spellings.size() == 1) {
+      return builder.equal(attribute, spellings.get(0));
+    }
+    return attribute.in(spellings);
+  }
+}
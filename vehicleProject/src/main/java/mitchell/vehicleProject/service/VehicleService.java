@@ -1,16 +1,55 @@
 package mitchell.vehicleProject.service;
 
 import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.cache.VehicleCache;
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.dto.VehicleBulkError;
+import mitchell.vehicleProject.dto.VehicleBulkResult;
+import mitchell.vehicleProject.dto.VehicleLookupResult;
+import mitchell.vehicleProject.dto.VehiclePage;
 import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
 import mitchell.vehicleProject.exceptions.BadRequestException;
+import mitchell.vehicleProject.exceptions.PreconditionFailedException;
+import mitchell.vehicleProject.exceptions.ServiceUnavailableException;
+import mitchell.vehicleProject.index.VehicleBitmapIndex;
+import mitchell.vehicleProject.metrics.VehicleMetrics;
+import mitchell.vehicleProject.metrics.VehicleMetrics.Query;
+import mitchell.vehicleProject.metrics.VehicleMetrics.Rejection;
 import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.repository.VehicleSpecifications;
+import mitchell.vehicleProject.shard.VehicleShards;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Log4j2
@@ -19,75 +58,531 @@ public class VehicleService {
   @Autowired
   private VehicleRepository vehicleRepository;
 
-  private void checkVehicleRequest(Vehicle vehicle) {
+  @Autowired
+  private VehicleCache vehicleCache;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private VehicleMetrics vehicleMetrics;
+
+  @Autowired
+  private VehicleDictionary vehicleDictionary;
+
+  @Autowired(required = false)
+  private VehicleBitmapIndex vehicleBitmapIndex;
+
+  @Autowired(required = false)
+  private VehicleWriteBehindQueue vehicleWriteBehindQueue;
+
+  @Autowired(required = false)
+  private VehicleShards vehicleShards;
+
+  @Value("${vehicle.write-behind.timeout}")
+  private Duration writeBehindTimeout;
+
+  @Value("${vehicle.pagination.max-limit}")
+  private int maxPageLimit;
+
+  @Value("${vehicle.suggest.max-limit}")
+  private int maxSuggestLimit;
+
+  @Value("${vehicle.export.fetch-size}")
+  private int exportFetchSize;
+
+  @Value("${vehicle.export.clear-interval}")
+  private int exportClearInterval;
+
+  @Value("${vehicle.bulk.max-size}")
+  private int maxBulkSize;
+
+  @Value("${vehicle.bulk.batch-size}")
+  private int bulkBatchSize;
+
+  @Value("${vehicle.index.resolve-batch-size}")
+  private int indexResolveBatchSize;
+
+  @Value("${vehicle.lookup.max-ids}")
+  private int maxLookupIds;
+
+  @Value("${vehicle.lookup.batch-size}")
+  private int lookupBatchSize;
+
+  public void checkVehicleRequest(Vehicle vehicle) {
     if (Objects.isNull(vehicle.getMake()) || Objects.isNull(vehicle.getModel())) {
-      throw new BadRequestException("Make or Model cannot be null");
+      throw rejected(Rejection.MAKE_OR_MODEL_NULL, "Make or Model cannot be null");
     }
     if (vehicle.getMake().isEmpty() || vehicle.getModel().isEmpty()) {
-      throw new BadRequestException("Make or Model cannot be empty");
+      throw rejected(Rejection.MAKE_OR_MODEL_EMPTY, "Make or Model cannot be empty");
+    }
+    if (Objects.isNull(vehicle.getYear())) {
+      throw rejected(Rejection.YEAR_NULL, "Year cannot be null");
     }
     if (vehicle.getYear() > 2050 || vehicle.getYear() < 1950) {
-      throw new BadRequestException("Year must be between 1950 and 2050");
+      throw rejected(Rejection.YEAR_OUT_OF_RANGE, "Year must be between 1950 and 2050");
     }
   }
 
+  private BadRequestException rejected(Rejection rejection, String message) {
+    vehicleMetrics.recordRejection(rejection);
+    return new BadRequestException(message);
+  }
+
   public void createVehicle(Vehicle vehicle) {
     checkVehicleRequest(vehicle);
-    Vehicle savedObject =  vehicleRepository.save(vehicle);
+    // always an insert: a client-supplied id would turn save() into a versioned merge
+    vehicle.setId(null);
+    if (Objects.nonNull(vehicleWriteBehindQueue)) {
+      awaitWriteBehind(vehicleWriteBehindQueue.submit(vehicle));
+      return;
+    }
+    Vehicle savedObject =
+        Objects.isNull(vehicleShards)
+            ? vehicleRepository.save(vehicle)
+            : vehicleShards.on(
+                vehicleShards.shardFor(vehicle), false, () -> vehicleRepository.save(vehicle));
+    publish(VehicleChangeEvent.Type.CREATED, savedObject);
+  }
+
+  /** Blocks only until the batch holding this create commits, typically a few milliseconds. */
+  private void awaitWriteBehind(CompletableFuture<Vehicle> created) {
+    try {
+      created.get(writeBehindTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("Interrupted while waiting for the vehicle to commit");
+    } catch (TimeoutException e) {
+      throw new ServiceUnavailableException(
+          "Vehicle creation is taking too long; it may still be applied");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof RuntimeException
+          ? (RuntimeException) cause
+          : new IllegalStateException(cause);
+    }
+  }
+
+  public VehicleBulkResult createVehicles(List<Vehicle> vehicles) {
+    if (vehicles.size() > maxBulkSize) {
+      throw rejected(
+          Rejection.BULK_TOO_LARGE,
+          String.format("At most %d vehicles can be created at once", maxBulkSize));
+    }
+    List<VehicleBulkError> errors = new ArrayList<>();
+    List<Vehicle> validVehicles = new ArrayList<>(vehicles.size());
+    for (int index = 0; index < vehicles.size(); index++) {
+      Vehicle vehicle = vehicles.get(index);
+      if (Objects.isNull(vehicle)) {
+        vehicleMetrics.recordRejection(Rejection.VEHICLE_NULL);
+        errors.add(new VehicleBulkError(index, "Vehicle cannot be null"));
+        continue;
+      }
+      try {
+        checkVehicleRequest(vehicle);
+      } catch (BadRequestException e) {
+        errors.add(new VehicleBulkError(index, e.getMessage()));
+        continue;
+      }
+      vehicle.setId(null);
+      validVehicles.add(vehicle);
+    }
+
+    List<Integer> ids = new ArrayList<>(validVehicles.size());
+    for (List<Vehicle> batch : batches(validVehicles, bulkBatchSize)) {
+      for (Vehicle savedVehicle : saveAll(batch)) {
+        ids.add(savedVehicle.getId());
+        publish(VehicleChangeEvent.Type.CREATED, savedVehicle);
+      }
+    }
+    return new VehicleBulkResult(vehicles.size(), ids.size(), ids, errors);
+  }
+
+  private List<Vehicle> saveAll(List<Vehicle> batch) {
+    if (Objects.isNull(vehicleShards)) {
+      return vehicleRepository.saveAll(batch);
+    }
+    Map<Integer, List<Vehicle>> byShard = new HashMap<>();
+    for (Vehicle vehicle : batch) {
+      byShard.computeIfAbsent(vehicleShards.shardFor(vehicle), s -> new ArrayList<>()).add(vehicle);
+    }
+    // each shard commits on its own, so a failure part way undoes the shards already committed
+    // rather than leave part of the batch behind; a crash between the two can still do that
+    Map<Integer, List<Vehicle>> committed = new HashMap<>();
+    try {
+      byShard.forEach(
+          (shard, vehicles) -> {
+            vehicleShards.on(shard, false, () -> vehicleRepository.saveAll(vehicles));
+            committed.put(shard, vehicles);
+          });
+    } catch (RuntimeException e) {
+      committed.forEach(
+          (shard, vehicles) ->
+              vehicleShards.on(
+                  shard,
+                  false,
+                  () -> {
+                    vehicleRepository.deleteInBatch(vehicles);
+                    return null;
+                  }));
+      throw e;
+    }
+    // new vehicles are persisted in place, so the batch now carries their ids in request order
+    return batch;
+  }
+
+  private static <T> List<List<T>> batches(List<T> items, int batchSize) {
+    List<List<T>> batches = new ArrayList<>();
+    for (int from = 0; from < items.size(); from += batchSize) {
+      batches.add(items.subList(from, Math.min(from + batchSize, items.size())));
+    }
+    return batches;
   }
 
   public List<Vehicle> getVehicles(
       Optional<Integer> year, Optional<String> make, Optional<String> model) {
 
-    Integer vehicleYear = year.orElse(null);
-    String vehicleMake = make.orElse(null);
-    String vehicleModel = model.orElse(null);
-    List<Vehicle> vehicles = vehicleRepository.findAll();
-    if (Objects.isNull(vehicleYear)
-        && Objects.isNull(vehicleMake)
-        && Objects.isNull(vehicleModel)) {
-      return vehicles;
-    }
-    if (Objects.nonNull(vehicleYear)) {
-      vehicles =
-          vehicles.stream()
-              .filter(vehicle -> vehicleYear.equals(vehicle.getYear()))
-              .collect(Collectors.toList());
-    }
-    if (Objects.nonNull(vehicleMake)) {
-      vehicles =
-          vehicles.stream()
-              .filter(vehicle -> vehicleMake.equals(vehicle.getMake()))
-              .collect(Collectors.toList());
-    }
-    if (Objects.nonNull(vehicleModel)) {
-      vehicles =
-          vehicles.stream()
-              .filter(vehicle -> vehicleModel.equals(vehicle.getModel()))
-              .collect(Collectors.toList());
+    List<Vehicle> vehicles = findVehicles(year.orElse(null), make.orElse(null), model.orElse(null));
+    vehicleMetrics.recordRowsFetched(Query.LIST, vehicles.size());
+    return vehicles;
+  }
+
+  private List<Vehicle> findVehicles(Integer year, String make, String model) {
+    if (Objects.isNull(year) && Objects.isNull(make) && Objects.isNull(model)) {
+      if (Objects.nonNull(vehicleShards)) {
+        return findOnEachShard(null);
+      }
+      return vehicleRepository.findAll();
+    }
+    if (Objects.nonNull(vehicleBitmapIndex)) {
+      Optional<int[]> ids = vehicleBitmapIndex.find(year, make, model);
+      if (ids.isPresent()) {
+        return findAllById(ids.get());
+      }
+    }
+    Specification<Vehicle> specification =
+        VehicleSpecifications.matching(vehicleDictionary, year, make, model);
+    if (Objects.nonNull(vehicleShards)) {
+      return findOnEachShard(specification);
+    }
+    return vehicleRepository.findAll(specification);
+  }
+
+  /** Every shard sorts its own matches by id, so merging them is a single pass. */
+  private List<Vehicle> findOnEachShard(Specification<Vehicle> specification) {
+    return VehicleShards.mergeById(
+        vehicleShards.onEach(
+            true, shard -> vehicleRepository.findAll(specification, Sort.by("id"))),
+        Integer.MAX_VALUE);
+  }
+
+  private List<Vehicle> findByIds(List<Integer> ids) {
+    if (Objects.isNull(vehicleShards)) {
+      return vehicleRepository.findAllById(ids);
+    }
+    List<List<Integer>> idsByShard = vehicleShards.partition(ids);
+    List<Vehicle> vehicles = new ArrayList<>(ids.size());
+    vehicleShards
+        .onEach(
+            true,
+            shard ->
+                idsByShard.get(shard).isEmpty()
+                    ? Collections.<Vehicle>emptyList()
+                    : vehicleRepository.findAllById(idsByShard.get(shard)))
+        .forEach(vehicles::addAll);
+    return vehicles;
+  }
+
+  /** Runs {@code work} on the shard holding {@code id}; directly when there are no shards. */
+  private <T> T onShardOf(Integer id, boolean readOnly, Supplier<T> work) {
+    if (Objects.isNull(vehicleShards)) {
+      return work.get();
+    }
+    return vehicleShards.on(vehicleShards.shardOf(id), readOnly, work);
+  }
+
+  private List<Vehicle> findAllById(int[] ids) {
+    List<Integer> boxedIds = new ArrayList<>(ids.length);
+    for (int id : ids) {
+      boxedIds.add(id);
     }
+    List<Vehicle> vehicles = new ArrayList<>(ids.length);
+    for (List<Integer> batch : batches(boxedIds, indexResolveBatchSize)) {
+      vehicles.addAll(findByIds(batch));
+    }
+    vehicles.sort(Comparator.comparing(Vehicle::getId));
     return vehicles;
   }
 
+  /**
+   * Many vehicles by id in one call: ids already in the cache are answered from it, the rest are
+   * fetched with IN-list queries of at most {@code lookup.batch-size} ids each.
+   */
+  public VehicleLookupResult getVehiclesById(List<Integer> ids) {
+    LinkedHashSet<Integer> requestedIds = new LinkedHashSet<>(ids);
+    requestedIds.remove(null);
+    if (requestedIds.size() > maxLookupIds) {
+      throw rejected(
+          Rejection.LOOKUP_TOO_LARGE,
+          String.format("At most %d vehicles can be fetched at once", maxLookupIds));
+    }
+    Map<Integer, Vehicle> found = new HashMap<>(requestedIds.size() * 2);
+    List<Integer> uncachedIds = new ArrayList<>();
+    for (Integer id : requestedIds) {
+      Optional<Vehicle> cachedVehicle = vehicleCache.getIfPresent(id);
+      if (cachedVehicle.isPresent()) {
+        found.put(id, cachedVehicle.get());
+      } else {
+        uncachedIds.add(id);
+      }
+    }
+    for (List<Integer> batch : batches(uncachedIds, lookupBatchSize)) {
+      for (Vehicle vehicle : findByIds(batch)) {
+        found.put(vehicle.getId(), vehicle);
+      }
+    }
+
+    List<Vehicle> vehicles = new ArrayList<>(found.size());
+    List<Integer> missing = new ArrayList<>();
+    for (Integer id : requestedIds) {
+      Vehicle vehicle = found.get(id);
+      if (Objects.isNull(vehicle)) {
+        missing.add(id);
+      } else {
+        vehicles.add(vehicle);
+      }
+    }
+    vehicleMetrics.recordRowsFetched(Query.LOOKUP, uncachedIds.size() - missing.size());
+    return new VehicleLookupResult(vehicles, missing);
+  }
+
+  public VehiclePage getVehiclePage(
+      Optional<Integer> year,
+      Optional<String> make,
+      Optional<String> model,
+      Optional<String> after,
+      int limit) {
+    Integer afterId = checkPageRequest(after, limit);
+    Specification<Vehicle> specification =
+        VehicleSpecifications.matching(
+            vehicleDictionary, year.orElse(null), make.orElse(null), model.orElse(null));
+    // one extra row tells us whether a next page exists without a count query
+    List<Vehicle> vehicles =
+        Objects.isNull(vehicleShards)
+            ? vehicleRepository.findPageAfter(specification, afterId, limit + 1)
+            : VehicleShards.mergeById(
+                vehicleShards.onEach(
+                    true,
+                    shard -> vehicleRepository.findPageAfter(specification, afterId, limit + 1)),
+                limit + 1);
+    vehicleMetrics.recordRowsFetched(Query.PAGE, vehicles.size());
+    return toPage(vehicles, limit);
+  }
+
+  /** Validates a page request and returns the id to seek past, {@code null} for the first page. */
+  public Integer checkPageRequest(Optional<String> after, int limit) {
+    if (limit < 1 || limit > maxPageLimit) {
+      throw rejected(
+          Rejection.PAGE_LIMIT, String.format("Limit must be between 1 and %d", maxPageLimit));
+    }
+    return after.map(this::decodeCursor).orElse(null);
+  }
+
+  public void checkSuggestRequest(int limit) {
+    if (limit < 1 || limit > maxSuggestLimit) {
+      throw rejected(
+          Rejection.SUGGEST_LIMIT,
+          String.format("Limit must be between 1 and %d", maxSuggestLimit));
+    }
+  }
+
+  /** Page from up to {@code limit + 1} rows in id order; the extra row only signals a next page. */
+  public VehiclePage toPage(List<Vehicle> vehicles, int limit) {
+    String nextCursor = null;
+    if (vehicles.size() > limit) {
+      vehicles = vehicles.subList(0, limit);
+      nextCursor = encodeCursor(vehicles.get(limit - 1).getId());
+    }
+    return new VehiclePage(vehicles, nextCursor, limit);
+  }
+
+  @Transactional(readOnly = true)
+  public long streamVehicles(
+      Optional<Integer> year,
+      Optional<String> make,
+      Optional<String> model,
+      Consumer<Vehicle> consumer) {
+    Specification<Vehicle> specification =
+        VehicleSpecifications.matching(
+            vehicleDictionary, year.orElse(null), make.orElse(null), model.orElse(null));
+    if (Objects.isNull(vehicleShards)) {
+      return stream(specification, consumer);
+    }
+    // one shard after another: the consumer writes to a single response
+    long count = 0;
+    for (int shard = 0; shard < vehicleShards.count(); shard++) {
+      count += vehicleShards.on(shard, true, () -> stream(specification, consumer));
+    }
+    return count;
+  }
+
+  private long stream(Specification<Vehicle> specification, Consumer<Vehicle> consumer) {
+    long count = 0;
+    try (Stream<Vehicle> vehicles =
+        vehicleRepository.streamMatching(specification, exportFetchSize, exportClearInterval)) {
+      Iterator<Vehicle> iterator = vehicles.iterator();
+      while (iterator.hasNext()) {
+        consumer.accept(iterator.next());
+        count++;
+      }
+    } finally {
+      vehicleMetrics.recordRowsFetched(Query.EXPORT, count);
+    }
+    return count;
+  }
+
+  private static String encodeCursor(Integer id) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Integer decodeCursor(String cursor) {
+    try {
+      return Integer.valueOf(
+          new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException e) {
+      throw rejected(Rejection.INVALID_CURSOR, "Invalid cursor");
+    }
+  }
+
   public Vehicle getVehicle(Integer id) {
-    Optional<Vehicle> optionalVehicle = vehicleRepository.findById(id);
+    Optional<Vehicle> optionalVehicle =
+        vehicleCache.get(id, key -> onShardOf(key, true, () -> vehicleRepository.findById(key)));
     if (optionalVehicle.isPresent()) {
       return optionalVehicle.get();
     }
-    throw new BadRequestException(
+    throw vehicleNotFound(id);
+  }
+
+  /**
+   * Current row version, from the cached copy when there is one and otherwise from a single-column
+   * query, so a conditional GET can be answered without hydrating or serializing the entity.
+   */
+  public Optional<Long> getVehicleVersion(Integer id) {
+    Optional<Vehicle> cachedVehicle = vehicleCache.getIfPresent(id);
+    if (cachedVehicle.isPresent()) {
+      return Optional.of(cachedVehicle.get().getVersion());
+    }
+    return onShardOf(id, true, () -> vehicleRepository.findVersionById(id));
+  }
+
+  public static BadRequestException vehicleNotFound(Integer id) {
+    return new BadRequestException(
         String.format("Vehicle with id %d is not present in the database", id));
   }
 
-  public void updateVehicle(Vehicle vehicle) {
-    Vehicle existingVehicle = getVehicle(vehicle.getId());
+  public static PreconditionFailedException versionConflict(
+      Integer id, long currentVersion, Optional<Long> expectedVersion) {
+    return new PreconditionFailedException(
+        String.format(
+            "Vehicle with id %d is at version %d, not %d",
+            id, currentVersion, expectedVersion.orElse(null)));
+  }
+
+  /**
+   * Replaces year, make and model in one conditional UPDATE; with {@code expectedVersion} the write
+   * only applies if nobody else has updated the vehicle since that version was read.
+   */
+  public Vehicle updateVehicle(Vehicle vehicle, Optional<Long> expectedVersion) {
     checkVehicleRequest(vehicle);
-    existingVehicle.setMake(vehicle.getMake());
-    existingVehicle.setModel(vehicle.getModel());
-    existingVehicle.setYear(vehicle.getYear());
-    vehicleRepository.save(existingVehicle);
+    return update(vehicle.getId(), expectedVersion, vehicle);
+  }
+
+  /** Like {@link #updateVehicle} but only the non-null fields of {@code patch} are written. */
+  public Vehicle patchVehicle(Integer id, Vehicle patch, Optional<Long> expectedVersion) {
+    checkVehiclePatch(patch);
+    return update(id, expectedVersion, patch);
+  }
+
+  public void checkVehiclePatch(Vehicle patch) {
+    if (Objects.isNull(patch.getYear())
+        && Objects.isNull(patch.getMake())
+        && Objects.isNull(patch.getModel())) {
+      throw rejected(
+          Rejection.EMPTY_PATCH, "At least one of year, make or model must be supplied");
+    }
+    if ("".equals(patch.getMake()) || "".equals(patch.getModel())) {
+      throw rejected(Rejection.MAKE_OR_MODEL_EMPTY, "Make or Model cannot be empty");
+    }
+    if (Objects.nonNull(patch.getYear())
+        && (patch.getYear() > 2050 || patch.getYear() < 1950)) {
+      throw rejected(Rejection.YEAR_OUT_OF_RANGE, "Year must be between 1950 and 2050");
+    }
+  }
+
+  private Vehicle update(Integer id, Optional<Long> expectedVersion, Vehicle values) {
+    if (Objects.isNull(id)) {
+      throw vehicleNotFound(id);
+    }
+    Optional<Vehicle> updated =
+        onShardOf(
+            id,
+            false,
+            () ->
+                vehicleRepository.updateIfMatch(
+                    id,
+                    expectedVersion.orElse(null),
+                    values.getYear(),
+                    values.getMake(),
+                    values.getModel()));
+    if (!updated.isPresent()) {
+      // failure path only: tell a missing row from a lost race
+      Optional<Long> version = onShardOf(id, true, () -> vehicleRepository.findVersionById(id));
+      if (!version.isPresent()) {
+        throw vehicleNotFound(id);
+      }
+      throw versionConflict(id, version.get(), expectedVersion);
+    }
+    publish(VehicleChangeEvent.Type.UPDATED, updated.get());
+    return updated.get();
   }
 
   public void deleteVehicle(Integer id) {
-    vehicleRepository.deleteById(id);
+    try {
+      onShardOf(
+          id,
+          false,
+          () -> {
+            vehicleRepository.deleteById(id);
+            return null;
+          });
+    } catch (EmptyResultDataAccessException e) {
+      // the same 400 as a read of a missing vehicle, and as the reactive stack answers
+      throw vehicleNotFound(id);
+    }
+    publish(new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, id, null));
+  }
+
+  private void publish(VehicleChangeEvent.Type type, Vehicle vehicle) {
+    publish(new VehicleChangeEvent(type, vehicle.getId(), vehicle));
+  }
+
+  /**
+   * Listeners must only see committed rows, so inside a caller's transaction, as the importer
+   * opens around each batch, the event waits for that transaction to commit.
+   */
+  private void publish(VehicleChangeEvent event) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      eventPublisher.publishEvent(event);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCommit() {
+            eventPublisher.publishEvent(event);
+          }
+        });
   }
 }
@@ -0,0 +1,239 @@
+package mitchell.vehicleProject.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.exceptions.ServiceUnavailableException;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.shard.VehicleShards;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Group commit for single creates. Validated vehicles are queued and flusher threads insert them
+ * with one {@code saveAll} transaction per batch, as soon as {@code batch-size} are waiting or the
+ * oldest has waited {@code max-delay}. Callers hold a future that completes with the saved vehicle
+ * once its batch has committed. When a batch fails, its vehicles are retried one by one, so one bad
+ * row only fails its own caller. Under the {@code sharded} profile each batch is split by {@link
+ * VehicleShards#shardFor} and every shard commits its own share, as bulk creates do.
+ *
+ * <p>The queue is a lock-free {@link ConcurrentLinkedQueue} bounded by a CAS-maintained count;
+ * when {@code capacity} creates are already waiting, {@link #submit} fails fast with a {@link
+ * ServiceUnavailableException} instead of letting the backlog grow.
+ *
+ * <p>Enabled with {@code vehicle.write-behind.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "vehicle.write-behind.enabled", havingValue = "true")
+@Log4j2
+public class VehicleWriteBehindQueue implements MeterBinder {
+
+  @Autowired private VehicleRepository vehicleRepository;
+
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
+  @Autowired(required = false)
+  private VehicleShards vehicleShards;
+
+  @Value("${vehicle.write-behind.capacity}")
+  private int capacity;
+
+  @Value("${vehicle.write-behind.batch-size}")
+  private int batchSize;
+
+  @Value("${vehicle.write-behind.max-delay}")
+  private Duration maxDelay;
+
+  @Value("${vehicle.write-behind.flushers}")
+  private int flushers;
+
+  private final ConcurrentLinkedQueue<PendingCreate> queue = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  private final List<Thread> flusherThreads = new ArrayList<>();
+
+  private volatile boolean running;
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    CustomizableThreadFactory threadFactory =
+        new CustomizableThreadFactory("vehicle-write-behind-");
+    for (int i = 0; i < flushers; i++) {
+      Thread thread = threadFactory.newThread(this::flushLoop);
+      flusherThreads.add(thread);
+      thread.start();
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    for (Thread thread : flusherThreads) {
+      LockSupport.unpark(thread);
+      thread.join();
+    }
+    // whatever was accepted before shutdown still gets written
+    flushAvailable();
+  }
+
+  public CompletableFuture<Vehicle> submit(Vehicle vehicle) {
+    int queued = size.incrementAndGet();
+    if (queued > capacity || !running) {
+      size.decrementAndGet();
+      throw new ServiceUnavailableException("Too many vehicle creates pending, retry shortly");
+    }
+    PendingCreate pending = new PendingCreate(vehicle, System.nanoTime());
+    queue.offer(pending);
+    // stop() may have drained the queue between the check above and the offer; whichever of it
+    // and this removal takes the create decides its fate, so no future is left behind
+    if (!running && queue.remove(pending)) {
+      size.decrementAndGet();
+      throw new ServiceUnavailableException("Vehicle creation is shutting down, retry shortly");
+    }
+    if (queued == batchSize) {
+      // a full batch is waiting: no point letting the flushers sleep out the delay
+      flusherThreads.forEach(LockSupport::unpark);
+    }
+    return pending.result;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("vehicle.write_behind.pending", size, AtomicInteger::get)
+        .description("Creates waiting to be committed")
+        .register(registry);
+  }
+
+  private void flushLoop() {
+    long maxDelayNanos = maxDelay.toNanos();
+    while (running) {
+      PendingCreate oldest = queue.peek();
+      if (oldest == null) {
+        LockSupport.parkNanos(this, maxDelayNanos);
+        continue;
+      }
+      long waitNanos = oldest.enqueuedAt + maxDelayNanos - System.nanoTime();
+      if (size.get() < batchSize && waitNanos > 0) {
+        LockSupport.parkNanos(this, waitNanos);
+        continue;
+      }
+      flushBatch();
+    }
+  }
+
+  private void flushAvailable() {
+    while (!queue.isEmpty()) {
+      flushBatch();
+    }
+  }
+
+  private void flushBatch() {
+    List<PendingCreate> batch = new ArrayList<>(batchSize);
+    PendingCreate pending;
+    while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+      batch.add(pending);
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    size.addAndGet(-batch.size());
+
+    if (Objects.isNull(vehicleShards)) {
+      saveBatch(null, batch);
+      return;
+    }
+    // the same placement as a bulk create: each shard commits its own share of the batch
+    Map<Integer, List<PendingCreate>> byShard = new HashMap<>();
+    for (PendingCreate create : batch) {
+      byShard
+          .computeIfAbsent(vehicleShards.shardFor(create.vehicle), s -> new ArrayList<>())
+          .add(create);
+    }
+    byShard.forEach(this::saveBatch);
+  }
+
+  private void saveBatch(Integer shard, List<PendingCreate> batch) {
+    List<Vehicle> vehicles = new ArrayList<>(batch.size());
+    for (PendingCreate create : batch) {
+      vehicles.add(create.vehicle);
+    }
+    List<Vehicle> saved;
+    try {
+      saved = onShard(shard, () -> vehicleRepository.saveAll(vehicles));
+    } catch (RuntimeException e) {
+      log.warn("Write-behind batch of {} vehicles failed, retrying one by one", batch.size(), e);
+      batch.forEach(create -> flushOne(shard, create));
+      return;
+    }
+    for (int i = 0; i < saved.size(); i++) {
+      created(batch.get(i), saved.get(i));
+    }
+  }
+
+  private void flushOne(Integer shard, PendingCreate create) {
+    // the rolled-back batch may have assigned an id already; this is still an insert
+    create.vehicle.setId(null);
+    create.vehicle.setVersion(0);
+    Vehicle saved;
+    try {
+      saved = onShard(shard, () -> vehicleRepository.save(create.vehicle));
+    } catch (RuntimeException e) {
+      log.error("Write-behind create failed", e);
+      create.result.completeExceptionally(e);
+      return;
+    }
+    created(create, saved);
+  }
+
+  private <T> T onShard(Integer shard, Supplier<T> work) {
+    return Objects.isNull(shard) ? work.get() : vehicleShards.on(shard, false, work);
+  }
+
+  private void created(PendingCreate create, Vehicle vehicle) {
+    try {
+      eventPublisher.publishEvent(
+          new VehicleChangeEvent(VehicleChangeEvent.Type.CREATED, vehicle.getId(), vehicle));
+    } catch (RuntimeException e) {
+      // the row is committed; a failing listener must not strand the callers or the flusher
+      log.error("Listener failed for created vehicle {}", vehicle.getId(), e);
+    }
+    create.result.complete(vehicle);
+  }
+
+  private static class PendingCreate {
+
+    private final Vehicle vehicle;
+
+    private final long enqueuedAt;
+
+    private final CompletableFuture<Vehicle> result = new CompletableFuture<>();
+
+    PendingCreate(Vehicle vehicle, long enqueuedAt) {
+      this.vehicle = vehicle;
+      this.enqueuedAt = enqueuedAt;
+    }
+  }
+}
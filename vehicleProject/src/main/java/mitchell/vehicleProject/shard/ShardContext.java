@@ -0,0 +1,41 @@
+package mitchell.vehicleProject.shard;
+
+import java.util.Objects;
+
+/**
+ * The shard the current thread's next connection comes from. A thread-local, like Spring's own
+ * transaction state, because both readers live outside Spring's reach: {@link
+ * ShardRoutingDataSource} asks on every connection and Hibernate instantiates {@link
+ * ShardedSequenceGenerator} itself. It holds no configuration, so application contexts sharing a
+ * JVM do not see each other's shards; every setting is put back in a {@code finally}.
+ *
+ * <p>Unsharded, every thread stays on {@link #HOME}.
+ */
+public final class ShardContext {
+
+  /** Holds the dictionary tables and serves every connection not scoped to another shard. */
+  public static final int HOME = 0;
+
+  private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+  private ShardContext() {}
+
+  public static int current() {
+    Integer shard = CURRENT.get();
+    return Objects.isNull(shard) ? HOME : shard;
+  }
+
+  /**
+   * Routes this thread's next connections to {@code shard}, {@code null} meaning {@link #HOME},
+   * and returns the previous setting so the caller can put it back.
+   */
+  public static Integer swap(Integer shard) {
+    Integer previous = CURRENT.get();
+    if (Objects.isNull(shard)) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(shard);
+    }
+    return previous;
+  }
+}
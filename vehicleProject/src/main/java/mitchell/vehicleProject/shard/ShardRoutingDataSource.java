@@ -0,0 +1,50 @@
+package mitchell.vehicleProject.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One pool per shard behind a single {@link DataSource}: each connection comes from the pool of
+ * {@link ShardContext#current()}. JPA, Spring Data and the dictionary keep using the one data
+ * source they always had; a transaction stays on the shard that was current when it began.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+  private final List<HikariDataSource> shards;
+
+  public ShardRoutingDataSource(List<HikariDataSource> shards) {
+    this.shards = new ArrayList<>(shards);
+    Map<Object, Object> targets = new HashMap<>();
+    for (int shard = 0; shard < shards.size(); shard++) {
+      targets.put(shard, shards.get(shard));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(shards.get(ShardContext.HOME));
+  }
+
+  public int size() {
+    return shards.size();
+  }
+
+  /** The pool of one shard, for work that must bypass routing. */
+  public DataSource shard(int shard) {
+    return shards.get(shard);
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return ShardContext.current();
+  }
+
+  @Override
+  public void close() {
+    shards.forEach(HikariDataSource::close);
+  }
+}
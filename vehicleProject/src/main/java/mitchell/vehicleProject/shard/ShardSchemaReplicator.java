@@ -0,0 +1,46 @@
+package mitchell.vehicleProject.shard;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * Hibernate creates the schema over the routing data source, so only on the home shard. Once it
+ * has, H2's {@code SCRIPT NODATA} dumps that schema and it is replayed on every other shard, which
+ * keeps the entity mappings the single source of the DDL.
+ */
+@Component
+@Profile("sharded")
+@Log4j2
+public class ShardSchemaReplicator {
+
+  // depending on the factory orders this after Hibernate's schema export
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private ShardRoutingDataSource dataSource;
+
+  @PostConstruct
+  public void replicate() {
+    List<String> statements =
+        new JdbcTemplate(dataSource.shard(ShardContext.HOME))
+            .queryForList("script nodata", String.class);
+    for (int shard = 0; shard < dataSource.size(); shard++) {
+      if (shard == ShardContext.HOME) {
+        continue;
+      }
+      JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource.shard(shard));
+      for (String statement : statements) {
+        if (!statement.startsWith("--")) {
+          jdbcTemplate.execute(statement);
+        }
+      }
+    }
+    log.info("Vehicle schema replicated to {} shards", dataSource.size() - 1);
+  }
+}
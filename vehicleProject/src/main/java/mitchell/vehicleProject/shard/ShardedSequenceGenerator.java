@@ -0,0 +1,65 @@
+package mitchell.vehicleProject.shard;
+
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.ExportableProducer;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * {@link SequenceStyleGenerator} per shard, each reading the sequence of the shard the session is
+ * on and keeping its own pooled block, with the shard folded into the id: {@code sequence value *
+ * shard count + shard}. Ids are unique across shards without any coordination between them, and
+ * {@code id mod count} tells which shard holds a row. With a single shard the ids are the plain
+ * sequence values.
+ */
+public class ShardedSequenceGenerator implements IdentifierGenerator, Configurable,
+    ExportableProducer {
+
+  /** Hibernate setting with the shard count; absent, there is a single database. */
+  public static final String SHARD_COUNT = "vehicle.shards.count";
+
+  private final List<SequenceStyleGenerator> generators = new ArrayList<>();
+
+  private int count;
+
+  @Override
+  public void configure(Type type, Properties params, ServiceRegistry serviceRegistry)
+      throws MappingException {
+    count =
+        ConfigurationHelper.getInt(
+            SHARD_COUNT, serviceRegistry.getService(ConfigurationService.class).getSettings(), 1);
+    for (int shard = 0; shard < count; shard++) {
+      SequenceStyleGenerator generator = new SequenceStyleGenerator();
+      generator.configure(type, params, serviceRegistry);
+      generators.add(generator);
+    }
+  }
+
+  // every generator needs this call, which is what prepares its next-value SQL; they all share
+  // the one sequence definition, which the schema copy then creates on the other shards
+  @Override
+  public void registerExportables(Database database) {
+    for (SequenceStyleGenerator generator : generators) {
+      generator.registerExportables(database);
+    }
+  }
+
+  @Override
+  public Serializable generate(SharedSessionContractImplementor session, Object object) {
+    int shard = ShardContext.current();
+    long value = ((Number) generators.get(shard).generate(session, object)).longValue();
+    return Math.toIntExact(value * count + shard);
+  }
+}
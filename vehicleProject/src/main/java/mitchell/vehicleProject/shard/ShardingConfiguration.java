@@ -0,0 +1,45 @@
+package mitchell.vehicleProject.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code sharded} profile: {@code vehicle.shards.count} databases, one pool each, behind a
+ * routing data source that replaces Boot's single one. Every shard gets the url template with its
+ * index filled in; credentials and driver come from the usual {@code spring.datasource.*}.
+ */
+@Configuration
+@Profile("sharded")
+public class ShardingConfiguration {
+
+  @Bean
+  public ShardRoutingDataSource dataSource(
+      DataSourceProperties properties,
+      @Value("${vehicle.shards.count}") int count,
+      @Value("${vehicle.shards.url-template}") String urlTemplate,
+      @Value("${vehicle.shards.pool-size}") int poolSize) {
+    if (count < 1) {
+      throw new IllegalArgumentException("vehicle.shards.count must be at least 1");
+    }
+    List<HikariDataSource> shards = new ArrayList<>(count);
+    for (int shard = 0; shard < count; shard++) {
+      HikariDataSource dataSource =
+          properties
+              .initializeDataSourceBuilder()
+              .type(HikariDataSource.class)
+              .url(String.format(urlTemplate, shard))
+              .build();
+      dataSource.setPoolName("vehicle-shard-" + shard);
+      dataSource.setMaximumPoolSize(poolSize);
+      shards.add(dataSource);
+    }
+    return new ShardRoutingDataSource(shards);
+  }
+}
@@ -0,0 +1,232 @@
+package mitchell.vehicleProject.shard;
+
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Where vehicles live in the {@code sharded} profile. New vehicles are placed by {@code
+ * vehicle.shards.key}: {@code id} spreads them evenly, {@code make} keeps each make on one shard.
+ * Either way the shard is folded into the id by {@link ShardedSequenceGenerator}, so anything
+ * addressed by id goes straight to {@code id mod count}, even after an update changed the make.
+ * Filtered reads have no such shortcut and run on every shard in parallel.
+ *
+ * <p>Work for one shard runs in its own transaction, begun with that shard current, so it is routed
+ * correctly whatever transaction the caller is already in.
+ */
+@Component
+@Profile("sharded")
+public class VehicleShards {
+
+  public enum Key {
+    ID,
+    MAKE
+  }
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Value("${vehicle.shards.count}")
+  private int count;
+
+  @Value("${vehicle.shards.key}")
+  private Key key;
+
+  @Value("${vehicle.shards.query-threads}")
+  private int queryThreads;
+
+  private final AtomicInteger nextShard = new AtomicInteger();
+
+  private ExecutorService executor;
+
+  @PostConstruct
+  public void start() {
+    executor =
+        Executors.newFixedThreadPool(
+            queryThreads, new CustomizableThreadFactory("vehicle-shard-query-"));
+  }
+
+  @PreDestroy
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public int shardOf(Integer id) {
+    return Math.floorMod(id, count());
+  }
+
+  /** Shard a new vehicle is written to. */
+  public int shardFor(Vehicle vehicle) {
+    if (key == Key.MAKE) {
+      return Math.floorMod(VehicleDictionary.normalize(vehicle.getMake()).hashCode(), count());
+    }
+    return Math.floorMod(nextShard.getAndIncrement(), count());
+  }
+
+  /** Runs {@code work} on {@code shard} in a transaction of its own. */
+  public <T> T on(int shard, boolean readOnly, Supplier<T> work) {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    transaction.setReadOnly(readOnly);
+    Integer previous = ShardContext.swap(shard);
+    try {
+      return transaction.execute(status -> work.get());
+    } finally {
+      ShardContext.swap(previous);
+    }
+  }
+
+  /** Runs {@code work} on every shard at once; the results come back in shard order. */
+  public <T> List<T> onEach(boolean readOnly, IntFunction<T> work) {
+    List<Future<T>> futures = new ArrayList<>(count());
+    for (int shard = 0; shard < count(); shard++) {
+      int target = shard;
+      futures.add(executor.submit(() -> on(target, readOnly, () -> work.apply(target))));
+    }
+    List<T> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while querying vehicle shards", e);
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      Throwable cause = e.getCause();
+      throw cause instanceof RuntimeException
+          ? (RuntimeException) cause
+          : new IllegalStateException(cause);
+    }
+    return results;
+  }
+
+  /** Groups {@code ids} by the shard holding them. */
+  public List<List<Integer>> partition(Iterable<Integer> ids) {
+    List<List<Integer>> partitions = new ArrayList<>(count());
+    for (int shard = 0; shard < count(); shard++) {
+      partitions.add(new ArrayList<>());
+    }
+    for (Integer id : ids) {
+      partitions.get(shardOf(id)).add(id);
+    }
+    return partitions;
+  }
+
+  /**
+   * Merges per-shard lists already in id order into one, keeping at most {@code limit} vehicles.
+   */
+  public static List<Vehicle> mergeById(List<List<Vehicle>> sorted, int limit) {
+    PriorityQueue<Head> heads =
+        new PriorityQueue<>(Comparator.comparing((Head head) -> head.vehicle.getId()));
+    int total = 0;
+    for (List<Vehicle> vehicles : sorted) {
+      total += vehicles.size();
+      Iterator<Vehicle> iterator = vehicles.iterator();
+      if (iterator.hasNext()) {
+        heads.add(new Head(iterator.next(), iterator));
+      }
+    }
+    List<Vehicle> merged = new ArrayList<>(Math.min(total, limit));
+    while (!heads.isEmpty() && merged.size() < limit) {
+      Head head = heads.poll();
+      merged.add(head.vehicle);
+      if (head.rest.hasNext()) {
+        heads.add(new Head(head.rest.next(), head.rest));
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Feeds every {@code [id, year, make, model]} key to {@code consumer}, shard after shard when
+   * {@code shards} is set; otherwise from the one database, in the caller's transaction.
+   */
+  public static void forEachKey(
+      VehicleShards shards, VehicleRepository vehicleRepository, Consumer<Object[]> consumer) {
+    forEach(shards, vehicleRepository::streamKeys, consumer);
+  }
+
+  /** Like {@link #forEachKey} for any streaming query. */
+  public static void forEach(
+      VehicleShards shards, Supplier<Stream<Object[]>> query, Consumer<Object[]> consumer) {
+    if (Objects.isNull(shards)) {
+      try (Stream<Object[]> rows = query.get()) {
+        rows.forEach(consumer);
+      }
+      return;
+    }
+    for (int shard = 0; shard < shards.count(); shard++) {
+      shards.on(
+          shard,
+          true,
+          () -> {
+            try (Stream<Object[]> rows = query.get()) {
+              rows.forEach(consumer);
+            }
+            return null;
+          });
+    }
+  }
+
+  /**
+   * {@link VehicleRepository#countByYearMakeModel()} over every shard; a combination present on
+   * several shards appears once per shard.
+   */
+  public static List<Object[]> countByYearMakeModel(
+      VehicleShards shards, VehicleRepository vehicleRepository) {
+    return collect(shards, vehicleRepository::countByYearMakeModel);
+  }
+
+  /** The rows of {@code query} from the one database, or from every shard concatenated. */
+  public static <T> List<T> collect(VehicleShards shards, Supplier<List<T>> query) {
+    if (Objects.isNull(shards)) {
+      return query.get();
+    }
+    List<T> rows = new ArrayList<>();
+    shards.onEach(true, shard -> query.get()).forEach(rows::addAll);
+    return rows;
+  }
+
+  private static class Head {
+
+    private final Vehicle vehicle;
+
+    private final Iterator<Vehicle> rest;
+
+    Head(Vehicle vehicle, Iterator<Vehicle> rest) {
+      this.vehicle = vehicle;
+      this.rest = rest;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package mitchell.vehicleProject.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * A memory-mapped snapshot file: the vehicle table as one column per field, read in place without
+ * copying rows onto the heap. Each column is mapped on its own, so only the pages a reader touches
+ * are faulted in.
+ *
+ * <p>The file is little-endian throughout, with every column aligned to 8 bytes, so analytics jobs
+ * can map the columns straight into typed arrays:
+ *
+ * <pre>
+ *   0  int   magic, "VSNP"
+ *   4  int   format version, 1
+ *   8  long  rows
+ *  16  long  sum of ids        } fingerprint of the rows written,
+ *  24  long  sum of versions   } see VehicleSnapshotFingerprint
+ *  32  long  written at, epoch milliseconds
+ *  40  long  offset of the id column       int32 per row, ascending (per shard when sharded)
+ *  48  long  offset of the year column     int32 per row, Integer.MIN_VALUE for none
+ *  56  long  offset of the make column     int32 per row, make dictionary index, -1 for none
+ *  64  long  offset of the model column    int32 per row, model dictionary index, -1 for none
+ *  72  long  offset of the version column  int64 per row
+ *  80  long  offset of the make dictionary   int32 count, then per entry int32 length and UTF-8
+ *  88  long  offset of the model dictionary  same layout
+ * </pre>
+ */
+public class VehicleSnapshot {
+
+  static final int MAGIC = 0x504E5356;
+
+  static final int FORMAT_VERSION = 1;
+
+  static final int HEADER_SIZE = 96;
+
+  static final int NO_YEAR = Integer.MIN_VALUE;
+
+  static final int NO_TERM = -1;
+
+  private final int rows;
+
+  private final VehicleSnapshotFingerprint fingerprint;
+
+  private final Instant writtenAt;
+
+  private final ByteBuffer ids;
+
+  private final ByteBuffer years;
+
+  private final ByteBuffer makeColumn;
+
+  private final ByteBuffer modelColumn;
+
+  private final ByteBuffer versions;
+
+  private final String[] makes;
+
+  private final String[] models;
+
+  private VehicleSnapshot(FileChannel channel) throws IOException {
+    ByteBuffer header = map(channel, 0, HEADER_SIZE);
+    if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+      throw new IOException("Not a version " + FORMAT_VERSION + " vehicle snapshot");
+    }
+    long rowCount = header.getLong(8);
+    // a long column must fit one mapping
+    if (rowCount > Integer.MAX_VALUE / Long.BYTES) {
+      throw new IOException("Snapshot of " + rowCount + " rows is too large to map");
+    }
+    rows = (int) rowCount;
+    fingerprint =
+        new VehicleSnapshotFingerprint(rowCount, header.getLong(16), header.getLong(24));
+    writtenAt = Instant.ofEpochMilli(header.getLong(32));
+    ids = map(channel, header.getLong(40), (long) rows * Integer.BYTES);
+    years = map(channel, header.getLong(48), (long) rows * Integer.BYTES);
+    makeColumn = map(channel, header.getLong(56), (long) rows * Integer.BYTES);
+    modelColumn = map(channel, header.getLong(64), (long) rows * Integer.BYTES);
+    versions = map(channel, header.getLong(72), (long) rows * Long.BYTES);
+    long modelsAt = header.getLong(88);
+    makes = readDictionary(map(channel, header.getLong(80), modelsAt - header.getLong(80)));
+    models = readDictionary(map(channel, modelsAt, channel.size() - modelsAt));
+  }
+
+  /** Maps {@code path}; the mapping stays valid after the file is replaced or deleted. */
+  public static VehicleSnapshot open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new VehicleSnapshot(channel);
+    }
+  }
+
+  private static ByteBuffer map(FileChannel channel, long offset, long size) throws IOException {
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+    return buffer.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  // dictionaries are small; decoding them up front gives every row of a term one shared String
+  private static String[] readDictionary(ByteBuffer dictionary) {
+    String[] terms = new String[dictionary.getInt()];
+    for (int i = 0; i < terms.length; i++) {
+      byte[] bytes = new byte[dictionary.getInt()];
+      dictionary.get(bytes);
+      terms[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    return terms;
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public VehicleSnapshotFingerprint getFingerprint() {
+    return fingerprint;
+  }
+
+  public Instant getWrittenAt() {
+    return writtenAt;
+  }
+
+  public int id(int row) {
+    return ids.getInt(row * Integer.BYTES);
+  }
+
+  public Integer year(int row) {
+    int year = years.getInt(row * Integer.BYTES);
+    return year == NO_YEAR ? null : year;
+  }
+
+  public String make(int row) {
+    return term(makes, makeColumn, row);
+  }
+
+  public String model(int row) {
+    return term(models, modelColumn, row);
+  }
+
+  public long version(int row) {
+    return versions.getLong(row * Long.BYTES);
+  }
+
+  private static String term(String[] terms, ByteBuffer column, int row) {
+    int ordinal = column.getInt(row * Integer.BYTES);
+    return ordinal == NO_TERM ? null : terms[ordinal];
+  }
+
+  /** Feeds every row as the {@code [id, year, make, model]} tuple the key queries return. */
+  public void forEachKey(Consumer<Object[]> consumer) {
+    for (int row = 0; row < rows; row++) {
+      consumer.accept(new Object[] {id(row), year(row), make(row), model(row)});
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package mitchell.vehicleProject.snapshot;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Row count, sum of ids and sum of versions of a set of vehicles. Ids only grow and every update
+ * bumps a version, so once a snapshot is written any create, delete or update in the table makes
+ * the table's fingerprint differ from the snapshot's.
+ */
+@Value
+public class VehicleSnapshotFingerprint {
+
+  long rows;
+
+  long idSum;
+
+  long versionSum;
+
+  /** Sums {@code [count, sum of ids, sum of versions]} rows, one per shard. */
+  public static VehicleSnapshotFingerprint of(List<Object[]> rows) {
+    long count = 0;
+    long idSum = 0;
+    long versionSum = 0;
+    for (Object[] row : rows) {
+      count += ((Number) row[0]).longValue();
+      idSum += ((Number) row[1]).longValue();
+      versionSum += ((Number) row[2]).longValue();
+    }
+    return new VehicleSnapshotFingerprint(count, idSum, versionSum);
+  }
+}
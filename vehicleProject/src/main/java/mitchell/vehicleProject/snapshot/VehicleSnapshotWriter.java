@@ -0,0 +1,226 @@
+package mitchell.vehicleProject.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes a {@link VehicleSnapshot} file from rows streamed in one pass. The row count is only known
+ * at the end, so each column is spooled to a temporary file of its own and the columns are copied
+ * behind the header afterwards; the finished file replaces the old one with an atomic move, leaving
+ * existing mappings of the old one intact.
+ */
+class VehicleSnapshotWriter implements Closeable {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path target;
+
+  private final Column ids;
+
+  private final Column years;
+
+  private final Column makeColumn;
+
+  private final Column modelColumn;
+
+  private final Column versions;
+
+  private final Map<String, Integer> makes = new LinkedHashMap<>();
+
+  private final Map<String, Integer> models = new LinkedHashMap<>();
+
+  private long rows;
+
+  private long idSum;
+
+  private long versionSum;
+
+  VehicleSnapshotWriter(Path target) throws IOException {
+    this.target = target;
+    Path directory = target.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    this.ids = new Column(directory);
+    this.years = new Column(directory);
+    this.makeColumn = new Column(directory);
+    this.modelColumn = new Column(directory);
+    this.versions = new Column(directory);
+  }
+
+  void add(int id, Integer year, String make, String model, long version) throws IOException {
+    ids.putInt(id);
+    years.putInt(Objects.isNull(year) ? VehicleSnapshot.NO_YEAR : year);
+    makeColumn.putInt(ordinal(makes, make));
+    modelColumn.putInt(ordinal(models, model));
+    versions.putLong(version);
+    rows++;
+    idSum += id;
+    versionSum += version;
+  }
+
+  private static int ordinal(Map<String, Integer> terms, String term) {
+    if (Objects.isNull(term)) {
+      return VehicleSnapshot.NO_TERM;
+    }
+    Integer ordinal = terms.get(term);
+    if (Objects.isNull(ordinal)) {
+      ordinal = terms.size();
+      terms.put(term, ordinal);
+    }
+    return ordinal;
+  }
+
+  /** The fingerprint of the rows added so far. */
+  VehicleSnapshotFingerprint fingerprint() {
+    return new VehicleSnapshotFingerprint(rows, idSum, versionSum);
+  }
+
+  /** Assembles the file and moves it over {@code target}. */
+  void finish() throws IOException {
+    Path partial = target.resolveSibling(target.getFileName() + ".partial");
+    try {
+      try (FileChannel out =
+          FileChannel.open(
+              partial,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.WRITE)) {
+        long position = VehicleSnapshot.HEADER_SIZE;
+        List<Long> offsets = new ArrayList<>();
+        for (Column column : new Column[] {ids, years, makeColumn, modelColumn, versions}) {
+          offsets.add(position);
+          position = align(column.copyTo(out, position));
+        }
+        offsets.add(position);
+        position = align(position + writeDictionary(out, position, makes.keySet()));
+        offsets.add(position);
+        writeDictionary(out, position, models.keySet());
+
+        ByteBuffer header =
+            ByteBuffer.allocate(VehicleSnapshot.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header
+            .putInt(VehicleSnapshot.MAGIC)
+            .putInt(VehicleSnapshot.FORMAT_VERSION)
+            .putLong(rows)
+            .putLong(idSum)
+            .putLong(versionSum)
+            .putLong(System.currentTimeMillis());
+        offsets.forEach(header::putLong);
+        header.flip();
+        write(out, header, 0);
+        out.force(true);
+      }
+      Files.move(
+          partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      // a half-written file would otherwise sit next to the snapshot until the next success
+      Files.deleteIfExists(partial);
+      throw e;
+    }
+  }
+
+  private static long align(long position) {
+    return (position + Long.BYTES - 1) & -Long.BYTES;
+  }
+
+  private static long writeDictionary(FileChannel out, long position, Iterable<String> terms)
+      throws IOException {
+    List<byte[]> encoded = new ArrayList<>();
+    int size = Integer.BYTES;
+    for (String term : terms) {
+      byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+      encoded.add(bytes);
+      size += Integer.BYTES + bytes.length;
+    }
+    ByteBuffer dictionary = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    dictionary.putInt(encoded.size());
+    for (byte[] bytes : encoded) {
+      dictionary.putInt(bytes.length).put(bytes);
+    }
+    dictionary.flip();
+    write(out, dictionary, position);
+    return size;
+  }
+
+  private static void write(FileChannel out, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += out.write(buffer, position);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (Column column : new Column[] {ids, years, makeColumn, modelColumn, versions}) {
+      column.close();
+    }
+  }
+
+  /** One column spooled to a temporary file through a direct buffer. */
+  private static class Column implements Closeable {
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer =
+        ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    Column(Path directory) throws IOException {
+      this.file = Files.createTempFile(directory, "vehicle-snapshot-", ".column");
+      this.channel =
+          FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    void putInt(int value) throws IOException {
+      if (buffer.remaining() < Integer.BYTES) {
+        flush();
+      }
+      buffer.putInt(value);
+    }
+
+    void putLong(long value) throws IOException {
+      if (buffer.remaining() < Long.BYTES) {
+        flush();
+      }
+      buffer.putLong(value);
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    /** Copies the column to {@code out} at {@code position}; returns the position after it. */
+    long copyTo(FileChannel out, long position) throws IOException {
+      flush();
+      long size = channel.size();
+      long copied = 0;
+      while (copied < size) {
+        copied += channel.transferTo(copied, size - copied, out.position(position + copied));
+      }
+      return position + size;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+      Files.deleteIfExists(file);
+    }
+  }
+}
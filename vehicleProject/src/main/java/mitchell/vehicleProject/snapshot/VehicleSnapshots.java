@@ -0,0 +1,177 @@
+package mitchell.vehicleProject.snapshot;
+
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.shard.VehicleShards;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link VehicleSnapshot} of the vehicle table on disk: rewritten every {@code interval}
+ * when vehicles changed since the last one, and once more on shutdown. At startup the file is
+ * mapped, and the facets, bitmap index and suggestions rebuild from it instead of scanning the
+ * table, provided its fingerprint still matches the table's; otherwise they fall back to the scan.
+ * The fingerprint is a single aggregate query, far cheaper than hydrating every row.
+ *
+ * <p>The same file is what {@code GET /vehicles/snapshot} serves to analytics jobs, as written.
+ *
+ * <p>Enabled with {@code vehicle.snapshot.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "vehicle.snapshot.enabled", havingValue = "true")
+@Log4j2
+public class VehicleSnapshots {
+
+  @Autowired private VehicleRepository vehicleRepository;
+
+  @Autowired(required = false)
+  private VehicleShards vehicleShards;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Value("${vehicle.snapshot.path}")
+  private String snapshotPath;
+
+  @Value("${vehicle.snapshot.interval}")
+  private Duration interval;
+
+  private final AtomicLong changes = new AtomicLong();
+
+  private volatile long changesWritten = -1;
+
+  private volatile VehicleSnapshot snapshot;
+
+  private Path path;
+
+  private ScheduledExecutorService writer;
+
+  @PostConstruct
+  public void start() {
+    path = Paths.get(snapshotPath).toAbsolutePath().normalize();
+    if (Files.exists(path)) {
+      try {
+        snapshot = VehicleSnapshot.open(path);
+        log.info(
+            "Vehicle snapshot of {} rows from {} mapped", snapshot.rows(), snapshot.getWrittenAt());
+      } catch (IOException e) {
+        log.warn("Vehicle snapshot {} is unreadable; rebuilding from the table", path, e);
+      }
+    }
+    writer =
+        Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("vehicle-snapshot-"));
+    writer.scheduleWithFixedDelay(
+        this::writeIfChanged, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    writer.shutdown();
+    writer.awaitTermination(1, TimeUnit.MINUTES);
+    writeIfChanged();
+  }
+
+  @EventListener
+  public void onVehicleChange(VehicleChangeEvent event) {
+    changes.incrementAndGet();
+  }
+
+  /**
+   * Feeds every {@code [id, year, make, model]} from the snapshot to {@code consumer} when it
+   * still matches the table. Returns {@code false}, having fed nothing, when there is no snapshot
+   * or the table has changed since it was written.
+   */
+  public boolean forEachKey(Consumer<Object[]> consumer) {
+    VehicleSnapshot current = snapshot;
+    if (Objects.isNull(current)) {
+      return false;
+    }
+    VehicleSnapshotFingerprint table =
+        VehicleSnapshotFingerprint.of(
+            VehicleShards.collect(vehicleShards, vehicleRepository::fingerprint));
+    if (!table.equals(current.getFingerprint())) {
+      log.info("Vehicle snapshot from {} is stale; scanning the table", current.getWrittenAt());
+      return false;
+    }
+    current.forEachKey(consumer);
+    return true;
+  }
+
+  /** The snapshot file, once one has been written. */
+  public Optional<Path> getPath() {
+    return Files.exists(path) ? Optional.of(path) : Optional.empty();
+  }
+
+  private void writeIfChanged() {
+    long seen = changes.get();
+    if (seen == changesWritten && Files.exists(path)) {
+      return;
+    }
+    try {
+      write();
+      changesWritten = seen;
+    } catch (RuntimeException | IOException e) {
+      log.warn("Writing the vehicle snapshot failed; the previous one is kept", e);
+    }
+  }
+
+  /** Streams the table into a new snapshot file in one read-only transaction per shard. */
+  public synchronized VehicleSnapshot write() throws IOException {
+    long start = System.nanoTime();
+    VehicleSnapshotFingerprint written;
+    try (VehicleSnapshotWriter snapshotWriter = new VehicleSnapshotWriter(path)) {
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      transaction.setReadOnly(true);
+      transaction.execute(
+          status -> {
+            VehicleShards.forEach(
+                vehicleShards,
+                vehicleRepository::streamRows,
+                row -> add(snapshotWriter, row));
+            return null;
+          });
+      snapshotWriter.finish();
+      written = snapshotWriter.fingerprint();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    snapshot = VehicleSnapshot.open(path);
+    log.info(
+        "Vehicle snapshot of {} rows written in {} ms",
+        written.getRows(),
+        (System.nanoTime() - start) / 1_000_000);
+    return snapshot;
+  }
+
+  private static void add(VehicleSnapshotWriter snapshotWriter, Object[] row) {
+    try {
+      snapshotWriter.add(
+          (Integer) row[0], (Integer) row[1], (String) row[2], (String) row[3], (Long) row[4]);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
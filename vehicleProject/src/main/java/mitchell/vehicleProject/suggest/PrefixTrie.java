@@ -0,0 +1,178 @@
+package mitchell.vehicleProject.suggest;
+
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.dto.VehicleSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Case-folded terms with a vehicle count each, answering "the {@code limit} most common terms
+ * starting with this prefix". Every node also keeps the largest count anywhere below it, so a
+ * best-first walk from the prefix node reaches the top terms without visiting the rest of the
+ * subtree. Children are two parallel sorted arrays rather than a map per node.
+ *
+ * <p>Not thread-safe; the owner serializes writes against reads.
+ */
+final class PrefixTrie {
+
+  private static final char[] NO_LABELS = new char[0];
+
+  private static final Node[] NO_CHILDREN = new Node[0];
+
+  private final Node root = new Node();
+
+  private int terms;
+
+  /** Adds {@code delta} vehicles to {@code term}; a negative delta removes them. */
+  void add(String term, long delta) {
+    String key = VehicleDictionary.normalize(term);
+    Node[] path = new Node[key.length() + 1];
+    Node node = root;
+    path[0] = node;
+    for (int i = 0; i < key.length(); i++) {
+      node = node.child(key.charAt(i), true);
+      path[i + 1] = node;
+    }
+    long before = node.count;
+    node.count = Math.max(0, before + delta);
+    if (before == 0 && node.count > 0) {
+      terms++;
+    } else if (before > 0 && node.count == 0) {
+      terms--;
+    }
+    if (Objects.isNull(node.spellings)) {
+      node.spellings = new HashMap<>(2);
+    }
+    // spellings differing only in case share the node; the most used one is shown
+    long spelled = node.spellings.merge(term, delta, Long::sum);
+    if (spelled <= 0) {
+      node.spellings.remove(term);
+    }
+    for (int i = path.length - 1; i >= 0; i--) {
+      path[i].updateMax();
+    }
+  }
+
+  /** The most common terms starting with {@code prefix} ignoring case, most common first. */
+  List<VehicleSuggestion> top(String prefix, int limit) {
+    List<VehicleSuggestion> suggestions = new ArrayList<>(limit);
+    Node node = root;
+    String key = VehicleDictionary.normalize(prefix);
+    for (int i = 0; i < key.length() && Objects.nonNull(node); i++) {
+      node = node.child(key.charAt(i), false);
+    }
+    if (Objects.isNull(node) || node.max == 0) {
+      return suggestions;
+    }
+    // a node is queued at the best count below it, a term at its own count; on a tie the term
+    // comes out first, so it is emitted before any node that can only match it
+    PriorityQueue<Candidate> queue =
+        new PriorityQueue<>(
+            Comparator.comparingLong((Candidate candidate) -> -candidate.count)
+                .thenComparing(candidate -> !candidate.term));
+    queue.add(new Candidate(node, node.max, false));
+    while (!queue.isEmpty() && suggestions.size() < limit) {
+      Candidate candidate = queue.poll();
+      Node current = candidate.node;
+      if (candidate.term) {
+        suggestions.add(new VehicleSuggestion(current.label(), current.count));
+        continue;
+      }
+      if (current.count > 0) {
+        queue.add(new Candidate(current, current.count, true));
+      }
+      for (Node child : current.children) {
+        if (child.max > 0) {
+          queue.add(new Candidate(child, child.max, false));
+        }
+      }
+    }
+    return suggestions;
+  }
+
+  /** Distinct terms with at least one vehicle. */
+  int size() {
+    return terms;
+  }
+
+  private static class Node {
+
+    private char[] labels = NO_LABELS;
+
+    private Node[] children = NO_CHILDREN;
+
+    /** Vehicles whose term ends here. */
+    private long count;
+
+    /** Largest {@link #count} in this subtree, this node included. */
+    private long max;
+
+    /** Vehicles per original spelling; only on nodes some term ended at. */
+    private Map<String, Long> spellings;
+
+    Node child(char label, boolean create) {
+      int index = Arrays.binarySearch(labels, label);
+      if (index >= 0) {
+        return children[index];
+      }
+      if (!create) {
+        return null;
+      }
+      int insertAt = -index - 1;
+      char[] newLabels = new char[labels.length + 1];
+      Node[] newChildren = new Node[children.length + 1];
+      System.arraycopy(labels, 0, newLabels, 0, insertAt);
+      System.arraycopy(children, 0, newChildren, 0, insertAt);
+      newLabels[insertAt] = label;
+      newChildren[insertAt] = new Node();
+      System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+      System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+      labels = newLabels;
+      children = newChildren;
+      return newChildren[insertAt];
+    }
+
+    void updateMax() {
+      long best = count;
+      for (Node child : children) {
+        best = Math.max(best, child.max);
+      }
+      max = best;
+    }
+
+    String label() {
+      String label = null;
+      long best = -1;
+      for (Map.Entry<String, Long> spelling : spellings.entrySet()) {
+        if (spelling.getValue() > best
+            || (spelling.getValue() == best && spelling.getKey().compareTo(label) < 0)) {
+          label = spelling.getKey();
+          best = spelling.getValue();
+        }
+      }
+      return label;
+    }
+  }
+
+  private static class Candidate {
+
+    private final Node node;
+
+    private final long count;
+
+    private final boolean term;
+
+    Candidate(Node node, long count, boolean term) {
+      this.node = node;
+      this.count = count;
+      this.term = term;
+    }
+  }
+}
@@ -0,0 +1,271 @@
+package mitchell.vehicleProject.suggest;
+
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.dto.VehicleSuggestion;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.exceptions.ServiceUnavailableException;
+import mitchell.vehicleProject.index.IdIntMap;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.shard.VehicleShards;
+import mitchell.vehicleProject.snapshot.VehicleSnapshots;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Type-ahead for makes and models: the most common ones starting with a prefix, ignoring case,
+ * ranked by vehicle count. Served from {@link PrefixTrie}s kept current from {@link
+ * VehicleChangeEvent}s, one for makes, one for all models and one per make for its models.
+ *
+ * <p>A rebuild scans into fresh tries while the current ones keep serving, records the changes
+ * that arrive meanwhile, and replays them onto the new tries as it swaps them in. Until the first
+ * rebuild has succeeded, suggestions are answered 503; a failed one is retried every {@code
+ * retry-delay}.
+ */
+@Component
+@Log4j2
+public class VehicleSuggestions {
+
+  @Autowired private VehicleRepository vehicleRepository;
+
+  @Autowired(required = false)
+  private VehicleShards vehicleShards;
+
+  @Autowired(required = false)
+  private VehicleSnapshots vehicleSnapshots;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Value("${vehicle.suggestions.retry-delay}")
+  private Duration retryDelay;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Suggestions suggestions = new Suggestions();
+
+  // changes seen while a rebuild scans, replayed onto its result; null when none is running
+  private List<VehicleChangeEvent> missed;
+
+  private volatile boolean ready;
+
+  private ScheduledExecutorService retries;
+
+  @PostConstruct
+  public void start() {
+    retries =
+        Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("vehicle-suggestions-"));
+  }
+
+  @PreDestroy
+  public void stop() {
+    retries.shutdownNow();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildOrRetry() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+    try {
+      transaction.executeWithoutResult(status -> rebuild());
+    } catch (RuntimeException e) {
+      log.warn("Rebuilding vehicle suggestions failed, retrying in {}", retryDelay, e);
+      retries.schedule(this::rebuildOrRetry, retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Transactional(readOnly = true)
+  public void rebuild() {
+    long start = System.nanoTime();
+    lock.writeLock().lock();
+    try {
+      missed = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    Suggestions rebuilt = new Suggestions();
+    try {
+      Consumer<Object[]> addKey =
+          key -> rebuilt.add((Integer) key[0], (String) key[2], (String) key[3]);
+      if (Objects.isNull(vehicleSnapshots) || !vehicleSnapshots.forEachKey(addKey)) {
+        VehicleShards.forEachKey(vehicleShards, vehicleRepository, addKey);
+      }
+    } catch (RuntimeException e) {
+      lock.writeLock().lock();
+      try {
+        missed = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      throw e;
+    }
+    int makes;
+    int models;
+    lock.writeLock().lock();
+    try {
+      missed.forEach(rebuilt::apply);
+      missed = null;
+      suggestions = rebuilt;
+      ready = true;
+      makes = rebuilt.tries.makes.size();
+      models = rebuilt.tries.models.size();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info(
+        "Vehicle suggestions rebuilt in {} ms: {} makes, {} models",
+        (System.nanoTime() - start) / 1_000_000,
+        makes,
+        models);
+  }
+
+  @EventListener
+  public void onVehicleChange(VehicleChangeEvent event) {
+    lock.writeLock().lock();
+    try {
+      suggestions.apply(event);
+      if (Objects.nonNull(missed)) {
+        missed.add(event);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Up to {@code limit} makes starting with {@code prefix}, most vehicles first. */
+  public List<VehicleSuggestion> suggestMakes(String prefix, int limit) {
+    checkReady();
+    lock.readLock().lock();
+    try {
+      return suggestions.tries.makes.top(prefix, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Up to {@code limit} models starting with {@code prefix}, most vehicles first; only models of
+   * {@code make} when it is not {@code null}.
+   */
+  public List<VehicleSuggestion> suggestModels(String prefix, String make, int limit) {
+    checkReady();
+    lock.readLock().lock();
+    try {
+      return suggestions.tries.models(make).top(prefix, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void checkReady() {
+    if (!ready) {
+      throw new ServiceUnavailableException(
+          "Vehicle suggestions are still being built, retry shortly");
+    }
+  }
+
+  /** Tries plus what each id currently counts towards; guarded by the enclosing lock. */
+  private static class Suggestions {
+
+    private final Map<Term, Integer> ordinals = new HashMap<>();
+
+    private final List<Term> terms = new ArrayList<>();
+
+    private final IdIntMap termOf = new IdIntMap();
+
+    private final Tries tries = new Tries();
+
+    // the scan may already have seen the change, so applying it again must change nothing
+    void apply(VehicleChangeEvent event) {
+      remove(event.getId());
+      Vehicle vehicle = event.getVehicle();
+      if (Objects.nonNull(vehicle)) {
+        add(vehicle.getId(), vehicle.getMake(), vehicle.getModel());
+      }
+    }
+
+    void add(Integer id, String make, String model) {
+      if (Objects.isNull(id) || Objects.isNull(make) || Objects.isNull(model)) {
+        return;
+      }
+      remove(id);
+      Term term = new Term(make, model);
+      Integer ordinal = ordinals.get(term);
+      if (Objects.isNull(ordinal)) {
+        ordinal = terms.size();
+        terms.add(term);
+        ordinals.put(term, ordinal);
+      }
+      termOf.put(id, ordinal + 1);
+      tries.add(make, model, 1);
+    }
+
+    void remove(Integer id) {
+      if (Objects.isNull(id)) {
+        return;
+      }
+      int ordinal = termOf.remove(id);
+      if (ordinal != IdIntMap.ABSENT) {
+        Term term = terms.get(ordinal - 1);
+        tries.add(term.getMake(), term.getModel(), -1);
+      }
+    }
+  }
+
+  @lombok.Value
+  private static class Term {
+
+    String make;
+
+    String model;
+  }
+
+  private static class Tries {
+
+    private static final PrefixTrie EMPTY = new PrefixTrie();
+
+    private final PrefixTrie makes = new PrefixTrie();
+
+    private final PrefixTrie models = new PrefixTrie();
+
+    private final Map<String, PrefixTrie> modelsByMake = new HashMap<>();
+
+    void add(String make, String model, long delta) {
+      makes.add(make, delta);
+      models.add(model, delta);
+      modelsByMake
+          .computeIfAbsent(VehicleDictionary.normalize(make), m -> new PrefixTrie())
+          .add(model, delta);
+    }
+
+    PrefixTrie models(String make) {
+      if (Objects.isNull(make)) {
+        return models;
+      }
+      return modelsByMake.getOrDefault(VehicleDictionary.normalize(make), EMPTY);
+    }
+  }
+}
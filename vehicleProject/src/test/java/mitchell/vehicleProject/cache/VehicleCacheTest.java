@@ -0,0 +1,80 @@
+package mitchell.vehicleProject.cache;
+
+import mitchell.vehicleProject.entity.Vehicle;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+
+public class VehicleCacheTest {
+
+  private VehicleCache vehicleCache;
+
+  @Before
+  public void setup() {
+    vehicleCache = new VehicleCache(100, Duration.ofMinutes(1), Duration.ofSeconds(30));
+  }
+
+  private static Optional<Vehicle> vehicle(int id, String model) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(id);
+    vehicle.setYear(2000);
+    vehicle.setMake("honda");
+    vehicle.setModel(model);
+    return Optional.of(vehicle);
+  }
+
+  @Test
+  public void givenCachedVehicleWhenInvalidatedThenNextGetLoads() {
+    vehicleCache.get(1, id -> vehicle(id, "civic"));
+    vehicleCache.invalidate(1);
+    assertThat(vehicleCache.getIfPresent(1).isPresent(), comparesEqualTo(false));
+    assertThat(
+        vehicleCache.get(1, id -> vehicle(id, "accord")).get().getModel(),
+        comparesEqualTo("accord"));
+  }
+
+  @Test
+  public void givenInvalidationDuringLoadWhenLoadEndsThenOldRowIsNotKept() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Optional<Vehicle>> load =
+        CompletableFuture.supplyAsync(
+            () ->
+                vehicleCache.get(
+                    1,
+                    id -> {
+                      loading.countDown();
+                      try {
+                        release.await(5, TimeUnit.SECONDS);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      return vehicle(id, "civic");
+                    }));
+    assertThat(loading.await(5, TimeUnit.SECONDS), comparesEqualTo(true));
+
+    // the change commits while the old row is being read
+    Thread invalidator = new Thread(() -> vehicleCache.invalidate(1));
+    invalidator.start();
+    while (invalidator.getState() == Thread.State.NEW
+        || invalidator.getState() == Thread.State.RUNNABLE) {
+      Thread.yield();
+    }
+    release.countDown();
+    assertThat(load.get(5, TimeUnit.SECONDS).get().getModel(), comparesEqualTo("civic"));
+    invalidator.join(5000);
+
+    assertThat(vehicleCache.getIfPresent(1).isPresent(), comparesEqualTo(false));
+    assertThat(
+        vehicleCache.get(1, id -> vehicle(id, "accord")).get().getModel(),
+        comparesEqualTo("accord"));
+  }
+}
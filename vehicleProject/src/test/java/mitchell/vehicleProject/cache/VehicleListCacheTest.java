@@ -0,0 +1,206 @@
+package mitchell.vehicleProject.cache;
+
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.format.VehicleFormat;
+import mitchell.vehicleProject.format.VehicleProtobufHttpMessageConverter;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.containsString;
+
+public class VehicleListCacheTest {
+
+  private VehicleListCache vehicleListCache;
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Before
+  public void setup() {
+    HttpMessageConverters converters =
+        new HttpMessageConverters(
+            false,
+            Arrays.asList(
+                new MappingJackson2HttpMessageConverter(),
+                new MappingJackson2CborHttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter(),
+                new VehicleProtobufHttpMessageConverter()));
+    vehicleListCache =
+        new VehicleListCache(converters, DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+  }
+
+  private static Vehicle vehicle(int id, int year, String make, String model) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(id);
+    vehicle.setYear(year);
+    vehicle.setMake(make);
+    vehicle.setModel(model);
+    return vehicle;
+  }
+
+  private Supplier<List<Vehicle>> loader(Vehicle... vehicles) {
+    return () -> {
+      loads.incrementAndGet();
+      return Arrays.asList(vehicles);
+    };
+  }
+
+  private String get(Integer year, String make, Supplier<List<Vehicle>> loader) {
+    byte[] body = vehicleListCache.get(year, make, null, VehicleFormat.JSON, loader);
+    return new String(body, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void givenSameFilterInAnyCaseWhenGetThenLoadedOnce() {
+    String body = get(2000, "honda", loader(vehicle(1, 2000, "honda", "civic")));
+    assertThat(body, containsString("\"civic\""));
+    assertThat(get(2000, "HONDA", loader()), comparesEqualTo(body));
+    assertThat(loads.get(), comparesEqualTo(1));
+
+    // each format is its own entry
+    vehicleListCache.get(2000, "honda", null, VehicleFormat.CBOR, loader());
+    assertThat(loads.get(), comparesEqualTo(2));
+  }
+
+  @Test
+  public void givenNoFilterWhenCheckedThenNotCached() {
+    assertThat(VehicleListCache.caches(null, null, null), comparesEqualTo(false));
+    assertThat(VehicleListCache.caches(null, null, "civic"), comparesEqualTo(true));
+    try {
+      get(null, null, loader());
+      throw new AssertionError("An unfiltered list was cached");
+    } catch (IllegalArgumentException e) {
+      assertThat(loads.get(), comparesEqualTo(0));
+    }
+  }
+
+  @Test
+  public void givenChangeWhenGetThenOnlyAffectedFiltersReload() {
+    get(2000, "honda", loader(vehicle(1, 2000, "honda", "civic")));
+    get(null, "BMW", loader(vehicle(2, 2001, "BMW", "i8")));
+    get(2005, null, loader());
+    loads.set(0);
+
+    // a new honda from 2000 lands in the first list only
+    vehicleListCache.onVehicleChange(
+        new VehicleChangeEvent(
+            VehicleChangeEvent.Type.CREATED, 3, vehicle(3, 2000, "Honda", "accord")));
+    get(2000, "honda", loader());
+    get(null, "BMW", loader());
+    assertThat(loads.get(), comparesEqualTo(1));
+
+    // the BMW moves to 2005: it leaves the list that held it and joins the 2005 one
+    vehicleListCache.onVehicleChange(
+        new VehicleChangeEvent(
+            VehicleChangeEvent.Type.UPDATED, 2, vehicle(2, 2005, "mini", "i8")));
+    get(null, "BMW", loader());
+    get(2005, null, loader());
+    get(2000, "honda", loader());
+    assertThat(loads.get(), comparesEqualTo(3));
+
+    // the reloaded honda list no longer holds vehicle 1, so deleting it changes nothing there
+    vehicleListCache.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, 1, null));
+    get(2000, "honda", loader());
+    assertThat(loads.get(), comparesEqualTo(3));
+  }
+
+  @Test
+  public void givenConcurrentIdenticalMissesWhenGetThenOneLoadIsShared() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Supplier<List<Vehicle>> slowLoader =
+        () -> {
+          loads.incrementAndGet();
+          loading.countDown();
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return Collections.singletonList(vehicle(1, 2000, "honda", "civic"));
+        };
+    CompletableFuture<String> first =
+        CompletableFuture.supplyAsync(() -> get(2000, "honda", slowLoader));
+    loading.await(5, TimeUnit.SECONDS);
+    // joins the running load, or finds its result if it lands first; never loads again
+    CompletableFuture<String> second =
+        CompletableFuture.supplyAsync(() -> get(2000, "honda", slowLoader));
+    Thread.sleep(50);
+    release.countDown();
+
+    assertThat(second.get(5, TimeUnit.SECONDS), comparesEqualTo(first.get(5, TimeUnit.SECONDS)));
+    assertThat(loads.get(), comparesEqualTo(1));
+  }
+
+  @Test
+  public void givenLoaderErrorWhenGetThenWaitersFailAndNextGetLoadsAgain() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Supplier<List<Vehicle>> failingLoader =
+        () -> {
+          loads.incrementAndGet();
+          loading.countDown();
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          throw new StackOverflowError();
+        };
+    CompletableFuture<String> first =
+        CompletableFuture.supplyAsync(() -> get(2000, "honda", failingLoader));
+    loading.await(5, TimeUnit.SECONDS);
+    CompletableFuture<String> second =
+        CompletableFuture.supplyAsync(() -> get(2000, "honda", failingLoader));
+    Thread.sleep(50);
+    release.countDown();
+
+    for (CompletableFuture<String> waiter : Arrays.asList(first, second)) {
+      try {
+        waiter.get(5, TimeUnit.SECONDS);
+        throw new AssertionError("expected the load to fail");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause() instanceof StackOverflowError, comparesEqualTo(true));
+      }
+    }
+    get(2000, "honda", loader(vehicle(1, 2000, "honda", "civic")));
+    assertThat(loads.get(), comparesEqualTo(2));
+  }
+
+  @Test
+  public void givenUpdateDuringLoadWhenGetThenLoadedBodyIsNotKept() {
+    get(
+        2000,
+        "honda",
+        () -> {
+          loads.incrementAndGet();
+          // committed after the query read its rows, before the body was stored
+          vehicleListCache.onVehicleChange(
+              new VehicleChangeEvent(
+                  VehicleChangeEvent.Type.UPDATED, 9, vehicle(9, 1990, "ford", "focus")));
+          return Collections.singletonList(vehicle(1, 2000, "honda", "civic"));
+        });
+    get(2000, "honda", loader());
+    assertThat(loads.get(), comparesEqualTo(2));
+  }
+}
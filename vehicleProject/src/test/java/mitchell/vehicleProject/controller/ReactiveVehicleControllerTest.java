@@ -0,0 +1,176 @@
+package mitchell.vehicleProject.controller;
+
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.reactive.ReactiveVehicleService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The reactive mode against the same expectations as {@link VehicleControllerTest} and {@code
+ * VehicleServiceTest}: status codes, validation messages, ETag preconditions and deletes.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+@DirtiesContext
+public class ReactiveVehicleControllerTest {
+
+  @Autowired private WebTestClient webTestClient;
+
+  @SpyBean private ReactiveVehicleService reactiveVehicleService;
+
+  private static Vehicle vehicle(Integer year, String make, String model) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setYear(year);
+    vehicle.setMake(make);
+    vehicle.setModel(model);
+    return vehicle;
+  }
+
+  private Vehicle create(String make) {
+    webTestClient
+        .post()
+        .uri("/vehicles")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(vehicle(2000, make, "civic"))
+        .exchange()
+        .expectStatus()
+        .isCreated()
+        .expectBody(String.class)
+        .isEqualTo("vehicle created");
+    List<Vehicle> vehicles =
+        webTestClient
+            .get()
+            .uri("/vehicles?make={make}", make)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(Vehicle.class)
+            .returnResult()
+            .getResponseBody();
+    assertThat(vehicles.size(), comparesEqualTo(1));
+    return vehicles.get(0);
+  }
+
+  private WebTestClient.ResponseSpec put(Vehicle vehicle, String ifMatch) {
+    return webTestClient
+        .put()
+        .uri("/vehicles")
+        .contentType(MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.IF_MATCH, ifMatch)
+        .bodyValue(vehicle)
+        .exchange();
+  }
+
+  @Test
+  public void givenInvalidVehicleWhenCreateThenBadRequestWithServletMessage() {
+    webTestClient
+        .post()
+        .uri("/vehicles")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(vehicle(2051, "honda", "civic"))
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectBody(String.class)
+        .isEqualTo("Year must be between 1950 and 2050");
+    webTestClient
+        .post()
+        .uri("/vehicles")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(vehicle(2000, "", "civic"))
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectBody(String.class)
+        .isEqualTo("Make or Model cannot be empty");
+  }
+
+  @Test
+  public void givenVehicleWhenGetThenETagAndNotModifiedOnRevalidation() {
+    Vehicle created = create("Etagmake");
+    String eTag = "\"" + created.getId() + ".0\"";
+    webTestClient
+        .get()
+        .uri("/vehicles/{id}", created.getId())
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(HttpHeaders.ETAG, eTag);
+    // without a tag to compare there is nothing for the version lookup to save
+    verify(reactiveVehicleService, never()).getVehicleVersion(anyInt());
+    webTestClient
+        .get()
+        .uri("/vehicles/{id}", created.getId())
+        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+        .exchange()
+        .expectStatus()
+        .isNotModified();
+    verify(reactiveVehicleService, times(1)).getVehicleVersion(created.getId());
+  }
+
+  @Test
+  public void givenIfMatchWhenUpdateThenOnlyCurrentVersionWins() {
+    Vehicle created = create("Ifmatchmake");
+    Vehicle update = vehicle(2001, "Ifmatchmake", "accord");
+    update.setId(created.getId());
+    String current = "\"" + created.getId() + ".0\"";
+
+    put(update, current)
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(HttpHeaders.ETAG, "\"" + created.getId() + ".1\"")
+        .expectBody(String.class)
+        .isEqualTo("vehicle updated");
+    put(update, current).expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+  }
+
+  @Test
+  public void givenVehicleWhenDeleteThenNoContentAndThenNotFound() {
+    Vehicle created = create("Deletemake");
+    webTestClient
+        .delete()
+        .uri("/vehicles/{id}", created.getId())
+        .exchange()
+        .expectStatus()
+        .isNoContent();
+    webTestClient
+        .delete()
+        .uri("/vehicles/{id}", created.getId())
+        .exchange()
+        .expectStatus()
+        .isBadRequest()
+        .expectBody(String.class)
+        .isEqualTo(
+            "Vehicle with id " + created.getId() + " is not present in the database");
+    webTestClient
+        .get()
+        .uri("/vehicles/{id}", created.getId())
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+}
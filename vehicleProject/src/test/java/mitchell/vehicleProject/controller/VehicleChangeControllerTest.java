@@ -0,0 +1,132 @@
+package mitchell.vehicleProject.controller;
+
+import mitchell.vehicleProject.changes.VehicleChangeLog;
+import mitchell.vehicleProject.changes.VehicleChangeStreamer;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.exceptions.ExceptionAdvice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+public class VehicleChangeControllerTest {
+
+  private final VehicleChangeLog vehicleChangeLog = new VehicleChangeLog(4);
+
+  private final VehicleChangeStreamer vehicleChangeStreamer = new VehicleChangeStreamer();
+
+  private MockMvc mockMvc;
+
+  @Before
+  public void setup() {
+    ReflectionTestUtils.setField(vehicleChangeStreamer, "vehicleChangeLog", vehicleChangeLog);
+    ReflectionTestUtils.setField(vehicleChangeStreamer, "maxSubscribers", 1);
+    ReflectionTestUtils.setField(vehicleChangeStreamer, "heartbeat", Duration.ofMillis(20));
+    ReflectionTestUtils.setField(vehicleChangeStreamer, "pageSize", 10);
+    vehicleChangeStreamer.start();
+
+    VehicleChangeController vehicleChangeController = new VehicleChangeController();
+    ReflectionTestUtils.setField(vehicleChangeController, "vehicleChangeLog", vehicleChangeLog);
+    ReflectionTestUtils.setField(
+        vehicleChangeController, "vehicleChangeStreamer", vehicleChangeStreamer);
+    ReflectionTestUtils.setField(vehicleChangeController, "maxLimit", 10);
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(vehicleChangeController)
+            .setControllerAdvice(new ExceptionAdvice())
+            .build();
+  }
+
+  @After
+  public void tearDown() {
+    vehicleChangeStreamer.stop();
+  }
+
+  private void created(int id) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(id);
+    vehicle.setYear(2000);
+    vehicle.setMake("honda");
+    vehicle.setModel("civic");
+    vehicleChangeLog.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.CREATED, id, vehicle));
+  }
+
+  /** Waits for the stream behind {@code result} to have written {@code expected}. */
+  private static String awaitContent(MvcResult result, String expected) throws Exception {
+    long deadline = System.currentTimeMillis() + 5000;
+    String content = result.getResponse().getContentAsString();
+    while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+      content = result.getResponse().getContentAsString();
+    }
+    return content;
+  }
+
+  @Test
+  public void shouldAnswerGoneForAnEpochFromBeforeARestart() throws Exception {
+    created(1);
+    MvcResult result =
+        mockMvc.perform(get("/vehicles/changes?since=0&epoch=past")).andReturn();
+    assertThat(result.getResponse().getStatus(), comparesEqualTo(HttpStatus.GONE.value()));
+    assertThat(result.getResponse().getContentAsString(), containsString("/vehicles/export"));
+
+    result =
+        mockMvc
+            .perform(get("/vehicles/changes?since=0&epoch=" + vehicleChangeLog.getEpoch()))
+            .andReturn();
+    assertThat(result.getResponse().getStatus(), comparesEqualTo(HttpStatus.OK.value()));
+  }
+
+  @Test
+  public void shouldResetStreamResumedFromAnotherEpoch() throws Exception {
+    created(1);
+    MvcResult result =
+        mockMvc
+            .perform(get("/vehicles/changes/stream").header("Last-Event-ID", "past:1"))
+            .andReturn();
+    assertThat(awaitContent(result, "event:reset"), containsString("event:reset"));
+  }
+
+  @Test
+  public void shouldResetStreamThatFellBehindRetention() throws Exception {
+    for (int id = 1; id <= 6; id++) {
+      created(id);
+    }
+    MvcResult result = mockMvc.perform(get("/vehicles/changes/stream?since=1")).andReturn();
+    String content = awaitContent(result, "event:reset");
+    assertThat(content, containsString("event:reset"));
+    assertThat(content.contains("event:created"), comparesEqualTo(false));
+  }
+
+  @Test
+  public void shouldStreamChangesThenHeartbeatsWhileIdle() throws Exception {
+    created(1);
+    MvcResult result = mockMvc.perform(get("/vehicles/changes/stream?since=0")).andReturn();
+    String content = awaitContent(result, ":heartbeat");
+    assertThat(
+        content,
+        containsString("id:" + vehicleChangeLog.getEpoch() + ":1\nevent:created\n"));
+    assertThat(content, containsString(":heartbeat"));
+  }
+
+  @Test
+  public void shouldAnswerServiceUnavailableBeyondMaxSubscribers() throws Exception {
+    mockMvc.perform(get("/vehicles/changes/stream")).andReturn();
+    MvcResult result = mockMvc.perform(get("/vehicles/changes/stream")).andReturn();
+    assertThat(
+        result.getResponse().getStatus(),
+        comparesEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value()));
+  }
+}
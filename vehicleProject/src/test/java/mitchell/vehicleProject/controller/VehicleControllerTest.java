@@ -3,8 +3,15 @@ package mitchell.vehicleProject.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.dto.VehicleLookupResult;
 import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeCounter;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.exceptions.ExceptionAdvice;
+import mitchell.vehicleProject.exceptions.PreconditionFailedException;
+import mitchell.vehicleProject.format.VehicleMediaTypes;
 import mitchell.vehicleProject.service.VehicleService;
 import org.junit.Before;
 import org.junit.Rule;
@@ -13,9 +20,11 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -28,13 +37,21 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -52,13 +69,18 @@ public class VehicleControllerTest {
 
   @Mock private VehicleService vehicleService;
 
+  @Spy private VehicleChangeCounter vehicleChangeCounter = new VehicleChangeCounter();
+
   @Autowired private ObjectMapper objectMapper;
 
   @Rule public ExpectedException expectedException = ExpectedException.none();
 
   @Before
   public void setup() {
-    this.mockMvc = MockMvcBuilders.standaloneSetup(vehicleController).build();
+    this.mockMvc =
+        MockMvcBuilders.standaloneSetup(vehicleController)
+            .setControllerAdvice(new ExceptionAdvice())
+            .build();
   }
 
   private List<Vehicle> getVehicles() {
@@ -100,6 +122,114 @@ public class VehicleControllerTest {
     assertThat(actual, comparesEqualTo(expected));
   }
 
+  @Test
+  public void shouldNotLookUpVersionWithoutIfNoneMatch() throws Exception {
+    Vehicle vehicle = getVehicles().get(0);
+    vehicle.setVersion(3);
+    when(vehicleService.getVehicle(1)).thenReturn(vehicle);
+    MvcResult result = mockMvc.perform(get("/vehicles/1")).andExpect(status().isOk()).andReturn();
+    assertThat(result.getResponse().getHeader(HttpHeaders.ETAG), comparesEqualTo("\"1.3\""));
+    verify(vehicleService, never()).getVehicleVersion(1);
+  }
+
+  @Test
+  public void shouldAnswerNotModifiedForCurrentVehicleVersionWithoutLoadingIt() throws Exception {
+    when(vehicleService.getVehicleVersion(1)).thenReturn(Optional.of(3L));
+    MvcResult result =
+        mockMvc
+            .perform(get("/vehicles/1").header(HttpHeaders.IF_NONE_MATCH, "\"1.3\""))
+            .andExpect(status().isNotModified())
+            .andReturn();
+    assertThat(result.getResponse().getHeader(HttpHeaders.ETAG), comparesEqualTo("\"1.3\""));
+    assertThat(result.getResponse().getContentAsString(), comparesEqualTo(""));
+    verify(vehicleService, never()).getVehicle(1);
+  }
+
+  @Test
+  public void shouldReturnVehicleWithNewETagWhenVersionChanged() throws Exception {
+    Vehicle vehicle = getVehicles().get(0);
+    vehicle.setVersion(4);
+    when(vehicleService.getVehicleVersion(1)).thenReturn(Optional.of(4L));
+    when(vehicleService.getVehicle(1)).thenReturn(vehicle);
+    MvcResult result =
+        mockMvc
+            .perform(get("/vehicles/1").header(HttpHeaders.IF_NONE_MATCH, "\"1.3\""))
+            .andExpect(status().isOk())
+            .andReturn();
+    assertThat(result.getResponse().getHeader(HttpHeaders.ETAG), comparesEqualTo("\"1.4\""));
+  }
+
+  @Test
+  public void shouldNegotiateCborWithItsOwnETag() throws Exception {
+    Vehicle vehicle = getVehicles().get(0);
+    vehicle.setVersion(3);
+    when(vehicleService.getVehicleVersion(1)).thenReturn(Optional.of(3L));
+    when(vehicleService.getVehicle(1)).thenReturn(vehicle);
+    MvcResult result =
+        mockMvc
+            .perform(
+                get("/vehicles/1")
+                    .accept(MediaType.valueOf(VehicleMediaTypes.APPLICATION_CBOR_VALUE))
+                    .header(HttpHeaders.IF_NONE_MATCH, "\"1.3\""))
+            .andExpect(status().isOk())
+            .andReturn();
+    assertThat(
+        result.getResponse().getContentType(),
+        comparesEqualTo(VehicleMediaTypes.APPLICATION_CBOR_VALUE));
+    assertThat(result.getResponse().getHeader(HttpHeaders.ETAG), comparesEqualTo("\"1.3+cbor\""));
+    assertThat(result.getResponse().getHeader(HttpHeaders.VARY), comparesEqualTo("Accept"));
+    Vehicle decoded =
+        new ObjectMapper(new CBORFactory())
+            .readValue(result.getResponse().getContentAsByteArray(), Vehicle.class);
+    assertThat(decoded.getModel(), comparesEqualTo("civic"));
+  }
+
+  @Test
+  public void shouldRevalidateVehicleListAgainstTableChangeCounter() throws Exception {
+    when(vehicleService.getVehicles(Optional.empty(), Optional.empty(), Optional.empty()))
+        .thenReturn(getVehicles());
+    String eTag =
+        mockMvc
+            .perform(get("/vehicles"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+    mockMvc
+        .perform(get("/vehicles").header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified());
+    verify(vehicleService, times(1))
+        .getVehicles(Optional.empty(), Optional.empty(), Optional.empty());
+
+    vehicleChangeCounter.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, 1, null));
+    mockMvc
+        .perform(get("/vehicles").header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk());
+    verify(vehicleService, times(2))
+        .getVehicles(Optional.empty(), Optional.empty(), Optional.empty());
+  }
+
+  @Test
+  public void shouldFetchManyVehiclesByCommaSeparatedIds() throws Exception {
+    List<Vehicle> vehicles = getVehicles();
+    when(vehicleService.getVehiclesById(Arrays.asList(2, 7, 1)))
+        .thenReturn(
+            new VehicleLookupResult(
+                Arrays.asList(vehicles.get(1), vehicles.get(0)), Arrays.asList(7)));
+    MvcResult result =
+        mockMvc
+            .perform(get("/vehicles").param("id", "2,7,1"))
+            .andExpect(status().isOk())
+            .andReturn();
+    String expected =
+        "{\"vehicles\":[{\"id\":2,\"year\":2001,\"make\":\"honda\",\"model\":\"accord\"},"
+            + "{\"id\":1,\"year\":2000,\"make\":\"honda\",\"model\":\"civic\"}],"
+            + "\"missing\":[7]}";
+    assertThat(result.getResponse().getContentAsString(), comparesEqualTo(expected));
+  }
+
   @Test
   public void shouldDeleteVehicle() throws Exception {
     doNothing().when(vehicleService).deleteVehicle(1);
@@ -130,7 +260,10 @@ public class VehicleControllerTest {
   @Test
   public void shouldUpdateExistingVehicle() throws Exception {
 
-    doNothing().when(vehicleService).createVehicle(getVehicles().get(0));
+    Vehicle updatedVehicle = getVehicles().get(1);
+    updatedVehicle.setVersion(1);
+    when(vehicleService.updateVehicle(any(Vehicle.class), eq(Optional.empty())))
+        .thenReturn(updatedVehicle);
 
     MvcResult result =
         this.mockMvc
@@ -148,4 +281,52 @@ public class VehicleControllerTest {
     ObjectMapper mapper = new ObjectMapper();
     return mapper.writeValueAsString(object);
   }
+
+  @Test
+  public void shouldPatchVehicleWithVersionFromIfMatch() throws Exception {
+    Vehicle patchedVehicle = getVehicles().get(1);
+    patchedVehicle.setModel("civic");
+    patchedVehicle.setVersion(4);
+    when(vehicleService.patchVehicle(eq(2), any(Vehicle.class), eq(Optional.of(3L))))
+        .thenReturn(patchedVehicle);
+
+    MvcResult result =
+        mockMvc
+            .perform(
+                patch("/vehicles/2")
+                    .contentType(MediaType.APPLICATION_JSON_VALUE)
+                    .header(HttpHeaders.IF_MATCH, "\"2.3\"")
+                    .content("{\"model\":\"civic\"}"))
+            .andExpect(status().isOk())
+            .andReturn();
+    assertThat(result.getResponse().getHeader(HttpHeaders.ETAG), comparesEqualTo("\"2.4\""));
+    assertThat(
+        result.getResponse().getContentAsString(),
+        comparesEqualTo("{\"id\":2,\"year\":2001,\"make\":\"honda\",\"model\":\"civic\"}"));
+  }
+
+  @Test
+  public void shouldAnswerPreconditionFailedWhenVersionMovedOn() throws Exception {
+    when(vehicleService.patchVehicle(eq(2), any(Vehicle.class), eq(Optional.of(3L))))
+        .thenThrow(new PreconditionFailedException("Vehicle with id 2 is at version 4, not 3"));
+    mockMvc
+        .perform(
+            patch("/vehicles/2")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_MATCH, "\"2.3\"")
+                .content("{\"model\":\"civic\"}"))
+        .andExpect(status().isPreconditionFailed());
+  }
+
+  @Test
+  public void shouldAnswerPreconditionFailedForETagOfAnotherVehicle() throws Exception {
+    mockMvc
+        .perform(
+            patch("/vehicles/2")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_MATCH, "\"1.3\"")
+                .content("{\"model\":\"civic\"}"))
+        .andExpect(status().isPreconditionFailed());
+    verify(vehicleService, never()).patchVehicle(eq(2), any(Vehicle.class), any());
+  }
 }
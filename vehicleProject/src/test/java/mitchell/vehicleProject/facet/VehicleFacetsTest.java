@@ -0,0 +1,132 @@
+package mitchell.vehicleProject.facet;
+
+import mitchell.vehicleProject.dto.VehicleFacetCounts;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.exceptions.ServiceUnavailableException;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+public class VehicleFacetsTest {
+
+  @InjectMocks private VehicleFacets vehicleFacets;
+
+  @Mock private VehicleRepository vehicleRepository;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Before
+  public void setup() {
+    when(vehicleRepository.streamKeys())
+        .thenReturn(
+            Stream.of(
+                new Object[] {1, 2000, "honda", "civic"},
+                new Object[] {2, 2001, "honda", "accord"},
+                new Object[] {3, 2002, "BMW", "i8"},
+                new Object[] {4, 2000, "honda", "accord"}));
+    vehicleFacets.rebuild();
+  }
+
+  @Test
+  public void givenNoFiltersWhenCountThenReturnCountsByMakeModelAndYear() {
+    VehicleFacetCounts facetCounts = vehicleFacets.count(null, null, null);
+    verify(vehicleRepository, never()).countByYearMakeModel();
+    assertThat(facetCounts.getTotal(), comparesEqualTo(4L));
+    assertThat(facetCounts.getByMake().get("honda"), comparesEqualTo(3L));
+    assertThat(facetCounts.getByMakeModel().get("honda").get("accord"), comparesEqualTo(2L));
+    assertThat(facetCounts.getByYear().get(2000), comparesEqualTo(2L));
+  }
+
+  @Test
+  public void givenChangeEventsWhenCountThenCountersFollowTheChanges() {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(4);
+    vehicle.setYear(2003);
+    vehicle.setMake("Tesla");
+    vehicle.setModel("model X");
+    vehicleFacets.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.UPDATED, 4, vehicle));
+    vehicleFacets.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, 3, null));
+
+    VehicleFacetCounts facetCounts = vehicleFacets.count(null, "honda", null);
+    assertThat(facetCounts.getTotal(), comparesEqualTo(2L));
+    assertThat(facetCounts.getByMakeModel().get("honda").get("accord"), comparesEqualTo(1L));
+    assertThat(facetCounts.getByYear(), not(hasKey(2003)));
+
+    facetCounts = vehicleFacets.count(null, null, null);
+    assertThat(facetCounts.getByMake(), not(hasKey("BMW")));
+    assertThat(facetCounts.getByMake().get("Tesla"), comparesEqualTo(1L));
+  }
+
+  @Test
+  public void givenSparseIdWhenCreatedAndDeletedThenCountersFollow() {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(2_000_000_000);
+    vehicle.setYear(2003);
+    vehicle.setMake("Tesla");
+    vehicle.setModel("model X");
+    vehicleFacets.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.CREATED, 2_000_000_000, vehicle));
+    assertThat(
+        vehicleFacets.count(null, "Tesla", null).getTotal(), comparesEqualTo(1L));
+
+    vehicleFacets.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, 2_000_000_000, null));
+    assertThat(
+        vehicleFacets.count(null, "Tesla", null).getTotal(), comparesEqualTo(0L));
+  }
+
+  @Test
+  public void givenFailedRebuildWhenCountThenServiceUnavailableUntilARetrySucceeds()
+      throws Exception {
+    when(vehicleRepository.streamKeys())
+        .thenThrow(new IllegalStateException("db down"))
+        .thenReturn(Stream.<Object[]>of(new Object[] {1, 2000, "honda", "civic"}));
+    ReflectionTestUtils.setField(vehicleFacets, "retryDelay", Duration.ofMillis(20));
+    vehicleFacets.start();
+    try {
+      vehicleFacets.rebuildOrRetry();
+      try {
+        vehicleFacets.count(null, null, null);
+        throw new AssertionError("expected facets to be unavailable");
+      } catch (ServiceUnavailableException e) {
+        verify(vehicleRepository, never()).countByYearMakeModel();
+      }
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      VehicleFacetCounts facetCounts = null;
+      while (Objects.isNull(facetCounts) && System.nanoTime() < deadline) {
+        try {
+          facetCounts = vehicleFacets.count(null, null, null);
+        } catch (ServiceUnavailableException e) {
+          Thread.sleep(10);
+        }
+      }
+      assertThat(facetCounts.getTotal(), comparesEqualTo(1L));
+    } finally {
+      vehicleFacets.stop();
+    }
+  }
+}
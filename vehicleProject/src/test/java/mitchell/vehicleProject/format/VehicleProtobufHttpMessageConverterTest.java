@@ -0,0 +1,85 @@
+package mitchell.vehicleProject.format;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class VehicleProtobufHttpMessageConverterTest {
+
+  private static final MediaType PROTOBUF =
+      MediaType.valueOf(VehicleMediaTypes.APPLICATION_PROTOBUF_VALUE);
+
+  private final Type vehicleListType = new TypeReference<List<Vehicle>>() {}.getType();
+
+  private final VehicleProtobufHttpMessageConverter converter =
+      new VehicleProtobufHttpMessageConverter();
+
+  private static Vehicle vehicle(Integer id, int year, String make, String model) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(id);
+    vehicle.setYear(year);
+    vehicle.setMake(make);
+    vehicle.setModel(model);
+    return vehicle;
+  }
+
+  @Test
+  public void givenVehicleListWhenWrittenThenReadBackAsVehicleListMessage() throws Exception {
+    List<Vehicle> vehicles = new ArrayList<>();
+    vehicles.add(vehicle(1, 2000, "honda", "civic"));
+    vehicles.add(vehicle(300, 2021, "Tesla", "model X"));
+
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    converter.write(vehicles, vehicleListType, PROTOBUF, output);
+    @SuppressWarnings("unchecked")
+    List<Vehicle> decoded =
+        (List<Vehicle>)
+            converter.read(
+                vehicleListType, null, new MockHttpInputMessage(output.getBodyAsBytes()));
+
+    assertThat(decoded.size(), comparesEqualTo(2));
+    assertThat(decoded.get(1).getId(), comparesEqualTo(300));
+    assertThat(decoded.get(1).getYear(), comparesEqualTo(2021));
+    assertThat(decoded.get(1).getModel(), comparesEqualTo("model X"));
+  }
+
+  @Test
+  public void givenVehicleWithoutIdWhenRoundTrippedThenIdStaysAbsent() throws Exception {
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    converter.write(vehicle(null, 2000, "honda", "civic"), Vehicle.class, PROTOBUF, output);
+    Vehicle decoded =
+        (Vehicle)
+            converter.read(Vehicle.class, null, new MockHttpInputMessage(output.getBodyAsBytes()));
+
+    assertThat(decoded.getId(), nullValue());
+    assertThat(decoded.getMake(), comparesEqualTo("honda"));
+  }
+
+  @Test
+  public void givenEmptyBodyWhenReadListThenReturnNoVehicles() throws Exception {
+    assertThat(
+        converter.readVehicles(new ByteArrayInputStream(new byte[0])).size(), comparesEqualTo(0));
+  }
+
+  @Test
+  public void givenOtherTypesWhenCanWriteThenDecline() {
+    assertThat(
+        converter.canWrite(vehicleListType, ArrayList.class, PROTOBUF), comparesEqualTo(true));
+    assertThat(converter.canWrite(String.class, String.class, PROTOBUF), comparesEqualTo(false));
+    assertThat(
+        converter.canWrite(vehicleListType, ArrayList.class, MediaType.APPLICATION_JSON),
+        comparesEqualTo(false));
+  }
+}
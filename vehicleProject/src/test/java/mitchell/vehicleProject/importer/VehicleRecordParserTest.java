@@ -0,0 +1,117 @@
+package mitchell.vehicleProject.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mitchell.vehicleProject.metrics.VehicleMetrics;
+import mitchell.vehicleProject.service.VehicleService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+@RunWith(SpringRunner.class)
+public class VehicleRecordParserTest {
+
+  @InjectMocks private VehicleRecordParser vehicleRecordParser;
+
+  @Spy private ObjectMapper objectMapper = new ObjectMapper();
+
+  @Spy private VehicleService vehicleService;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Before
+  public void setup() {
+    ReflectionTestUtils.setField(
+        vehicleService, "vehicleMetrics", new VehicleMetrics(new SimpleMeterRegistry()));
+  }
+
+  @Test
+  public void givenCsvBatchWhenParseThenSkipHeaderAndRejectInvalidRecords() {
+    RawBatch batch =
+        new RawBatch(
+            1,
+            Arrays.asList(
+                "year,make,model",
+                "2000,honda,civic",
+                "2003,\"Tesla\",\"model X, long range\"",
+                "",
+                "2051,honda,accord",
+                "20x1,honda,accord",
+                "2001,honda"),
+            100);
+
+    ParsedBatch parsed = vehicleRecordParser.parse(batch, ImportFormat.CSV);
+
+    assertThat(parsed.getLines(), comparesEqualTo(7L));
+    assertThat(parsed.getEndOffset(), comparesEqualTo(100L));
+    assertThat(parsed.getVehicles().size(), comparesEqualTo(2));
+    assertThat(parsed.getVehicles().get(1).getModel(), comparesEqualTo("model X, long range"));
+    assertThat(parsed.getRejected().size(), comparesEqualTo(3));
+    assertThat(parsed.getRejected().get(0).getLine(), comparesEqualTo(5L));
+    assertThat(
+        parsed.getRejected().get(0).getMessage(),
+        comparesEqualTo("Year must be between 1950 and 2050"));
+    assertThat(parsed.getRejected().get(1).getMessage(), comparesEqualTo("Year must be a number"));
+    assertThat(
+        parsed.getRejected().get(2).getMessage(),
+        comparesEqualTo("Expected 3 columns: year,make,model"));
+  }
+
+  @Test
+  public void givenNdjsonBatchWhenParseThenRejectMalformedAndInvalidRecords() {
+    RawBatch batch =
+        new RawBatch(
+            10,
+            Arrays.asList(
+                "{\"year\":2002,\"make\":\"BMW\",\"model\":\"i8\"}",
+                "{\"year\":2002,\"make\":\"\",\"model\":\"i8\"}",
+                "{not json",
+                "null"),
+            0);
+
+    ParsedBatch parsed = vehicleRecordParser.parse(batch, ImportFormat.NDJSON);
+
+    assertThat(parsed.getVehicles().size(), comparesEqualTo(1));
+    assertThat(parsed.getVehicles().get(0).getMake(), comparesEqualTo("BMW"));
+    assertThat(parsed.getRejected().size(), comparesEqualTo(3));
+    assertThat(parsed.getRejected().get(0).getLine(), comparesEqualTo(11L));
+    assertThat(
+        parsed.getRejected().get(0).getMessage(), comparesEqualTo("Make or Model cannot be empty"));
+    assertThat(parsed.getRejected().get(1).getLine(), comparesEqualTo(12L));
+    assertThat(parsed.getRejected().get(2).getLine(), comparesEqualTo(13L));
+    assertThat(
+        parsed.getRejected().get(2).getMessage(), comparesEqualTo("Vehicle cannot be null"));
+  }
+
+  @Test
+  public void givenOffsetWhenReadLinesThenResumeFromThatLine() throws Exception {
+    File file = temporaryFolder.newFile("vehicles.csv");
+    Files.write(file.toPath(), "a\r\nbb\nccc".getBytes(StandardCharsets.UTF_8));
+
+    try (MappedLineReader reader = new MappedLineReader(file.toPath(), 0)) {
+      assertThat(reader.readLine(), comparesEqualTo("a"));
+      assertThat(reader.position(), comparesEqualTo(3L));
+    }
+    try (MappedLineReader reader = new MappedLineReader(file.toPath(), 3)) {
+      assertThat(reader.readLine(), comparesEqualTo("bb"));
+      assertThat(reader.readLine(), comparesEqualTo("ccc"));
+      assertThat(reader.readLine(), nullValue());
+      assertThat(reader.position(), comparesEqualTo(reader.size()));
+    }
+  }
+}
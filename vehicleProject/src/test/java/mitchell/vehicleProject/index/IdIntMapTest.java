@@ -0,0 +1,65 @@
+package mitchell.vehicleProject.index;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+
+public class IdIntMapTest {
+
+  @Test
+  public void givenSparseIdsWhenPutThenGetReturnsThem() {
+    IdIntMap map = new IdIntMap();
+    map.put(7, 1);
+    map.put(70_000_007, 2);
+    map.put(0, 3);
+
+    assertThat(map.get(7), comparesEqualTo(1));
+    assertThat(map.get(70_000_007), comparesEqualTo(2));
+    assertThat(map.get(0), comparesEqualTo(3));
+    assertThat(map.get(8), comparesEqualTo(IdIntMap.ABSENT));
+    assertThat(map.size(), comparesEqualTo(3));
+  }
+
+  @Test
+  public void givenHeldIdWhenPutAgainThenPreviousValueIsReturned() {
+    IdIntMap map = new IdIntMap();
+    assertThat(map.put(7, 1), comparesEqualTo(IdIntMap.ABSENT));
+    assertThat(map.put(7, 2), comparesEqualTo(1));
+    assertThat(map.size(), comparesEqualTo(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenAbsentValueWhenPutThenReject() {
+    new IdIntMap().put(7, IdIntMap.ABSENT);
+  }
+
+  @Test
+  public void givenRandomChangesWhenAppliedThenMapAgreesWithHashMap() {
+    IdIntMap map = new IdIntMap();
+    Map<Integer, Integer> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 200_000; i++) {
+      // a narrow id range so removals hit long probe runs
+      int id = random.nextInt(5_000);
+      if (random.nextInt(3) == 0) {
+        Integer removed = expected.remove(id);
+        assertThat(map.remove(id), comparesEqualTo(removed == null ? IdIntMap.ABSENT : removed));
+      } else {
+        int value = 1 + random.nextInt(100);
+        Integer previous = expected.put(id, value);
+        assertThat(
+            map.put(id, value), comparesEqualTo(previous == null ? IdIntMap.ABSENT : previous));
+      }
+    }
+    assertThat(map.size(), comparesEqualTo(expected.size()));
+    for (int id = 0; id < 5_000; id++) {
+      Integer value = expected.get(id);
+      assertThat(map.get(id), comparesEqualTo(value == null ? IdIntMap.ABSENT : value));
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package mitchell.vehicleProject.index;
+
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+public class VehicleBitmapIndexTest {
+
+  @InjectMocks private VehicleBitmapIndex vehicleBitmapIndex;
+
+  @Mock private VehicleRepository vehicleRepository;
+
+  @Before
+  public void setup() {
+    when(vehicleRepository.streamKeys())
+        .thenReturn(
+            Stream.of(
+                new Object[] {1, 2000, "honda", "civic"},
+                new Object[] {2, 2001, "honda", "accord"},
+                new Object[] {3, 2002, "BMW", "i8"},
+                new Object[] {4, 2000, "honda", "accord"}));
+    vehicleBitmapIndex.rebuild();
+  }
+
+  private Integer[] find(Integer year, String make, String model) {
+    int[] ids = vehicleBitmapIndex.find(year, make, model).get();
+    return Arrays.stream(ids).boxed().toArray(Integer[]::new);
+  }
+
+  private static Vehicle vehicle(int id, int year, String make, String model) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(id);
+    vehicle.setYear(year);
+    vehicle.setMake(make);
+    vehicle.setModel(model);
+    return vehicle;
+  }
+
+  @Test
+  public void givenFilterCombinationsWhenFindThenReturnIntersectionInIdOrder() {
+    assertThat(find(null, "honda", null), arrayContaining(1, 2, 4));
+    assertThat(find(2000, "honda", null), arrayContaining(1, 4));
+    assertThat(find(2000, null, "accord"), arrayContaining(4));
+    assertThat(find(2002, "honda", null), is(emptyArray()));
+    assertThat(find(null, "Tesla", null), is(emptyArray()));
+  }
+
+  @Test
+  public void givenDifferentCaseWhenFindThenMakeAndModelMatchIgnoringCase() {
+    vehicleBitmapIndex.onVehicleChange(
+        new VehicleChangeEvent(
+            VehicleChangeEvent.Type.CREATED, 5, vehicle(5, 2000, "Honda", "Civic")));
+
+    assertThat(find(2000, "HONDA", "civic"), arrayContaining(1, 5));
+    assertThat(find(null, "bmw", null), arrayContaining(3));
+  }
+
+  @Test
+  public void givenUpdateAndDeleteEventsWhenFindThenPostingsFollowTheChanges() {
+    vehicleBitmapIndex.onVehicleChange(
+        new VehicleChangeEvent(
+            VehicleChangeEvent.Type.UPDATED, 4, vehicle(4, 2003, "Tesla", "model X")));
+    vehicleBitmapIndex.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, 1, null));
+    vehicleBitmapIndex.onVehicleChange(
+        new VehicleChangeEvent(
+            VehicleChangeEvent.Type.CREATED, 5000, vehicle(5000, 2000, "honda", "civic")));
+
+    assertThat(find(2000, "honda", null), arrayContaining(5000));
+    assertThat(find(null, null, "accord"), arrayContaining(2));
+    assertThat(find(2003, "Tesla", "model X"), arrayContaining(4));
+  }
+
+  @Test
+  public void givenSparseIdWhenIndexedThenColumnsStaySizedByVehicleCount() {
+    vehicleBitmapIndex.onVehicleChange(
+        new VehicleChangeEvent(
+            VehicleChangeEvent.Type.CREATED,
+            2_000_000_000,
+            vehicle(2_000_000_000, 2000, "honda", "civic")));
+    vehicleBitmapIndex.onVehicleChange(
+        new VehicleChangeEvent(
+            VehicleChangeEvent.Type.UPDATED,
+            2_000_000_000,
+            vehicle(2_000_000_000, 2001, "honda", "civic")));
+
+    assertThat(find(2001, null, "civic"), arrayContaining(2_000_000_000));
+    assertThat(find(2000, null, "civic"), arrayContaining(1));
+    assertThat(
+        (Long) vehicleBitmapIndex.statistics().get("columnBytes") < 1024, is(true));
+  }
+}
@@ -0,0 +1,102 @@
+package mitchell.vehicleProject.limit;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class AdaptiveLimitTest {
+
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private static AdaptiveLimit limit(int initialLimit, int queueSize, Duration maxWait) {
+    return new AdaptiveLimit(initialLimit, 1, 100, queueSize, maxWait, 2.0, 0.5);
+  }
+
+  // fills every slot, then releases them all with the same latency
+  private static void round(AdaptiveLimit limit, long nanos) {
+    int slots = (int) limit.getLimit();
+    for (int i = 0; i < slots; i++) {
+      assertThat(limit.acquire(), comparesEqualTo(AdaptiveLimit.Admission.ADMITTED));
+    }
+    for (int i = 0; i < slots; i++) {
+      limit.release(nanos, false);
+    }
+  }
+
+  @Test
+  public void givenNoSlotAndNoQueueWhenAcquireThenShedAtOnce() {
+    AdaptiveLimit limit = limit(1, 0, Duration.ofSeconds(5));
+    assertThat(limit.acquire(), comparesEqualTo(AdaptiveLimit.Admission.ADMITTED));
+    assertThat(limit.acquire(), comparesEqualTo(AdaptiveLimit.Admission.QUEUE_FULL));
+    assertThat(limit.getQueueFull(), comparesEqualTo(1L));
+  }
+
+  @Test
+  public void givenNoSlotWhenWaitRunsOutThenTimedOut() {
+    AdaptiveLimit limit = limit(1, 1, Duration.ofMillis(20));
+    limit.acquire();
+    assertThat(limit.acquire(), comparesEqualTo(AdaptiveLimit.Admission.TIMED_OUT));
+    assertThat(limit.getTimedOut(), comparesEqualTo(1L));
+    assertThat(limit.getWaiting(), comparesEqualTo(0));
+  }
+
+  @Test
+  public void givenQueuedRequestWhenSlotReleasedThenAdmitted() throws Exception {
+    AdaptiveLimit limit = limit(1, 1, Duration.ofSeconds(5));
+    limit.acquire();
+    CompletableFuture<AdaptiveLimit.Admission> queued =
+        CompletableFuture.supplyAsync(limit::acquire);
+    while (limit.getWaiting() == 0) {
+      Thread.sleep(1);
+    }
+    limit.release(MILLIS, false);
+    assertThat(queued.get(5, TimeUnit.SECONDS), comparesEqualTo(AdaptiveLimit.Admission.ADMITTED));
+    assertThat(limit.getInFlight(), comparesEqualTo(1));
+  }
+
+  @Test
+  public void givenLatencyWhenSaturatedThenLimitFollowsIt() {
+    AdaptiveLimit limit = limit(10, 0, Duration.ZERO);
+    for (int i = 0; i < 5; i++) {
+      round(limit, MILLIS);
+    }
+    double grown = limit.getLimit();
+    assertThat(grown, greaterThan(10.0));
+
+    // ten times the unloaded latency: well past the tolerance of two
+    for (int i = 0; i < 5; i++) {
+      round(limit, 10 * MILLIS);
+    }
+    assertThat(limit.getLimit(), lessThan(grown));
+  }
+
+  @Test
+  public void givenLastingSaturationWhenManySamplesThenBaselineDoesNotCatchUp() {
+    AdaptiveLimit limit = limit(10, 0, Duration.ZERO);
+    for (int i = 0; i < 5; i++) {
+      round(limit, MILLIS);
+    }
+    // well over a thousand calls queued at ten times the unloaded latency
+    int samples = 0;
+    while (samples < 1200) {
+      samples += (int) limit.getLimit();
+      round(limit, 10 * MILLIS);
+    }
+    assertThat(limit.getLimit(), lessThan(10.0));
+  }
+
+  @Test
+  public void givenFailureWhenReleasedThenLimitBacksOff() {
+    AdaptiveLimit limit = limit(20, 0, Duration.ZERO);
+    limit.acquire();
+    limit.release(MILLIS, true);
+    assertThat(limit.getLimit(), lessThan(20.0));
+  }
+}
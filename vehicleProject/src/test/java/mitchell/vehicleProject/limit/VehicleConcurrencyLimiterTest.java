@@ -0,0 +1,209 @@
+package mitchell.vehicleProject.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mitchell.vehicleProject.controller.VehicleController;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeCounter;
+import mitchell.vehicleProject.exceptions.ExceptionAdvice;
+import mitchell.vehicleProject.service.VehicleService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+public class VehicleConcurrencyLimiterTest {
+
+  @InjectMocks private VehicleController vehicleController;
+
+  @Mock private VehicleService vehicleService;
+
+  @Mock private VehicleChangeCounter vehicleChangeCounter;
+
+  @Spy private ObjectMapper objectMapper = new ObjectMapper();
+
+  // the request holding the endpoint's only slot signals once it is in, then waits for proceed
+  private final CountDownLatch entered = new CountDownLatch(1);
+
+  private final CountDownLatch proceed = new CountDownLatch(1);
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @Before
+  public void setup() {
+    when(vehicleService.getVehicle(anyInt()))
+        .thenAnswer(
+            invocation -> {
+              entered.countDown();
+              proceed.await(5, TimeUnit.SECONDS);
+              Vehicle vehicle = new Vehicle();
+              vehicle.setId(invocation.getArgument(0));
+              return vehicle;
+            });
+    doAnswer(
+            invocation -> {
+              entered.countDown();
+              proceed.await(5, TimeUnit.SECONDS);
+              return 0L;
+            })
+        .when(vehicleService)
+        .streamVehicles(any(), any(), any(), any());
+    doAnswer(
+            invocation -> {
+              entered.countDown();
+              proceed.await(5, TimeUnit.SECONDS);
+              return Collections.emptyList();
+            })
+        .when(vehicleService)
+        .getVehicles(any(), any(), any());
+  }
+
+  @After
+  public void teardown() {
+    proceed.countDown();
+    executor.shutdownNow();
+  }
+
+  // one slot per endpoint that never grows
+  private static VehicleConcurrencyLimiter limiter(int queueSize, Duration maxWait) {
+    return new VehicleConcurrencyLimiter(1, 1, 1, queueSize, maxWait, 2.0, 0.9, 200);
+  }
+
+  private MockMvc mockMvc(VehicleConcurrencyLimiter limiter) {
+    return MockMvcBuilders.standaloneSetup(vehicleController)
+        .addInterceptors(limiter)
+        .setControllerAdvice(new ExceptionAdvice())
+        .build();
+  }
+
+  private Future<MvcResult> occupy(MockMvc mockMvc, String path) throws Exception {
+    Future<MvcResult> holder = executor.submit(() -> mockMvc.perform(get(path)).andReturn());
+    assertThat(entered.await(5, TimeUnit.SECONDS), comparesEqualTo(true));
+    return holder;
+  }
+
+  @Test
+  public void givenFullQueueWhenRequestThenTooManyRequestsWithRetryAfter() throws Exception {
+    VehicleConcurrencyLimiter limiter = limiter(0, Duration.ofSeconds(5));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    limiter.bindTo(registry);
+    MockMvc mockMvc = mockMvc(limiter);
+    Future<MvcResult> holder = occupy(mockMvc, "/vehicles/1");
+
+    mockMvc
+        .perform(get("/vehicles/2"))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    assertThat(
+        registry
+            .get("vehicle.concurrency.shed")
+            .tags("endpoint", "getVehicle", "reason", "queue_full")
+            .functionCounter()
+            .count(),
+        comparesEqualTo(1.0));
+
+    proceed.countDown();
+    assertThat(holder.get(5, TimeUnit.SECONDS).getResponse().getStatus(), comparesEqualTo(200));
+  }
+
+  @Test
+  public void givenNoSlotWithinMaxWaitWhenRequestThenServiceUnavailableWithRetryAfter()
+      throws Exception {
+    MockMvc mockMvc = mockMvc(limiter(1, Duration.ofMillis(10)));
+    occupy(mockMvc, "/vehicles/1");
+
+    mockMvc
+        .perform(get("/vehicles/2"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+  }
+
+  @Test
+  public void givenSaturatedListEndpointWhenGetVehicleThenItIsStillServed() throws Exception {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(2);
+    doReturn(vehicle).when(vehicleService).getVehicle(2);
+    MockMvc mockMvc = mockMvc(limiter(0, Duration.ofSeconds(5)));
+    Future<MvcResult> holder = occupy(mockMvc, "/vehicles");
+
+    mockMvc.perform(get("/vehicles")).andExpect(status().isTooManyRequests());
+    mockMvc.perform(get("/vehicles/2")).andExpect(status().isOk());
+
+    proceed.countDown();
+    assertThat(holder.get(5, TimeUnit.SECONDS).getResponse().getStatus(), comparesEqualTo(200));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenLimitAndQueueReachingWorkerThreadsWhenCreatedThenRejected() {
+    new VehicleConcurrencyLimiter(20, 2, 190, 16, Duration.ofMillis(50), 2.0, 0.9, 200);
+  }
+
+  @Test
+  public void givenStreamingExportWhenStillWritingThenItKeepsItsSlot() throws Exception {
+    MockMvc mockMvc = mockMvc(limiter(0, Duration.ofSeconds(5)));
+    MvcResult export =
+        mockMvc.perform(get("/vehicles/export")).andExpect(request().asyncStarted()).andReturn();
+    assertThat(entered.await(5, TimeUnit.SECONDS), comparesEqualTo(true));
+
+    mockMvc.perform(get("/vehicles/export")).andExpect(status().isTooManyRequests());
+
+    proceed.countDown();
+    mockMvc.perform(asyncDispatch(export)).andExpect(status().isOk());
+    mockMvc.perform(get("/vehicles/export")).andExpect(request().asyncStarted());
+  }
+
+  @Test
+  public void givenLimiterWhenBoundThenEveryEndpointHasItsMeters() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    limiter(0, Duration.ZERO).bindTo(registry);
+
+    for (String endpoint : new String[] {"getVehicle", "getVehicles", "exportVehicles"}) {
+      assertThat(
+          registry.find("vehicle.concurrency.limit").tag("endpoint", endpoint).gauge(),
+          notNullValue());
+      assertThat(
+          registry.find("vehicle.concurrency.in_flight").tag("endpoint", endpoint).gauge(),
+          notNullValue());
+      assertThat(
+          registry.find("vehicle.concurrency.queued").tag("endpoint", endpoint).gauge(),
+          notNullValue());
+      assertThat(
+          registry
+              .find("vehicle.concurrency.shed")
+              .tags("endpoint", endpoint, "reason", "timed_out")
+              .functionCounter(),
+          notNullValue());
+    }
+  }
+}
@@ -0,0 +1,239 @@
+package mitchell.vehicleProject.repository;
+
+import mitchell.vehicleProject.dictionary.VehicleDictionary;
+import mitchell.vehicleProject.entity.Vehicle;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.sameInstance;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(VehicleDictionary.class)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class VehicleRepositoryTest {
+
+  @Autowired private VehicleRepository vehicleRepository;
+
+  @Autowired private TestEntityManager testEntityManager;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private VehicleDictionary vehicleDictionary;
+
+  private Statistics statistics;
+
+  @Before
+  public void setup() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  private void seed(int count, int year, String make, String model) {
+    for (int i = 0; i < count; i++) {
+      Vehicle vehicle = new Vehicle();
+      vehicle.setYear(year);
+      vehicle.setMake(make);
+      vehicle.setModel(model);
+      testEntityManager.persist(vehicle);
+    }
+    testEntityManager.flush();
+    testEntityManager.clear();
+  }
+
+  private List<Vehicle> find(Integer year, String make, String model) {
+    return vehicleRepository.findAll(
+        VehicleSpecifications.matching(vehicleDictionary, year, make, model));
+  }
+
+  private List<Vehicle> findFiltered() {
+    statistics.clear();
+    List<Vehicle> vehicles = find(2000, "honda", "civic");
+    testEntityManager.clear();
+    return vehicles;
+  }
+
+  @Test
+  public void givenFiltersWhenTableGrowsThenQueryCountAndRowsFetchedStayConstant() {
+    seed(2, 2000, "honda", "civic");
+    seed(50, 2000, "honda", "accord");
+    seed(50, 2001, "honda", "civic");
+
+    List<Vehicle> vehicles = findFiltered();
+    assertThat(vehicles.size(), comparesEqualTo(2));
+    assertThat(statistics.getPrepareStatementCount(), comparesEqualTo(1L));
+    assertThat(statistics.getEntityLoadCount(), comparesEqualTo(2L));
+
+    seed(500, 2000, "BMW", "i8");
+    seed(500, 2002, "Tesla", "model X");
+
+    vehicles = findFiltered();
+    assertThat(vehicles.size(), comparesEqualTo(2));
+    assertThat(statistics.getPrepareStatementCount(), comparesEqualTo(1L));
+    assertThat(statistics.getEntityLoadCount(), comparesEqualTo(2L));
+  }
+
+  @Test
+  public void givenPartialFiltersWhenFindAllThenOnlyMatchingRowsAreReturned() {
+    seed(3, 2000, "honda", "civic");
+    seed(4, 2001, "honda", "accord");
+    seed(5, 2001, "BMW", "i8");
+
+    assertThat(find(null, "honda", null).size(), comparesEqualTo(7));
+    assertThat(find(2001, null, null).size(), comparesEqualTo(9));
+    assertThat(find(null, null, "i8").size(), comparesEqualTo(5));
+  }
+
+  @Test
+  public void givenSingleFilterWhenFindAllThenOnlyVehiclesWithThatValueAreReturned() {
+    seed(1, 2000, "honda", "civic");
+    seed(1, 2001, "honda", "accord");
+    seed(1, 2002, "BMW", "i8");
+    seed(1, 2003, "Tesla", "model X");
+
+    List<Vehicle> byYear = find(2000, null, null);
+    assertThat(byYear.size(), comparesEqualTo(1));
+    assertThat(byYear.get(0).getModel(), comparesEqualTo("civic"));
+
+    List<String> byMake =
+        find(null, "honda", null).stream().map(Vehicle::getModel).collect(Collectors.toList());
+    assertThat(byMake, containsInAnyOrder("civic", "accord"));
+
+    List<Vehicle> byModel = find(null, null, "accord");
+    assertThat(byModel.size(), comparesEqualTo(1));
+    assertThat(byModel.get(0).getYear(), comparesEqualTo(2001));
+  }
+
+  @Test
+  public void givenSpellingsDifferingInCaseWhenFindAllThenMakeAndModelMatchIgnoringCase() {
+    seed(2, 2000, "honda", "civic");
+    seed(3, 2000, "Honda", "Civic");
+    seed(4, 2000, "BMW", "i8");
+
+    statistics.clear();
+    assertThat(find(null, "HONDA", "civic").size(), comparesEqualTo(5));
+    assertThat(statistics.getPrepareStatementCount(), comparesEqualTo(1L));
+    assertThat(find(null, "bmw", null).size(), comparesEqualTo(4));
+
+    assertThat(find(null, "never seen", null).size(), comparesEqualTo(0));
+    assertThat(
+        vehicleDictionary.find(VehicleDictionary.Kind.MAKE, "never seen").isPresent(),
+        comparesEqualTo(false));
+  }
+
+  @Test
+  public void givenSameMakeWhenHydratedThenEntitiesShareOneStringInstance() {
+    seed(2, 2000, new String("honda"), new String("civic"));
+
+    List<Vehicle> vehicles = find(2000, "honda", "civic");
+    assertThat(vehicles.size(), comparesEqualTo(2));
+    assertThat(vehicles.get(0).getMake(), sameInstance(vehicles.get(1).getMake()));
+    assertThat(vehicles.get(0).getModel(), sameInstance(vehicles.get(1).getModel()));
+  }
+
+  @Test
+  public void givenAfterIdWhenFindPageAfterThenSeekPastItInIdOrder() {
+    seed(10, 2000, "honda", "civic");
+    seed(10, 2000, "BMW", "i8");
+
+    List<Vehicle> firstPage =
+        vehicleRepository.findPageAfter(
+            VehicleSpecifications.matching(vehicleDictionary, 2000, "honda", null), null, 4);
+    assertThat(firstPage.size(), comparesEqualTo(4));
+
+    Integer lastId = firstPage.get(3).getId();
+    statistics.clear();
+    List<Vehicle> secondPage =
+        vehicleRepository.findPageAfter(
+            VehicleSpecifications.matching(vehicleDictionary, 2000, "honda", null), lastId, 100);
+    assertThat(secondPage.size(), comparesEqualTo(6));
+    assertThat(secondPage.get(0).getId(), comparesEqualTo(lastId + 1));
+    for (int i = 1; i < secondPage.size(); i++) {
+      assertThat(secondPage.get(i).getId() > secondPage.get(i - 1).getId(), comparesEqualTo(true));
+      assertThat(secondPage.get(i).getMake(), comparesEqualTo("honda"));
+    }
+    assertThat(statistics.getPrepareStatementCount(), comparesEqualTo(1L));
+  }
+
+  @Test
+  public void givenFilterWhenStreamMatchingThenEveryMatchingRowIsStreamed() {
+    seed(5, 2000, "honda", "civic");
+    seed(3, 2000, "BMW", "i8");
+
+    List<Vehicle> streamed;
+    try (Stream<Vehicle> vehicles =
+        vehicleRepository.streamMatching(
+            VehicleSpecifications.matching(vehicleDictionary, null, "honda", null), 2, 2)) {
+      streamed = vehicles.collect(Collectors.toList());
+    }
+    assertThat(streamed.size(), comparesEqualTo(5));
+    assertThat(
+        streamed.stream().allMatch(vehicle -> vehicle.getMake().equals("honda")),
+        comparesEqualTo(true));
+  }
+
+  @Test
+  public void givenUpdatedVehicleWhenFindVersionByIdThenVersionIsBumpedWithoutLoadingEntity() {
+    seed(1, 2000, "honda", "civic");
+    Vehicle vehicle = vehicleRepository.findAll().get(0);
+    Integer id = vehicle.getId();
+    assertThat(vehicleRepository.findVersionById(id).get(), comparesEqualTo(0L));
+
+    vehicle.setModel("accord");
+    testEntityManager.flush();
+    testEntityManager.clear();
+
+    statistics.clear();
+    assertThat(vehicleRepository.findVersionById(id).get(), comparesEqualTo(1L));
+    assertThat(statistics.getEntityLoadCount(), comparesEqualTo(0L));
+    assertThat(vehicleRepository.findVersionById(id + 1).isPresent(), comparesEqualTo(false));
+  }
+
+  @Test
+  public void givenExpectedVersionWhenUpdateIfMatchThenOnlyFirstWriterWins() {
+    seed(1, 2000, "honda", "civic");
+    Integer id = vehicleRepository.findAll().get(0).getId();
+    testEntityManager.clear();
+
+    statistics.clear();
+    Vehicle updated = vehicleRepository.updateIfMatch(id, 0L, null, "BMW", null).get();
+    assertThat(statistics.getPrepareStatementCount(), comparesEqualTo(1L));
+    assertThat(updated.getMake(), comparesEqualTo("BMW"));
+    assertThat(updated.getModel(), comparesEqualTo("civic"));
+    assertThat(updated.getVersion(), comparesEqualTo(1L));
+
+    assertThat(
+        vehicleRepository.updateIfMatch(id, 0L, 2001, null, null).isPresent(),
+        comparesEqualTo(false));
+    assertThat(
+        vehicleRepository.updateIfMatch(id, null, 2001, null, null).get().getVersion(),
+        comparesEqualTo(2L));
+  }
+
+  @Test
+  public void givenVehicleAlreadyLoadedWhenUpdateIfMatchThenNewStateIsReturned() {
+    seed(1, 2000, "honda", "civic");
+    Vehicle loaded = vehicleRepository.findAll().get(0);
+
+    Vehicle updated = vehicleRepository.updateIfMatch(loaded.getId(), 0L, 2001, null, null).get();
+    assertThat(updated.getYear(), comparesEqualTo(2001));
+    assertThat(updated.getVersion(), comparesEqualTo(1L));
+    assertThat(loaded.getVersion(), comparesEqualTo(0L));
+  }
+}
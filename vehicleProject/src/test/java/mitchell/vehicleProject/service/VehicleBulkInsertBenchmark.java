@@ -0,0 +1,81 @@
+package mitchell.vehicleProject.service;
+
+import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows/sec of the single and bulk create paths. Not picked up by the default surefire includes;
+ * run it explicitly, e.g. {@code mvn test -Dtest=VehicleBulkInsertBenchmark
+ * -Dbenchmark.rows=10000,1000000}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Log4j2
+public class VehicleBulkInsertBenchmark {
+
+  private static final String[][] MODELS = {
+    {"honda", "civic"}, {"honda", "accord"}, {"BMW", "i8"}, {"Tesla", "model X"}
+  };
+
+  @Autowired private VehicleService vehicleService;
+
+  @Autowired private VehicleRepository vehicleRepository;
+
+  @Value("${vehicle.bulk.max-size}")
+  private int maxBulkSize;
+
+  private static List<Vehicle> generate(int offset, int count) {
+    List<Vehicle> vehicles = new ArrayList<>(count);
+    for (int i = offset; i < offset + count; i++) {
+      Vehicle vehicle = new Vehicle();
+      vehicle.setYear(1950 + i % 100);
+      vehicle.setMake(MODELS[i % MODELS.length][0]);
+      vehicle.setModel(MODELS[i % MODELS.length][1]);
+      vehicles.add(vehicle);
+    }
+    return vehicles;
+  }
+
+  private static double rowsPerSecond(int rows, long startNanos) {
+    return rows / ((System.nanoTime() - startNanos) / 1_000_000_000d);
+  }
+
+  @Test
+  public void compareSingleAndBulkCreate() {
+    for (String size : System.getProperty("benchmark.rows", "10000").split(",")) {
+      int rows = Integer.parseInt(size.trim());
+
+      vehicleRepository.deleteAllInBatch();
+      long start = System.nanoTime();
+      for (int offset = 0; offset < rows; offset += maxBulkSize) {
+        for (Vehicle vehicle : generate(offset, Math.min(maxBulkSize, rows - offset))) {
+          vehicleService.createVehicle(vehicle);
+        }
+      }
+      double single = rowsPerSecond(rows, start);
+
+      vehicleRepository.deleteAllInBatch();
+      start = System.nanoTime();
+      for (int offset = 0; offset < rows; offset += maxBulkSize) {
+        vehicleService.createVehicles(generate(offset, Math.min(maxBulkSize, rows - offset)));
+      }
+      double bulk = rowsPerSecond(rows, start);
+
+      log.info(
+          String.format(
+              "rows=%d single=%.0f rows/s bulk=%.0f rows/s speedup=%.1fx",
+              rows, single, bulk, bulk / single));
+    }
+    vehicleRepository.deleteAllInBatch();
+  }
+}
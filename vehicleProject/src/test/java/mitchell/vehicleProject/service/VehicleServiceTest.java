@@ -2,29 +2,50 @@ package mitchell.vehicleProject.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.log4j.Log4j2;
+import mitchell.vehicleProject.cache.VehicleCache;
+import mitchell.vehicleProject.dto.VehicleBulkResult;
+import mitchell.vehicleProject.dto.VehicleLookupResult;
+import mitchell.vehicleProject.dto.VehiclePage;
 import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
 import mitchell.vehicleProject.exceptions.BadRequestException;
+import mitchell.vehicleProject.exceptions.PreconditionFailedException;
+import mitchell.vehicleProject.metrics.VehicleMetrics;
 import mitchell.vehicleProject.repository.VehicleRepository;
 import org.apache.logging.log4j.util.Strings;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.*;
 
 @RunWith(SpringRunner.class)
@@ -37,9 +58,31 @@ public class VehicleServiceTest {
   @Mock
   private VehicleRepository vehicleRepository;
 
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Spy
+  private VehicleCache vehicleCache =
+      new VehicleCache(100, Duration.ofMinutes(1), Duration.ofSeconds(10));
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Spy
+  private VehicleMetrics vehicleMetrics = new VehicleMetrics(meterRegistry);
+
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
+  @Before
+  public void setup() {
+    ReflectionTestUtils.setField(vehicleService, "maxPageLimit", 100);
+    ReflectionTestUtils.setField(vehicleService, "maxBulkSize", 10);
+    ReflectionTestUtils.setField(vehicleService, "bulkBatchSize", 2);
+    ReflectionTestUtils.setField(vehicleService, "maxLookupIds", 5);
+    ReflectionTestUtils.setField(vehicleService, "lookupBatchSize", 2);
+    when(vehicleRepository.save(any(Vehicle.class))).thenAnswer(returnsFirstArg());
+  }
+
   private List<Vehicle> getVehicles() {
     List<Vehicle> vehicles = new ArrayList<>();
     try {
@@ -110,8 +153,49 @@ public class VehicleServiceTest {
     vehicleService.createVehicle(vehicle);
   }
 
+  @Test
+  public void givenVehicleYearIsNullWhenCreateVehicleThrowBadRequestException() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("Year cannot be null");
+    Vehicle vehicle = getVehicles().get(0);
+    vehicle.setYear(null);
+    vehicleService.createVehicle(vehicle);
+  }
+
+  @Test
+  public void givenInvalidVehiclesWhenCreateVehiclesThenRejectionsAreCountedByReason() {
+    Vehicle pastYear = getVehicles().get(0);
+    pastYear.setYear(1900);
+    Vehicle futureYear = getVehicles().get(1);
+    futureYear.setYear(2100);
+    Vehicle emptyMake = getVehicles().get(2);
+    emptyMake.setMake("");
+    List<Vehicle> vehicles = new ArrayList<>();
+    vehicles.add(pastYear);
+    vehicles.add(futureYear);
+    vehicles.add(emptyMake);
+    vehicles.add(null);
+
+    vehicleService.createVehicles(vehicles);
+
+    assertThat(rejections("year_out_of_range"), comparesEqualTo(2.0));
+    assertThat(rejections("make_or_model_empty"), comparesEqualTo(1.0));
+    assertThat(rejections("vehicle_null"), comparesEqualTo(1.0));
+    assertThat(rejections("year_null"), comparesEqualTo(0.0));
+  }
+
+  private double rejections(String reason) {
+    return meterRegistry
+        .get("vehicle.validation.rejections")
+        .tag("reason", reason)
+        .counter()
+        .count();
+  }
+
   @Captor ArgumentCaptor<Vehicle> vehicleArgumentCaptor;
 
+  @Captor ArgumentCaptor<VehicleChangeEvent> vehicleChangeEventCaptor;
+
   @Test
   public void givenVehicleWhenCreateVehicleThenSaveVehicle() {
     vehicleService.createVehicle(getVehicles().get(0));
@@ -120,6 +204,49 @@ public class VehicleServiceTest {
     assertThat(actualVehicle.getYear(), comparesEqualTo(2000));
     assertThat(actualVehicle.getMake(), comparesEqualTo("honda"));
     assertThat(actualVehicle.getModel(), comparesEqualTo("civic"));
+    verify(eventPublisher).publishEvent(vehicleChangeEventCaptor.capture());
+    assertThat(
+        vehicleChangeEventCaptor.getValue().getType(),
+        comparesEqualTo(VehicleChangeEvent.Type.CREATED));
+  }
+
+  /** ************Bulk Create Vehicles********************** */
+  @Test
+  public void givenMixedVehiclesWhenCreateVehiclesThenSaveValidOnesInBatchesAndReportErrors() {
+    when(vehicleRepository.saveAll(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<Vehicle> batch = invocation.getArgument(0);
+              batch.forEach(vehicle -> vehicle.setId(vehicle.getYear()));
+              return batch;
+            });
+    List<Vehicle> vehicles = getVehicles();
+    vehicles.get(1).setMake(null);
+    vehicles.add(null);
+
+    VehicleBulkResult result = vehicleService.createVehicles(vehicles);
+
+    verify(vehicleRepository, times(2)).saveAll(anyList());
+    assertThat(result.getReceived(), comparesEqualTo(5));
+    assertThat(result.getCreated(), comparesEqualTo(3));
+    assertThat(result.getIds().get(0), comparesEqualTo(2000));
+    assertThat(result.getIds().get(2), comparesEqualTo(2003));
+    assertThat(result.getErrors().size(), comparesEqualTo(2));
+    assertThat(result.getErrors().get(0).getIndex(), comparesEqualTo(1));
+    assertThat(
+        result.getErrors().get(0).getMessage(), comparesEqualTo("Make or Model cannot be null"));
+    assertThat(result.getErrors().get(1).getIndex(), comparesEqualTo(4));
+  }
+
+  @Test
+  public void givenTooManyVehiclesWhenCreateVehiclesThenThrowBadRequestException() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("At most 10 vehicles can be created at once");
+    List<Vehicle> vehicles = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      vehicles.addAll(getVehicles());
+    }
+    vehicleService.createVehicles(vehicles);
   }
 
   /** ************Get Vehicle By Id ********************** */
@@ -142,6 +269,44 @@ public class VehicleServiceTest {
     assertThat(actualVehicle.getModel(), comparesEqualTo("civic"));
   }
 
+  @Test
+  public void givenVehicleIdRequestedTwiceWhenGetVehicleThenDatabaseIsQueriedOnce() {
+    when(vehicleRepository.findById(anyInt())).thenReturn(Optional.of(getVehicles().get(0)));
+    vehicleService.getVehicle(1);
+    Vehicle actualVehicle = vehicleService.getVehicle(1);
+    verify(vehicleRepository, times(1)).findById(1);
+    assertThat(actualVehicle.getMake(), comparesEqualTo("honda"));
+  }
+
+  @Test
+  public void givenMissingVehicleRequestedTwiceWhenGetVehicleThenMissIsCached() {
+    when(vehicleRepository.findById(anyInt())).thenReturn(Optional.empty());
+    for (int i = 0; i < 2; i++) {
+      try {
+        vehicleService.getVehicle(1000);
+      } catch (BadRequestException e) {
+        assertThat(
+            e.getMessage(), comparesEqualTo("Vehicle with id 1000 is not present in the database"));
+      }
+    }
+    verify(vehicleRepository, times(1)).findById(1000);
+  }
+
+  @Test
+  public void givenCachedVehicleWhenVehicleChangesThenNextGetReloadsIt() {
+    when(vehicleRepository.findById(anyInt())).thenReturn(Optional.of(getVehicles().get(0)));
+    vehicleService.getVehicle(1);
+    vehicleService.deleteVehicle(1);
+    verify(eventPublisher).publishEvent(vehicleChangeEventCaptor.capture());
+    assertThat(
+        vehicleChangeEventCaptor.getValue().getType(),
+        comparesEqualTo(VehicleChangeEvent.Type.DELETED));
+
+    vehicleCache.onVehicleChange(vehicleChangeEventCaptor.getValue());
+    vehicleService.getVehicle(1);
+    verify(vehicleRepository, times(2)).findById(1);
+  }
+
   /** ************Get All Vehicles********************** */
   @Test
   public void givenNoFiltersWhenGetAllVehiclesThenReturnListOfVehicles() {
@@ -154,31 +319,137 @@ public class VehicleServiceTest {
   }
 
   @Test
-  public void givenYearFilterWhenGetAllVehiclesThenReturnListOfVehiclesOfAskedYear() {
-    when(vehicleRepository.findAll()).thenReturn(getVehicles());
-    List<Vehicle> actualVehicles =
-        vehicleService.getVehicles(Optional.of(2000), Optional.empty(), Optional.empty());
-    assertThat(actualVehicles.size(), comparesEqualTo(1));
-    assertThat(actualVehicles.get(0).getId(), comparesEqualTo(1));
+  public void givenFiltersWhenGetAllVehiclesThenRowsFetchedAreRecorded() {
+    when(vehicleRepository.findAll(ArgumentMatchers.<Specification<Vehicle>>any()))
+        .thenReturn(getVehicles().subList(0, 3));
+    vehicleService.getVehicles(Optional.empty(), Optional.of("honda"), Optional.empty());
+    vehicleService.getVehicles(Optional.of(2000), Optional.empty(), Optional.empty());
+
+    DistributionSummary rowsFetched =
+        meterRegistry.get("vehicle.rows.fetched").tag("query", "list").summary();
+    assertThat(rowsFetched.count(), comparesEqualTo(2L));
+    assertThat(rowsFetched.totalAmount(), comparesEqualTo(6.0));
   }
 
+  // which rows a filter matches is the query's business, covered against H2 in
+  // VehicleRepositoryTest; here only that a filter never loads the whole table
   @Test
-  public void givenMakeFilterWhenGetAllVehiclesThenReturnListOfVehiclesOfAskedMake() {
-    when(vehicleRepository.findAll()).thenReturn(getVehicles());
-    List<Vehicle> actualVehicles =
-        vehicleService.getVehicles(Optional.empty(), Optional.of("honda"), Optional.empty());
-    assertThat(actualVehicles.size(), comparesEqualTo(2));
-    assertThat(actualVehicles.get(0).getId(), comparesEqualTo(1));
-    assertThat(actualVehicles.get(1).getId(), comparesEqualTo(2));
+  public void givenAnyFilterWhenGetAllVehiclesThenTheDatabaseFiltersInsteadOfLoadingAll() {
+    List<Vehicle> matching = getVehicles().subList(1, 2);
+    when(vehicleRepository.findAll(ArgumentMatchers.<Specification<Vehicle>>any()))
+        .thenReturn(matching);
+
+    assertThat(
+        vehicleService.getVehicles(Optional.of(2001), Optional.empty(), Optional.empty()),
+        equalTo(matching));
+    assertThat(
+        vehicleService.getVehicles(Optional.empty(), Optional.of("honda"), Optional.empty()),
+        equalTo(matching));
+    assertThat(
+        vehicleService.getVehicles(Optional.empty(), Optional.empty(), Optional.of("accord")),
+        equalTo(matching));
+    verify(vehicleRepository, times(3))
+        .findAll(ArgumentMatchers.<Specification<Vehicle>>any());
+    verify(vehicleRepository, never()).findAll();
   }
 
+  /** ************Get Vehicles By Id********************** */
   @Test
-  public void givenModelFilterWhenGetAllVehiclesThenReturnListOfVehiclesOfAskedModel() {
-    when(vehicleRepository.findAll()).thenReturn(getVehicles());
-    List<Vehicle> actualVehicles =
-        vehicleService.getVehicles(Optional.empty(), Optional.empty(), Optional.of("accord"));
-    assertThat(actualVehicles.size(), comparesEqualTo(1));
-    assertThat(actualVehicles.get(0).getId(), comparesEqualTo(2));
+  public void givenIdListWhenGetVehiclesByIdThenKeepRequestOrderAndListMissingIds() {
+    List<Vehicle> vehicles = getVehicles();
+    when(vehicleRepository.findById(3)).thenReturn(Optional.of(vehicles.get(2)));
+    vehicleService.getVehicle(3);
+    when(vehicleRepository.findAllById(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<Integer> ids = invocation.getArgument(0);
+              List<Vehicle> found = new ArrayList<>();
+              for (Vehicle vehicle : vehicles) {
+                if (ids.contains(vehicle.getId())) {
+                  found.add(vehicle);
+                }
+              }
+              return found;
+            });
+
+    VehicleLookupResult result =
+        vehicleService.getVehiclesById(Arrays.asList(4, 9, 3, 1, 4, 2));
+
+    assertThat(result.getVehicles().size(), comparesEqualTo(4));
+    assertThat(result.getVehicles().get(0).getId(), comparesEqualTo(4));
+    assertThat(result.getVehicles().get(1).getId(), comparesEqualTo(3));
+    assertThat(result.getVehicles().get(2).getId(), comparesEqualTo(1));
+    assertThat(result.getVehicles().get(3).getId(), comparesEqualTo(2));
+    assertThat(result.getMissing().size(), comparesEqualTo(1));
+    assertThat(result.getMissing().get(0), comparesEqualTo(9));
+    // 3 came from the cache; 4, 9, 1, 2 in IN-lists of two
+    verify(vehicleRepository, times(2)).findAllById(anyList());
+  }
+
+  @Test
+  public void givenTooManyIdsWhenGetVehiclesByIdThenThrowBadRequestException() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("At most 5 vehicles can be fetched at once");
+    vehicleService.getVehiclesById(Arrays.asList(1, 2, 3, 4, 5, 6));
+  }
+
+  /** ************Get Vehicles Page********************** */
+  @Test
+  public void givenMoreRowsThanLimitWhenGetVehiclePageThenReturnNextCursor() {
+    when(vehicleRepository.findPageAfter(
+            ArgumentMatchers.<Specification<Vehicle>>any(), isNull(), eq(3)))
+        .thenReturn(getVehicles().subList(0, 3));
+    VehiclePage page =
+        vehicleService.getVehiclePage(
+            Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), 2);
+    assertThat(page.getVehicles().size(), comparesEqualTo(2));
+    assertThat(page.getVehicles().get(1).getId(), comparesEqualTo(2));
+
+    when(vehicleRepository.findPageAfter(
+            ArgumentMatchers.<Specification<Vehicle>>any(), eq(2), eq(3)))
+        .thenReturn(getVehicles().subList(2, 4));
+    VehiclePage nextPage =
+        vehicleService.getVehiclePage(
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.of(page.getNextCursor()),
+            2);
+    assertThat(nextPage.getVehicles().size(), comparesEqualTo(2));
+    assertThat(nextPage.getVehicles().get(0).getId(), comparesEqualTo(3));
+    assertThat(nextPage.getNextCursor(), nullValue());
+  }
+
+  @Test
+  public void givenInvalidCursorWhenGetVehiclePageThenThrowBadRequestException() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("Invalid cursor");
+    vehicleService.getVehiclePage(
+        Optional.empty(), Optional.empty(), Optional.empty(), Optional.of("not a cursor"), 2);
+  }
+
+  @Test
+  public void givenLimitAboveMaximumWhenGetVehiclePageThenThrowBadRequestException() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("Limit must be between 1 and 100");
+    vehicleService.getVehiclePage(
+        Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), 101);
+  }
+
+  /** ************Stream Vehicles********************** */
+  // the filtering itself is checked against H2 in VehicleRepositoryTest
+  @Test
+  public void givenFiltersWhenStreamVehiclesThenEveryStreamedRowIsPassedToConsumer() {
+    when(vehicleRepository.streamMatching(
+            ArgumentMatchers.<Specification<Vehicle>>any(), anyInt(), anyInt()))
+        .thenReturn(getVehicles().subList(0, 2).stream());
+    List<Vehicle> streamed = new ArrayList<>();
+    long count =
+        vehicleService.streamVehicles(
+            Optional.empty(), Optional.of("honda"), Optional.empty(), streamed::add);
+    verify(vehicleRepository, never()).findAll();
+    assertThat(count, comparesEqualTo(2L));
+    assertThat(streamed.get(1).getModel(), comparesEqualTo("accord"));
   }
 
   /** ************Delete Vehicle By Id********************** */
@@ -189,15 +460,92 @@ public class VehicleServiceTest {
     verify(vehicleRepository, times(1)).deleteById(1);
   }
 
+  @Test
+  public void givenMissingVehicleIdWhenDeleteVehicleThenThrowNotFound() {
+    doThrow(new EmptyResultDataAccessException(1)).when(vehicleRepository).deleteById(1000);
+    try {
+      vehicleService.deleteVehicle(1000);
+      throw new AssertionError("Deleting a missing vehicle did not fail");
+    } catch (BadRequestException e) {
+      assertThat(
+          e.getMessage(), comparesEqualTo("Vehicle with id 1000 is not present in the database"));
+    }
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
   /** ************Update Vehicle API********************** */
   @Test
-  public void givenUpdatedVehicleWhenUpdateVehicleThenSaveUpdatedVehicle() {
-    when(vehicleRepository.findById(anyInt())).thenReturn(Optional.of(getVehicles().get(0)));
-    vehicleService.updateVehicle(getVehicles().get(3));
-    verify(vehicleRepository, times(1)).save(vehicleArgumentCaptor.capture());
-    Vehicle updatedVehicle = vehicleArgumentCaptor.getValue();
-    assertThat(updatedVehicle.getYear(), comparesEqualTo(2003));
-    assertThat(updatedVehicle.getMake(), comparesEqualTo("Tesla"));
-    assertThat(updatedVehicle.getModel(), comparesEqualTo("model X"));
+  public void givenUpdatedVehicleWhenUpdateVehicleThenIssueSingleConditionalUpdate() {
+    Vehicle updatedVehicle = getVehicles().get(3);
+    updatedVehicle.setVersion(1);
+    when(vehicleRepository.updateIfMatch(4, null, 2003, "Tesla", "model X"))
+        .thenReturn(Optional.of(updatedVehicle));
+
+    Vehicle actualVehicle = vehicleService.updateVehicle(getVehicles().get(3), Optional.empty());
+
+    assertThat(actualVehicle.getVersion(), comparesEqualTo(1L));
+    verify(vehicleRepository, never()).findById(anyInt());
+    verify(vehicleRepository, never()).save(any(Vehicle.class));
+    verify(eventPublisher).publishEvent(vehicleChangeEventCaptor.capture());
+    assertThat(
+        vehicleChangeEventCaptor.getValue().getType(),
+        comparesEqualTo(VehicleChangeEvent.Type.UPDATED));
+    assertThat(
+        vehicleChangeEventCaptor.getValue().getVehicle().getMake(), comparesEqualTo("Tesla"));
+  }
+
+  @Test
+  public void givenStaleVersionWhenUpdateVehicleThenThrowPreconditionFailedException() {
+    expectedException.expect(PreconditionFailedException.class);
+    expectedException.expectMessage("Vehicle with id 4 is at version 5, not 3");
+    when(vehicleRepository.updateIfMatch(4, 3L, 2003, "Tesla", "model X"))
+        .thenReturn(Optional.empty());
+    when(vehicleRepository.findVersionById(4)).thenReturn(Optional.of(5L));
+    vehicleService.updateVehicle(getVehicles().get(3), Optional.of(3L));
+  }
+
+  @Test
+  public void givenMissingVehicleWhenUpdateVehicleThenThrowBadRequestException() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("Vehicle with id 4 is not present in the database");
+    when(vehicleRepository.updateIfMatch(4, 3L, 2003, "Tesla", "model X"))
+        .thenReturn(Optional.empty());
+    when(vehicleRepository.findVersionById(4)).thenReturn(Optional.empty());
+    vehicleService.updateVehicle(getVehicles().get(3), Optional.of(3L));
+  }
+
+  /** ************Patch Vehicle API********************** */
+  @Test
+  public void givenPartialVehicleWhenPatchVehicleThenOnlySuppliedFieldsAreWritten() {
+    Vehicle patch = new Vehicle();
+    patch.setMake("BMW");
+    Vehicle patchedVehicle = getVehicles().get(1);
+    patchedVehicle.setMake("BMW");
+    patchedVehicle.setVersion(4);
+    when(vehicleRepository.updateIfMatch(2, 3L, null, "BMW", null))
+        .thenReturn(Optional.of(patchedVehicle));
+
+    Vehicle actualVehicle = vehicleService.patchVehicle(2, patch, Optional.of(3L));
+
+    assertThat(actualVehicle.getModel(), comparesEqualTo("accord"));
+    assertThat(actualVehicle.getVersion(), comparesEqualTo(4L));
+    verify(vehicleRepository, never()).findById(anyInt());
+    verify(eventPublisher).publishEvent(any(VehicleChangeEvent.class));
+  }
+
+  @Test
+  public void givenEmptyPatchWhenPatchVehicleThenThrowBadRequestException() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("At least one of year, make or model must be supplied");
+    vehicleService.patchVehicle(2, new Vehicle(), Optional.empty());
+  }
+
+  @Test
+  public void givenYearOutOfRangeWhenPatchVehicleThenThrowBadRequestException() {
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("Year must be between 1950 and 2050");
+    Vehicle patch = new Vehicle();
+    patch.setYear(1900);
+    vehicleService.patchVehicle(2, patch, Optional.empty());
   }
 }
@@ -0,0 +1,205 @@
+package mitchell.vehicleProject.service;
+
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.exceptions.ServiceUnavailableException;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.shard.VehicleShards;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+public class VehicleWriteBehindQueueTest {
+
+  @InjectMocks private VehicleWriteBehindQueue vehicleWriteBehindQueue;
+
+  @Mock private VehicleRepository vehicleRepository;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  private final AtomicInteger ids = new AtomicInteger();
+
+  private final List<Integer> batchSizes = new ArrayList<>();
+
+  @Before
+  public void setup() {
+    ReflectionTestUtils.setField(vehicleWriteBehindQueue, "capacity", 4);
+    ReflectionTestUtils.setField(vehicleWriteBehindQueue, "batchSize", 2);
+    ReflectionTestUtils.setField(vehicleWriteBehindQueue, "maxDelay", Duration.ofMillis(20));
+    ReflectionTestUtils.setField(vehicleWriteBehindQueue, "flushers", 1);
+    when(vehicleRepository.saveAll(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<Vehicle> vehicles = invocation.getArgument(0);
+              synchronized (batchSizes) {
+                batchSizes.add(vehicles.size());
+              }
+              vehicles.forEach(vehicle -> vehicle.setId(ids.incrementAndGet()));
+              return vehicles;
+            });
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    vehicleWriteBehindQueue.stop();
+  }
+
+  private static Vehicle vehicle(String model) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setYear(2000);
+    vehicle.setMake("honda");
+    vehicle.setModel(model);
+    return vehicle;
+  }
+
+  @Test
+  public void givenCreatesWhenSubmitThenTheyCommitInBatchesAndFuturesCarryIds() throws Exception {
+    vehicleWriteBehindQueue.start();
+    List<CompletableFuture<Vehicle>> futures = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      futures.add(vehicleWriteBehindQueue.submit(vehicle("model " + i)));
+    }
+    for (CompletableFuture<Vehicle> future : futures) {
+      assertThat(future.get(5, TimeUnit.SECONDS).getId() > 0, comparesEqualTo(true));
+    }
+    // two went out as a full batch, the straggler after the delay
+    assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum(), comparesEqualTo(3));
+    assertThat(batchSizes.stream().allMatch(size -> size <= 2), comparesEqualTo(true));
+    verify(eventPublisher, times(3)).publishEvent(any(VehicleChangeEvent.class));
+  }
+
+  @Test(expected = ServiceUnavailableException.class)
+  public void givenFullQueueWhenSubmitThenRejectWithServiceUnavailable() throws Exception {
+    CountDownLatch flushing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(vehicleRepository.saveAll(anyList()))
+        .thenAnswer(
+            invocation -> {
+              flushing.countDown();
+              release.await();
+              return invocation.getArgument(0);
+            });
+    vehicleWriteBehindQueue.start();
+    try {
+      // the first batch blocks in saveAll; the next four fill the queue
+      vehicleWriteBehindQueue.submit(vehicle("model 0"));
+      vehicleWriteBehindQueue.submit(vehicle("model 1"));
+      assertThat(flushing.await(5, TimeUnit.SECONDS), comparesEqualTo(true));
+      for (int i = 2; i < 7; i++) {
+        vehicleWriteBehindQueue.submit(vehicle("model " + i));
+      }
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test(expected = ServiceUnavailableException.class)
+  public void givenStoppedQueueWhenSubmitThenRejectWithServiceUnavailable() throws Exception {
+    vehicleWriteBehindQueue.start();
+    vehicleWriteBehindQueue.stop();
+    vehicleWriteBehindQueue.submit(vehicle("civic"));
+  }
+
+  @Test
+  public void givenFailingBatchWhenFlushThenOnlyTheBadCreateFails() throws Exception {
+    when(vehicleRepository.saveAll(anyList())).thenThrow(new IllegalStateException("bad row"));
+    when(vehicleRepository.save(any(Vehicle.class)))
+        .thenAnswer(
+            invocation -> {
+              Vehicle vehicle = invocation.getArgument(0);
+              if (vehicle.getModel().equals("bad")) {
+                throw new IllegalStateException("bad row");
+              }
+              vehicle.setId(ids.incrementAndGet());
+              return vehicle;
+            });
+    vehicleWriteBehindQueue.start();
+    CompletableFuture<Vehicle> good = vehicleWriteBehindQueue.submit(vehicle("civic"));
+    CompletableFuture<Vehicle> bad = vehicleWriteBehindQueue.submit(vehicle("bad"));
+
+    assertThat(good.get(5, TimeUnit.SECONDS).getId() > 0, comparesEqualTo(true));
+    try {
+      bad.get(5, TimeUnit.SECONDS);
+      throw new AssertionError("expected the bad create to fail");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause().getMessage(), comparesEqualTo("bad row"));
+    }
+    verify(eventPublisher, times(1)).publishEvent(any(VehicleChangeEvent.class));
+  }
+
+  @Test
+  public void givenFailingBatchWhenFlushThenEveryCallerSeesTheFailure() throws Exception {
+    when(vehicleRepository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+    when(vehicleRepository.save(any(Vehicle.class)))
+        .thenThrow(new IllegalStateException("db down"));
+    vehicleWriteBehindQueue.start();
+    CompletableFuture<Vehicle> first = vehicleWriteBehindQueue.submit(vehicle("civic"));
+    CompletableFuture<Vehicle> second = vehicleWriteBehindQueue.submit(vehicle("accord"));
+    for (CompletableFuture<Vehicle> future : Arrays.asList(first, second)) {
+      try {
+        future.get(5, TimeUnit.SECONDS);
+        throw new AssertionError("expected the batch to fail");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause().getMessage(), comparesEqualTo("db down"));
+      }
+    }
+  }
+
+  @Test
+  public void givenShardsWhenFlushThenEachShardCommitsItsOwnVehicles() throws Exception {
+    VehicleShards vehicleShards = mock(VehicleShards.class);
+    when(vehicleShards.shardFor(any(Vehicle.class)))
+        .thenAnswer(
+            invocation -> "a".equals(invocation.<Vehicle>getArgument(0).getModel()) ? 0 : 1);
+    List<String> committed = new ArrayList<>();
+    when(vehicleShards.on(anyInt(), anyBoolean(), any()))
+        .thenAnswer(
+            invocation -> {
+              int shard = invocation.getArgument(0);
+              List<Vehicle> saved = invocation.<Supplier<List<Vehicle>>>getArgument(2).get();
+              synchronized (committed) {
+                saved.forEach(vehicle -> committed.add(shard + vehicle.getModel()));
+              }
+              return saved;
+            });
+    ReflectionTestUtils.setField(vehicleWriteBehindQueue, "vehicleShards", vehicleShards);
+    vehicleWriteBehindQueue.start();
+    CompletableFuture<Vehicle> first = vehicleWriteBehindQueue.submit(vehicle("a"));
+    CompletableFuture<Vehicle> second = vehicleWriteBehindQueue.submit(vehicle("b"));
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+
+    assertThat(committed.contains("0a"), comparesEqualTo(true));
+    assertThat(committed.contains("1b"), comparesEqualTo(true));
+    assertThat(batchSizes.stream().allMatch(size -> size == 1), comparesEqualTo(true));
+  }
+}
@@ -0,0 +1,100 @@
+package mitchell.vehicleProject.shard;
+
+import mitchell.vehicleProject.dto.VehicleBulkResult;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.exceptions.BadRequestException;
+import mitchell.vehicleProject.service.VehicleService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("sharded")
+@DirtiesContext
+public class ShardedVehicleServiceTest {
+
+  @Autowired private VehicleService vehicleService;
+
+  @Autowired private VehicleShards vehicleShards;
+
+  private static Vehicle vehicle(int year, String make, String model) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setYear(year);
+    vehicle.setMake(make);
+    vehicle.setModel(model);
+    return vehicle;
+  }
+
+  private List<Integer> createOnEveryShard(String make) {
+    List<Vehicle> vehicles = new ArrayList<>();
+    for (int i = 0; i < vehicleShards.count() * 2; i++) {
+      vehicles.add(vehicle(2000 + i, make, "Model" + i));
+    }
+    VehicleBulkResult result = vehicleService.createVehicles(vehicles);
+    assertThat(result.getCreated(), comparesEqualTo(vehicles.size()));
+    return result.getIds();
+  }
+
+  @Test
+  public void givenBulkCreateWhenSavedThenEveryShardHoldsVehicles() {
+    Set<Integer> shards = new HashSet<>();
+    for (Integer id : createOnEveryShard("Created")) {
+      shards.add(vehicleShards.shardOf(id));
+    }
+    assertThat(shards.size(), comparesEqualTo(vehicleShards.count()));
+  }
+
+  @Test
+  public void givenVehiclesOnEveryShardWhenReadThenEachIsFound() {
+    List<Integer> ids = createOnEveryShard("Read");
+    for (int i = 0; i < ids.size(); i++) {
+      Vehicle vehicle = vehicleService.getVehicle(ids.get(i));
+      assertThat(vehicle.getModel(), comparesEqualTo("Model" + i));
+    }
+    assertThat(
+        vehicleService.getVehiclesById(ids).getVehicles().size(), comparesEqualTo(ids.size()));
+    assertThat(
+        vehicleService
+            .getVehicles(Optional.empty(), Optional.of("Read"), Optional.empty())
+            .size(),
+        comparesEqualTo(ids.size()));
+  }
+
+  @Test
+  public void givenVehiclesOnEveryShardWhenUpdatedThenNewValuesAreRead() {
+    for (Integer id : createOnEveryShard("Updated")) {
+      Vehicle update = vehicle(2020, "Updated", "Updated");
+      update.setId(id);
+      Vehicle updated = vehicleService.updateVehicle(update, Optional.of(0L));
+      assertThat(updated.getVersion(), comparesEqualTo(1L));
+      assertThat(vehicleService.getVehicle(id).getModel(), comparesEqualTo("Updated"));
+    }
+  }
+
+  @Test
+  public void givenVehiclesOnEveryShardWhenDeletedThenNotFound() {
+    for (Integer id : createOnEveryShard("Deleted")) {
+      vehicleService.deleteVehicle(id);
+      try {
+        vehicleService.getVehicle(id);
+        throw new AssertionError("Vehicle " + id + " was not deleted");
+      } catch (BadRequestException e) {
+        assertThat(vehicleService.getVehicleVersion(id).isPresent(), comparesEqualTo(false));
+      }
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package mitchell.vehicleProject.shard;
+
+import mitchell.vehicleProject.entity.Vehicle;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.contains;
+
+public class VehicleShardsTest {
+
+  private static List<Vehicle> vehicles(int... ids) {
+    List<Vehicle> vehicles = new ArrayList<>(ids.length);
+    for (int id : ids) {
+      Vehicle vehicle = new Vehicle();
+      vehicle.setId(id);
+      vehicles.add(vehicle);
+    }
+    return vehicles;
+  }
+
+  private static List<Integer> ids(List<Vehicle> vehicles) {
+    List<Integer> ids = new ArrayList<>(vehicles.size());
+    vehicles.forEach(vehicle -> ids.add(vehicle.getId()));
+    return ids;
+  }
+
+  @Test
+  public void givenSortedShardListsWhenMergeByIdThenOneListInIdOrder() {
+    List<Vehicle> merged =
+        VehicleShards.mergeById(
+            Arrays.asList(
+                vehicles(4, 8, 12), Collections.emptyList(), vehicles(2, 10), vehicles(7)),
+            Integer.MAX_VALUE);
+    assertThat(ids(merged), contains(2, 4, 7, 8, 10, 12));
+  }
+
+  @Test
+  public void givenLimitWhenMergeByIdThenOnlyLowestIdsKept() {
+    List<Vehicle> merged =
+        VehicleShards.mergeById(Arrays.asList(vehicles(4, 8, 12), vehicles(1, 5, 9)), 3);
+    assertThat(merged.size(), comparesEqualTo(3));
+    assertThat(ids(merged), contains(1, 4, 5));
+  }
+}
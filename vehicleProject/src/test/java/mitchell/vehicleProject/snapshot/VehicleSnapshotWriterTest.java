@@ -0,0 +1,87 @@
+package mitchell.vehicleProject.snapshot;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class VehicleSnapshotWriterTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private VehicleSnapshot write(Path path, Object[]... rows) throws Exception {
+    try (VehicleSnapshotWriter writer = new VehicleSnapshotWriter(path)) {
+      for (Object[] row : rows) {
+        writer.add((Integer) row[0], (Integer) row[1], (String) row[2], (String) row[3], 0);
+      }
+      writer.finish();
+    }
+    return VehicleSnapshot.open(path);
+  }
+
+  @Test
+  public void givenRowsWhenWrittenThenColumnsReadBackInPlace() throws Exception {
+    Path path = temporaryFolder.getRoot().toPath().resolve("vehicles.snapshot");
+    VehicleSnapshot snapshot =
+        write(
+            path,
+            new Object[] {1, 2000, "honda", "civic"},
+            new Object[] {2, 2005, "Honda", "accord"},
+            new Object[] {5, null, "honda", null});
+
+    assertThat(snapshot.rows(), comparesEqualTo(3));
+    assertThat(snapshot.id(2), comparesEqualTo(5));
+    assertThat(snapshot.year(1), comparesEqualTo(2005));
+    assertThat(snapshot.year(2), nullValue());
+    assertThat(snapshot.model(2), nullValue());
+    // spellings are kept as written, and every row of one shares its String
+    assertThat(snapshot.make(1), comparesEqualTo("Honda"));
+    assertThat(snapshot.make(2), sameInstance(snapshot.make(0)));
+
+    List<Integer> ids = new ArrayList<>();
+    snapshot.forEachKey(key -> ids.add((Integer) key[0]));
+    assertThat(ids, contains(1, 2, 5));
+    assertThat(snapshot.getFingerprint(), equalTo(new VehicleSnapshotFingerprint(3, 8, 0)));
+  }
+
+  @Test
+  public void givenMappedSnapshotWhenReplacedThenMappingStillReadsOldRows() throws Exception {
+    Path path = temporaryFolder.getRoot().toPath().resolve("vehicles.snapshot");
+    VehicleSnapshot old = write(path, new Object[] {1, 2000, "honda", "civic"});
+    VehicleSnapshot replaced = write(path, new Object[] {7, 2010, "bmw", "i8"});
+
+    assertThat(old.id(0), comparesEqualTo(1));
+    assertThat(old.make(0), comparesEqualTo("honda"));
+    assertThat(replaced.id(0), comparesEqualTo(7));
+    // the column spool files are gone
+    assertThat(temporaryFolder.getRoot().list().length, comparesEqualTo(1));
+  }
+
+  @Test
+  public void givenFailingFinishWhenWrittenThenNoPartialFileIsLeft() throws Exception {
+    // a non-empty directory in the way makes the final move fail
+    Path path = temporaryFolder.newFolder("vehicles.snapshot").toPath();
+    Files.createFile(path.resolve("occupied"));
+    try (VehicleSnapshotWriter writer = new VehicleSnapshotWriter(path)) {
+      writer.add(1, 2000, "honda", "civic", 0);
+      writer.finish();
+      throw new AssertionError("expected the move to fail");
+    } catch (IOException e) {
+      assertThat(
+          Files.exists(path.resolveSibling("vehicles.snapshot.partial")), comparesEqualTo(false));
+    }
+    assertThat(temporaryFolder.getRoot().list().length, comparesEqualTo(1));
+  }
+}
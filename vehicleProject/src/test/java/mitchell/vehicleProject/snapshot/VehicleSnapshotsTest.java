@@ -0,0 +1,124 @@
+package mitchell.vehicleProject.snapshot;
+
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import mitchell.vehicleProject.service.VehicleService;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "vehicle.snapshot.enabled=true")
+@AutoConfigureMockMvc
+@DirtiesContext
+public class VehicleSnapshotsTest {
+
+  @ClassRule public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @DynamicPropertySource
+  static void snapshotPath(DynamicPropertyRegistry registry) {
+    registry.add(
+        "vehicle.snapshot.path",
+        () -> temporaryFolder.getRoot().toPath().resolve("vehicles.snapshot").toString());
+  }
+
+  @Autowired private VehicleSnapshots vehicleSnapshots;
+
+  @Autowired private VehicleService vehicleService;
+
+  @Autowired private VehicleRepository vehicleRepository;
+
+  @Autowired private MockMvc mockMvc;
+
+  private Vehicle created(String model) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setYear(2000);
+    vehicle.setMake("Snapshot");
+    vehicle.setModel(model);
+    vehicleService.createVehicle(vehicle);
+    return vehicle;
+  }
+
+  private List<Integer> snapshotIds() {
+    List<Integer> ids = new ArrayList<>();
+    if (!vehicleSnapshots.forEachKey(key -> ids.add((Integer) key[0]))) {
+      return null;
+    }
+    return ids;
+  }
+
+  @Test
+  public void givenSnapshotOfTheTableWhenRebuildingThenKeysComeFromTheSnapshot()
+      throws Exception {
+    created("civic");
+    VehicleSnapshot snapshot = vehicleSnapshots.write();
+
+    assertThat(
+        snapshot.getFingerprint(),
+        equalTo(VehicleSnapshotFingerprint.of(vehicleRepository.fingerprint())));
+    List<Integer> ids = snapshotIds();
+    assertThat(ids.size(), comparesEqualTo((int) vehicleRepository.count()));
+  }
+
+  @Test
+  public void givenTableChangedSinceSnapshotWhenRebuildingThenFallBackToTheScan()
+      throws Exception {
+    Vehicle vehicle = created("accord");
+    vehicleSnapshots.write();
+
+    vehicle.setModel("accord hybrid");
+    vehicleService.updateVehicle(vehicle, Optional.empty());
+    assertThat(snapshotIds(), nullValue());
+
+    vehicleSnapshots.write();
+    assertThat(snapshotIds(), notNullValue());
+  }
+
+  @Test
+  public void givenSnapshotWhenGetThenServeTheFileAndRanges() throws Exception {
+    created("i8");
+    vehicleSnapshots.write();
+    byte[] file = Files.readAllBytes(vehicleSnapshots.getPath().get());
+
+    MvcResult result = mockMvc.perform(get("/vehicles/snapshot")).andReturn();
+    assertThat(result.getResponse().getStatus(), comparesEqualTo(HttpStatus.OK.value()));
+    assertThat(result.getResponse().getContentAsByteArray().length, comparesEqualTo(file.length));
+
+    result =
+        mockMvc
+            .perform(get("/vehicles/snapshot").header(HttpHeaders.RANGE, "bytes=0-3"))
+            .andReturn();
+    assertThat(
+        result.getResponse().getStatus(), comparesEqualTo(HttpStatus.PARTIAL_CONTENT.value()));
+    byte[] magic = result.getResponse().getContentAsByteArray();
+    assertThat(
+        ByteBuffer.wrap(magic).order(ByteOrder.LITTLE_ENDIAN).getInt(),
+        comparesEqualTo(VehicleSnapshot.MAGIC));
+  }
+}
@@ -0,0 +1,177 @@
+package mitchell.vehicleProject.suggest;
+
+import mitchell.vehicleProject.dto.VehicleSuggestion;
+import mitchell.vehicleProject.entity.Vehicle;
+import mitchell.vehicleProject.event.VehicleChangeEvent;
+import mitchell.vehicleProject.exceptions.ServiceUnavailableException;
+import mitchell.vehicleProject.repository.VehicleRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+public class VehicleSuggestionsTest {
+
+  @InjectMocks private VehicleSuggestions vehicleSuggestions;
+
+  @Mock private VehicleRepository vehicleRepository;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Before
+  public void setup() {
+    when(vehicleRepository.streamKeys())
+        .thenReturn(
+            Stream.of(
+                new Object[] {1, 2000, "honda", "civic"},
+                new Object[] {2, 2001, "honda", "accord"},
+                new Object[] {3, 2002, "hyundai", "elantra"},
+                new Object[] {4, 2000, "honda", "civic"},
+                new Object[] {5, 2003, "Hummer", "h2"},
+                new Object[] {6, 2003, "hummer", "h3"},
+                new Object[] {7, 2003, "hummer", "h2"},
+                new Object[] {8, 2002, "BMW", "i8"},
+                new Object[] {10, 2004, "honda", "civic"}));
+    vehicleSuggestions.rebuild();
+  }
+
+  private static List<String> values(List<VehicleSuggestion> suggestions) {
+    return suggestions.stream().map(VehicleSuggestion::getValue).collect(Collectors.toList());
+  }
+
+  private static Vehicle vehicle(int id, String make, String model) {
+    Vehicle vehicle = new Vehicle();
+    vehicle.setId(id);
+    vehicle.setYear(2010);
+    vehicle.setMake(make);
+    vehicle.setModel(model);
+    return vehicle;
+  }
+
+  @Test
+  public void givenPrefixWhenSuggestMakesThenMostCommonMatchesComeFirst() {
+    List<VehicleSuggestion> suggestions = vehicleSuggestions.suggestMakes("H", 10);
+    verify(vehicleRepository, never()).countByYearMakeModel();
+    assertThat(values(suggestions), contains("honda", "hummer", "hyundai"));
+    assertThat(suggestions.get(0).getCount(), comparesEqualTo(4L));
+    // "Hummer" and "hummer" are one make, shown in its more common spelling
+    assertThat(suggestions.get(1).getCount(), comparesEqualTo(3L));
+
+    assertThat(values(vehicleSuggestions.suggestMakes("hu", 10)), contains("hummer"));
+    assertThat(values(vehicleSuggestions.suggestMakes("h", 1)), contains("honda"));
+    assertThat(vehicleSuggestions.suggestMakes("tesla", 10), empty());
+  }
+
+  @Test
+  public void givenMakeWhenSuggestModelsThenOnlyItsModelsAreRanked() {
+    assertThat(values(vehicleSuggestions.suggestModels("h", "HUMMER", 10)), contains("h2", "h3"));
+    assertThat(
+        values(vehicleSuggestions.suggestModels("", "honda", 10)), contains("civic", "accord"));
+    assertThat(vehicleSuggestions.suggestModels("", "tesla", 10), empty());
+    assertThat(values(vehicleSuggestions.suggestModels("h", null, 10)), contains("h2", "h3"));
+  }
+
+  @Test
+  public void givenChangeEventsWhenSuggestThenCountsFollowTheChanges() {
+    vehicleSuggestions.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.UPDATED, 1, vehicle(1, "hyundai", "kona")));
+    vehicleSuggestions.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, 2, null));
+    vehicleSuggestions.onVehicleChange(
+        new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, 8, null));
+    for (int id = 11; id <= 12; id++) {
+      vehicleSuggestions.onVehicleChange(
+          new VehicleChangeEvent(
+              VehicleChangeEvent.Type.CREATED, id, vehicle(id, "hyundai", "kona")));
+    }
+
+    List<VehicleSuggestion> suggestions = vehicleSuggestions.suggestMakes("h", 10);
+    assertThat(values(suggestions), contains("hyundai", "hummer", "honda"));
+    assertThat(suggestions.get(0).getCount(), comparesEqualTo(4L));
+    assertThat(suggestions.get(2).getCount(), comparesEqualTo(2L));
+    assertThat(vehicleSuggestions.suggestMakes("b", 10), empty());
+    assertThat(
+        values(vehicleSuggestions.suggestModels("", "hyundai", 10)), contains("kona", "elantra"));
+    assertThat(values(vehicleSuggestions.suggestModels("c", "honda", 10)), contains("civic"));
+  }
+
+  @Test
+  public void givenChangesDuringRebuildWhenRebuiltThenTheyAreNotLost() {
+    when(vehicleRepository.streamKeys())
+        .thenReturn(
+            Stream.of(
+                    new Object[] {1, 2000, "honda", "civic"},
+                    new Object[] {2, 2001, "honda", "accord"})
+                .peek(
+                    key -> {
+                      if (key[0].equals(2)) {
+                        // one change the scan has already passed, one it will never see
+                        vehicleSuggestions.onVehicleChange(
+                            new VehicleChangeEvent(VehicleChangeEvent.Type.DELETED, 1, null));
+                        vehicleSuggestions.onVehicleChange(
+                            new VehicleChangeEvent(
+                                VehicleChangeEvent.Type.CREATED, 20, vehicle(20, "tesla", "s")));
+                      }
+                    }));
+    vehicleSuggestions.rebuild();
+
+    assertThat(vehicleSuggestions.suggestMakes("h", 10).get(0).getCount(), comparesEqualTo(1L));
+    assertThat(values(vehicleSuggestions.suggestMakes("t", 10)), contains("tesla"));
+    assertThat(values(vehicleSuggestions.suggestModels("", "honda", 10)), contains("accord"));
+  }
+
+  @Test
+  public void givenFailedRebuildWhenSuggestThenServiceUnavailableUntilARetrySucceeds()
+      throws Exception {
+    VehicleSuggestions notBuilt = new VehicleSuggestions();
+    ReflectionTestUtils.setField(notBuilt, "vehicleRepository", vehicleRepository);
+    ReflectionTestUtils.setField(notBuilt, "transactionManager", transactionManager);
+    ReflectionTestUtils.setField(notBuilt, "retryDelay", Duration.ofMillis(20));
+    when(vehicleRepository.streamKeys())
+        .thenThrow(new IllegalStateException("db down"))
+        .thenReturn(Stream.<Object[]>of(new Object[] {1, 2000, "honda", "civic"}));
+    notBuilt.start();
+    try {
+      notBuilt.rebuildOrRetry();
+      try {
+        notBuilt.suggestMakes("h", 10);
+        throw new AssertionError("expected suggestions to be unavailable");
+      } catch (ServiceUnavailableException e) {
+        verify(vehicleRepository, never()).countByYearMakeModel();
+      }
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      List<VehicleSuggestion> suggestions = null;
+      while (Objects.isNull(suggestions) && System.nanoTime() < deadline) {
+        try {
+          suggestions = notBuilt.suggestMakes("h", 10);
+        } catch (ServiceUnavailableException e) {
+          Thread.sleep(10);
+        }
+      }
+      assertThat(values(suggestions), contains("honda"));
+    } finally {
+      notBuilt.stop();
+    }
+  }
+}